@@ -0,0 +1,66 @@
+package com.kalakriti.order.config;
+
+import com.kalakriti.order.sharding.ShardRouter;
+import com.kalakriti.order.sharding.ShardRoutingDataSource;
+import com.kalakriti.order.sharding.ShardSchemaManager;
+import com.kalakriti.order.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "order.sharding.enabled", havingValue = "true")
+    public ShardRoutingDataSource dataSource(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("order.sharding.shards must list at least one shard");
+        }
+        LinkedHashMap<String, DataSource> shards = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            dataSource.setPoolName("order-shard-" + shard.getName());
+            if (shards.put(shard.getName(), dataSource) != null) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.getName());
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "order.sharding.enabled", havingValue = "true")
+    public ShardSchemaManager shardSchemaManager(@Lazy ShardRouter shardRouter) {
+        return new ShardSchemaManager(shardRouter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "order.sharding.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer shardingHibernateProperties(ShardSchemaManager shardSchemaManager) {
+        return properties -> {
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(shardSchemaManager));
+            // Connections are taken per transaction, so each transaction in a request
+            // gets one from the shard bound at the time it starts
+            properties.put(AvailableSettings.CONNECTION_HANDLING,
+                    PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+        };
+    }
+}
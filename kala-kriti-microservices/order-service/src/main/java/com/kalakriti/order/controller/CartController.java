@@ -0,0 +1,81 @@
+package com.kalakriti.order.controller;
+
+import com.kalakriti.order.dto.CartCheckoutDTO;
+import com.kalakriti.order.dto.CartDTO;
+import com.kalakriti.order.dto.OrderDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.service.CartService;
+import com.kalakriti.order.service.OrderMappingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/carts")
+@CrossOrigin(origins = "*")
+public class CartController {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @GetMapping("/{customerId}")
+    public CartDTO getCart(@PathVariable Long customerId) {
+        return cartService.getCart(customerId);
+    }
+
+    @PostMapping("/{customerId}/items")
+    public ResponseEntity<?> addItem(@PathVariable Long customerId, @Valid @RequestBody OrderItemCreateDTO item) {
+        try {
+            return ResponseEntity.ok(cartService.addItem(customerId, item));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @PutMapping("/{customerId}/items/{productId}")
+    public ResponseEntity<?> setQuantity(@PathVariable Long customerId, @PathVariable Long productId,
+                                         @RequestParam int quantity) {
+        try {
+            return ResponseEntity.ok(cartService.setQuantity(customerId, productId, quantity));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/{customerId}/items/{productId}")
+    public CartDTO removeItem(@PathVariable Long customerId, @PathVariable Long productId) {
+        return cartService.removeItem(customerId, productId);
+    }
+
+    @DeleteMapping("/{customerId}")
+    public CartDTO clearCart(@PathVariable Long customerId) {
+        return cartService.clear(customerId);
+    }
+
+    @PostMapping("/{customerId}/checkout")
+    public ResponseEntity<?> checkout(@PathVariable Long customerId,
+                                      @RequestBody(required = false) CartCheckoutDTO details) {
+        try {
+            Order order = cartService.checkout(customerId, details);
+            OrderDTO orderDTO = mappingService.toOrderDTO(order);
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderDTO);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.kalakriti.order.controller;
+
+import com.kalakriti.order.dto.CheckoutRequestDTO;
+import com.kalakriti.order.dto.CheckoutSagaDTO;
+import com.kalakriti.order.entity.CheckoutSaga;
+import com.kalakriti.order.service.CheckoutSagaService;
+import jakarta.validation.Valid;
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/orders/checkout")
+@CrossOrigin(origins = "*")
+public class CheckoutController {
+
+    @Autowired
+    private CheckoutSagaService checkoutSagaService;
+
+    // 201 when the order is confirmed, 409 when the saga was rolled back, and 202 while
+    // it is still running (poll the Location)
+    @PostMapping
+    public ResponseEntity<?> checkout(@Valid @RequestBody CheckoutRequestDTO request) {
+        CheckoutSagaDTO saga;
+        try {
+            saga = checkoutSagaService.checkout(request);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+        if (saga.getState() == CheckoutSaga.SagaState.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(saga);
+        }
+        if (saga.getState().isTerminal()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(saga);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/checkout/" + saga.getSagaId()))
+                .body(saga);
+    }
+
+    @GetMapping("/{sagaId}")
+    public ResponseEntity<CheckoutSagaDTO> getCheckout(@PathVariable Long sagaId) {
+        return checkoutSagaService.getSaga(sagaId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
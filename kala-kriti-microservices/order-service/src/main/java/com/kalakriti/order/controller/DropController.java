@@ -0,0 +1,83 @@
+package com.kalakriti.order.controller;
+
+import com.kalakriti.order.dto.DropCreateDTO;
+import com.kalakriti.order.dto.DropStatsDTO;
+import com.kalakriti.order.dto.DropTicketDTO;
+import com.kalakriti.order.service.DropService;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/drops")
+@CrossOrigin(origins = "*")
+public class DropController {
+
+    @Autowired
+    private DropService dropService;
+
+    @GetMapping
+    public List<DropStatsDTO> getOpenDrops() {
+        return dropService.getOpenDrops();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> openDrop(@Valid @RequestBody DropCreateDTO request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(dropService.openDrop(request));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/{dropId}")
+    public ResponseEntity<DropStatsDTO> getDrop(@PathVariable String dropId) {
+        return dropService.getStats(dropId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{dropId}")
+    public ResponseEntity<?> closeDrop(@PathVariable String dropId) {
+        try {
+            dropService.closeDrop(dropId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{dropId}/queue")
+    public ResponseEntity<DropTicketDTO> joinQueue(@PathVariable String dropId, @RequestParam Long customerId) {
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(dropService.join(dropId, customerId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Clients poll again after pollAfterMs; an admitted ticket carries the token to send
+    // as X-Drop-Token when creating the order
+    @GetMapping("/{dropId}/queue/{ticketId}")
+    public ResponseEntity<DropTicketDTO> pollQueue(@PathVariable String dropId, @PathVariable String ticketId) {
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(dropService.poll(dropId, ticketId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,15 +1,36 @@
 package com.kalakriti.order.controller;
 
+import com.kalakriti.order.dto.ArtistOrderLineDTO;
+import com.kalakriti.order.dto.BulkStatusUpdateDTO;
+import com.kalakriti.order.dto.KeysetPageDTO;
 import com.kalakriti.order.dto.OrderCreateDTO;
 import com.kalakriti.order.dto.OrderDTO;
+import com.kalakriti.order.dto.OrderIntakeStatusDTO;
+import com.kalakriti.order.dto.OrderSearchCriteria;
+import com.kalakriti.order.dto.OrderSummaryDTO;
 import com.kalakriti.order.dto.OrderUpdateDTO;
 import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.service.DropService;
+import com.kalakriti.order.service.OrderArchiveService;
+import com.kalakriti.order.service.OrderBulkService;
+import com.kalakriti.order.service.OrderExportService;
+import com.kalakriti.order.service.OrderIntakeService;
 import com.kalakriti.order.service.OrderMappingService;
 import com.kalakriti.order.service.OrderService;
+import com.kalakriti.order.service.OrderViewService;
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,8 +39,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -29,6 +53,24 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderBulkService orderBulkService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private DropService dropService;
+
     @Autowired
     private OrderMappingService mappingService;
 
@@ -39,7 +81,12 @@ public class OrderController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<?> getOrderById(@PathVariable Long id) {
+        // Served straight from the read model; the normalized tables are only a fallback
+        Optional<String> document = orderViewService.findDocument(id);
+        if (document.isPresent()) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(document.get());
+        }
         try {
             Order order = orderService.getOrderById(id);
             OrderDTO orderDTO = mappingService.toOrderDTO(order);
@@ -50,17 +97,132 @@ public class OrderController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public List<OrderDTO> getOrdersByCustomer(@PathVariable Long customerId) {
+    public ResponseEntity<?> getOrdersByCustomer(@PathVariable Long customerId) {
+        Optional<String> history = orderViewService.findCustomerHistory(customerId);
+        if (history.isPresent()) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(history.get());
+        }
         List<Order> orders = orderService.getOrdersByCustomer(customerId);
-        return mappingService.toOrderDTOList(orders);
+        return ResponseEntity.ok(mappingService.toOrderDTOList(orders));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = "orders-" + from + "-" + to + (exportFormat == OrderExportService.Format.CSV ? ".csv" : ".ndjson")
+                + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == OrderExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> orderExportService.export(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), exportFormat, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(defaultValue = "desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            OrderSearchCriteria criteria = new OrderSearchCriteria();
+            criteria.setStatus(status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null);
+            criteria.setCustomerId(customerId);
+            criteria.setFrom(from != null ? from.atStartOfDay() : null);
+            criteria.setTo(to != null ? to.plusDays(1).atStartOfDay() : null);
+            criteria.setMinAmount(minAmount);
+            criteria.setMaxAmount(maxAmount);
+            criteria.setAscending("asc".equalsIgnoreCase(sort));
+            KeysetPageDTO<OrderSummaryDTO> page = orderService.searchOrders(
+                    criteria, cursor, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/artist/{artistId}")
+    public ResponseEntity<?> getOrdersByArtist(
+            @PathVariable Long artistId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
+            KeysetPageDTO<ArtistOrderLineDTO> page = orderService.getOrderLinesByArtist(
+                    artistId,
+                    orderStatus,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null,
+                    cursor,
+                    Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
     }
 
     @PostMapping
-    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody OrderCreateDTO orderCreateDTO) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderCreateDTO orderCreateDTO,
+                                         @RequestHeader(value = DropService.TOKEN_HEADER, required = false)
+                                         String dropToken) {
+        try {
+            Order order = mappingService.toOrder(orderCreateDTO);
+            Order createdOrder = dropService.createOrder(order, dropToken);
+            OrderDTO orderDTO = mappingService.toOrderDTO(createdOrder);
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderDTO);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+    }
+
+    @PostMapping("/async")
+    public ResponseEntity<?> submitOrder(@Valid @RequestBody OrderCreateDTO orderCreateDTO) {
         Order order = mappingService.toOrder(orderCreateDTO);
-        Order createdOrder = orderService.createOrder(order);
-        OrderDTO orderDTO = mappingService.toOrderDTO(createdOrder);
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderDTO);
+        try {
+            dropService.checkNotInDrop(order);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+        try {
+            OrderIntakeStatusDTO status = orderIntakeService.submit(order);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/async/" + status.getHandle()))
+                    .body(status);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/async/{handle}")
+    public ResponseEntity<OrderIntakeStatusDTO> getSubmissionStatus(@PathVariable String handle) {
+        return orderIntakeService.getStatus(handle)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}/status")
@@ -70,19 +232,45 @@ public class OrderController {
             Order updated = orderService.updateOrderStatus(id, status);
             OrderDTO orderDTO = mappingService.toOrderDTO(updated);
             return ResponseEntity.ok(orderDTO);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
         }
     }
 
+    @PostMapping("/bulk/status")
+    public ResponseEntity<?> bulkUpdateOrderStatus(@Valid @RequestBody BulkStatusUpdateDTO request) {
+        try {
+            Order.OrderStatus status = Order.OrderStatus.valueOf(request.getStatus().toUpperCase());
+            return ResponseEntity.ok(orderBulkService.transition(request.getOrderIds(), status));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @PostMapping("/views/rebuild")
+    public Map<String, Integer> rebuildOrderViews(@RequestParam(defaultValue = "false") boolean onlyMissing) {
+        return Map.of("rebuilt", orderViewService.rebuild(onlyMissing));
+    }
+
+    @PostMapping("/archive")
+    public Map<String, Integer> archiveOrders() {
+        return Map.of("archived", orderArchiveService.archiveOldOrders());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateOrder(@PathVariable Long id, @Valid @RequestBody OrderUpdateDTO orderUpdateDTO) {
         try {
-            Order existingOrder = orderService.getOrderById(id);
-            Order updatedOrder = mappingService.updateOrderFromDTO(existingOrder, orderUpdateDTO);
-            Order saved = orderService.updateOrder(id, updatedOrder);
+            // Map onto a detached copy: mutating the managed entity here would hide the previous status from the service
+            Order orderDetails = mappingService.toOrder(orderUpdateDTO);
+            Order saved = orderService.updateOrder(id, orderDetails);
             OrderDTO orderDTO = mappingService.toOrderDTO(saved);
             return ResponseEntity.ok(orderDTO);
+        } catch (OptimisticLockingFailureException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Order was modified concurrently, please retry");
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
         }
@@ -95,6 +283,8 @@ public class OrderController {
             return ResponseEntity.noContent().build();
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+        } catch (OptimisticLockingFailureException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Order was modified concurrently, please retry");
         }
     }
 
@@ -0,0 +1,59 @@
+package com.kalakriti.order.controller;
+
+import com.kalakriti.order.dto.ArtistSalesReportDTO;
+import com.kalakriti.order.dto.ArtistSalesTotalDTO;
+import com.kalakriti.order.service.SalesRollupService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/orders/analytics")
+@CrossOrigin(origins = "*")
+public class SalesAnalyticsController {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @GetMapping("/artists/{artistId}/sales")
+    public ArtistSalesReportDTO getArtistSales(
+            @PathVariable Long artistId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return salesRollupService.getArtistReport(artistId, start, end);
+    }
+
+    @GetMapping("/artists/top")
+    public List<ArtistSalesTotalDTO> getTopArtists(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return salesRollupService.getTopArtists(start, end, Math.min(Math.max(limit, 1), 100));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int rows = salesRollupService.rebuild(from, to);
+            return ResponseEntity.ok(Map.of("from", from, "to", to, "rowsWritten", rows));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
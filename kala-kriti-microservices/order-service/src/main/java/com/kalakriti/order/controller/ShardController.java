@@ -0,0 +1,41 @@
+package com.kalakriti.order.controller;
+
+import com.kalakriti.order.dto.ShardStatusDTO;
+import com.kalakriti.order.sharding.ShardRebalancer;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/orders/shards")
+@CrossOrigin(origins = "*")
+public class ShardController {
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @GetMapping
+    public ShardStatusDTO getStatus() {
+        return shardRebalancer.getStatus();
+    }
+
+    // Switches the ring to the given shards and moves customers in the background;
+    // poll GET for progress
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance(@RequestParam List<String> members) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(shardRebalancer.rebalance(members));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+}
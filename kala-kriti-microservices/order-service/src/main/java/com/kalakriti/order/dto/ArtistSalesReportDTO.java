@@ -0,0 +1,75 @@
+package com.kalakriti.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class ArtistSalesReportDTO {
+    private Long artistId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal totalRevenue;
+    private Long totalUnits;
+    private Long totalOrders;
+    private List<SalesDayDTO> days;
+
+    // Default constructor
+    public ArtistSalesReportDTO() {}
+
+    // Getters and Setters
+    public Long getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public Long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public void setTotalUnits(Long totalUnits) {
+        this.totalUnits = totalUnits;
+    }
+
+    public Long getTotalOrders() {
+        return totalOrders;
+    }
+
+    public void setTotalOrders(Long totalOrders) {
+        this.totalOrders = totalOrders;
+    }
+
+    public List<SalesDayDTO> getDays() {
+        return days;
+    }
+
+    public void setDays(List<SalesDayDTO> days) {
+        this.days = days;
+    }
+}
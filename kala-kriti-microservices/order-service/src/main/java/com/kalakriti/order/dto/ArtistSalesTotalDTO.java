@@ -0,0 +1,53 @@
+package com.kalakriti.order.dto;
+
+import java.math.BigDecimal;
+
+public class ArtistSalesTotalDTO {
+    private Long artistId;
+    private BigDecimal revenue;
+    private Long units;
+    private Long orderCount;
+
+    // Default constructor
+    public ArtistSalesTotalDTO() {}
+
+    public ArtistSalesTotalDTO(Long artistId, BigDecimal revenue, Long units, Long orderCount) {
+        this.artistId = artistId;
+        this.revenue = revenue;
+        this.units = units;
+        this.orderCount = orderCount;
+    }
+
+    // Getters and Setters
+    public Long getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kalakriti.order.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+public class BulkStatusUpdateDTO {
+    @NotEmpty(message = "Order IDs are required")
+    private List<Long> orderIds;
+
+    @NotNull(message = "Status is required")
+    private String status;
+
+    // Default constructor
+    public BulkStatusUpdateDTO() {}
+
+    // Getters and Setters
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
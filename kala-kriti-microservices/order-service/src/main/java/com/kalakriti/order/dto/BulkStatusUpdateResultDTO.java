@@ -0,0 +1,65 @@
+package com.kalakriti.order.dto;
+
+import com.kalakriti.order.entity.Order;
+import java.util.List;
+
+public class BulkStatusUpdateResultDTO {
+    private Order.OrderStatus status;
+    private int requested;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private List<OrderStatusOutcomeDTO> results;
+
+    // Default constructor
+    public BulkStatusUpdateResultDTO() {}
+
+    // Getters and Setters
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Order.OrderStatus status) {
+        this.status = status;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<OrderStatusOutcomeDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<OrderStatusOutcomeDTO> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kalakriti.order.dto;
+
+public class CartCheckoutDTO {
+    private String shippingAddress;
+    private String billingAddress;
+
+    // Default constructor
+    public CartCheckoutDTO() {}
+
+    // Getters and Setters
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public void setShippingAddress(String shippingAddress) {
+        this.shippingAddress = shippingAddress;
+    }
+
+    public String getBillingAddress() {
+        return billingAddress;
+    }
+
+    public void setBillingAddress(String billingAddress) {
+        this.billingAddress = billingAddress;
+    }
+}
@@ -0,0 +1,48 @@
+package com.kalakriti.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CartDTO {
+    private Long customerId;
+    private List<OrderItemCreateDTO> items;
+    private BigDecimal totalAmount;
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public CartDTO() {}
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public List<OrderItemCreateDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemCreateDTO> items) {
+        this.items = items;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
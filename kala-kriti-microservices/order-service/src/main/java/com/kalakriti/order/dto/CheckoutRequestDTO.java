@@ -0,0 +1,65 @@
+package com.kalakriti.order.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+public class CheckoutRequestDTO {
+    @NotNull(message = "Customer ID is required")
+    private Long customerId;
+
+    private String shippingAddress;
+    private String billingAddress;
+
+    @NotNull(message = "Payment method is required")
+    private String paymentMethod;
+
+    @Valid
+    @NotEmpty(message = "Order items are required")
+    private List<OrderItemCreateDTO> items;
+
+    // Default constructor
+    public CheckoutRequestDTO() {}
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public void setShippingAddress(String shippingAddress) {
+        this.shippingAddress = shippingAddress;
+    }
+
+    public String getBillingAddress() {
+        return billingAddress;
+    }
+
+    public void setBillingAddress(String billingAddress) {
+        this.billingAddress = billingAddress;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public List<OrderItemCreateDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemCreateDTO> items) {
+        this.items = items;
+    }
+}
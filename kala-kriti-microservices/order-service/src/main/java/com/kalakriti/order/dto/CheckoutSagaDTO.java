@@ -0,0 +1,101 @@
+package com.kalakriti.order.dto;
+
+import com.kalakriti.order.entity.CheckoutSaga;
+import java.time.LocalDateTime;
+
+public class CheckoutSagaDTO {
+    private Long sagaId;
+    private Long customerId;
+    private Long orderId;
+    private CheckoutSaga.SagaState state;
+    private CheckoutSaga.StepStatus stockStatus;
+    private CheckoutSaga.StepStatus paymentStatus;
+    private String paymentReference;
+    private String failureReason;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public CheckoutSagaDTO() {}
+
+    // Getters and Setters
+    public Long getSagaId() {
+        return sagaId;
+    }
+
+    public void setSagaId(Long sagaId) {
+        this.sagaId = sagaId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public CheckoutSaga.SagaState getState() {
+        return state;
+    }
+
+    public void setState(CheckoutSaga.SagaState state) {
+        this.state = state;
+    }
+
+    public CheckoutSaga.StepStatus getStockStatus() {
+        return stockStatus;
+    }
+
+    public void setStockStatus(CheckoutSaga.StepStatus stockStatus) {
+        this.stockStatus = stockStatus;
+    }
+
+    public CheckoutSaga.StepStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(CheckoutSaga.StepStatus paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.kalakriti.order.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.Set;
+
+public class DropCreateDTO {
+    @NotEmpty(message = "Product IDs are required")
+    private Set<Long> productIds;
+
+    @NotNull(message = "Stock is required")
+    @Positive(message = "Stock must be positive")
+    private Integer stock;
+
+    private Integer maxPerCustomer;
+    private Integer tokenTtlSeconds;
+
+    // Default constructor
+    public DropCreateDTO() {}
+
+    // Getters and Setters
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(Set<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Integer getMaxPerCustomer() {
+        return maxPerCustomer;
+    }
+
+    public void setMaxPerCustomer(Integer maxPerCustomer) {
+        this.maxPerCustomer = maxPerCustomer;
+    }
+
+    public Integer getTokenTtlSeconds() {
+        return tokenTtlSeconds;
+    }
+
+    public void setTokenTtlSeconds(Integer tokenTtlSeconds) {
+        this.tokenTtlSeconds = tokenTtlSeconds;
+    }
+}
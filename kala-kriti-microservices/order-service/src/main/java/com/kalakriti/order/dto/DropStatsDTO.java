@@ -0,0 +1,137 @@
+package com.kalakriti.order.dto;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+public class DropStatsDTO {
+    private String dropId;
+    private Set<Long> productIds;
+    private int stock;
+    private int sold;
+    private int reserved;
+    private int remaining;
+    private int waiting;
+    private int activeTokens;
+    private long joined;
+    private long admitted;
+    private long purchased;
+    private long expiredTokens;
+    private long purchasesLastMinute;
+    private LocalDateTime openedAt;
+
+    // Default constructor
+    public DropStatsDTO() {}
+
+    // Getters and Setters
+    public String getDropId() {
+        return dropId;
+    }
+
+    public void setDropId(String dropId) {
+        this.dropId = dropId;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(Set<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public int getSold() {
+        return sold;
+    }
+
+    public void setSold(int sold) {
+        this.sold = sold;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public void setReserved(int reserved) {
+        this.reserved = reserved;
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(int remaining) {
+        this.remaining = remaining;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    public int getActiveTokens() {
+        return activeTokens;
+    }
+
+    public void setActiveTokens(int activeTokens) {
+        this.activeTokens = activeTokens;
+    }
+
+    public long getJoined() {
+        return joined;
+    }
+
+    public void setJoined(long joined) {
+        this.joined = joined;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(long admitted) {
+        this.admitted = admitted;
+    }
+
+    public long getPurchased() {
+        return purchased;
+    }
+
+    public void setPurchased(long purchased) {
+        this.purchased = purchased;
+    }
+
+    public long getExpiredTokens() {
+        return expiredTokens;
+    }
+
+    public void setExpiredTokens(long expiredTokens) {
+        this.expiredTokens = expiredTokens;
+    }
+
+    public long getPurchasesLastMinute() {
+        return purchasesLastMinute;
+    }
+
+    public void setPurchasesLastMinute(long purchasesLastMinute) {
+        this.purchasesLastMinute = purchasesLastMinute;
+    }
+
+    public LocalDateTime getOpenedAt() {
+        return openedAt;
+    }
+
+    public void setOpenedAt(LocalDateTime openedAt) {
+        this.openedAt = openedAt;
+    }
+}
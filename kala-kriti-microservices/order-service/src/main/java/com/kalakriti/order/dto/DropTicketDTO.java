@@ -0,0 +1,104 @@
+package com.kalakriti.order.dto;
+
+import java.time.LocalDateTime;
+
+public class DropTicketDTO {
+    private String ticketId;
+    private String dropId;
+    private Long customerId;
+    private State state;
+    private Long position;
+    private Long pollAfterMs;
+    private String token;
+    private Integer reservedUnits;
+    private LocalDateTime tokenExpiresAt;
+    private LocalDateTime joinedAt;
+
+    public enum State {
+        WAITING, ADMITTED, CHECKING_OUT, PURCHASED, EXPIRED, SOLD_OUT
+    }
+
+    // Default constructor
+    public DropTicketDTO() {}
+
+    // Getters and Setters
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getDropId() {
+        return dropId;
+    }
+
+    public void setDropId(String dropId) {
+        this.dropId = dropId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public Long getPollAfterMs() {
+        return pollAfterMs;
+    }
+
+    public void setPollAfterMs(Long pollAfterMs) {
+        this.pollAfterMs = pollAfterMs;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Integer getReservedUnits() {
+        return reservedUnits;
+    }
+
+    public void setReservedUnits(Integer reservedUnits) {
+        this.reservedUnits = reservedUnits;
+    }
+
+    public LocalDateTime getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    public void setTokenExpiresAt(LocalDateTime tokenExpiresAt) {
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.kalakriti.order.dto;
+
+import java.time.LocalDateTime;
+
+public class OrderIntakeStatusDTO {
+    private String handle;
+    private State state;
+    private Long orderId;
+    private String error;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime completedAt;
+
+    public enum State {
+        QUEUED, PERSISTED, FAILED
+    }
+
+    // Default constructor
+    public OrderIntakeStatusDTO() {}
+
+    // Getters and Setters
+    public String getHandle() {
+        return handle;
+    }
+
+    public void setHandle(String handle) {
+        this.handle = handle;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public void setAcceptedAt(LocalDateTime acceptedAt) {
+        this.acceptedAt = acceptedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,47 @@
+package com.kalakriti.order.dto;
+
+import com.kalakriti.order.entity.Order;
+
+public class OrderStatusOutcomeDTO {
+    private Long orderId;
+    private Outcome outcome;
+    private Order.OrderStatus previousStatus;
+
+    public enum Outcome {
+        UPDATED, UNCHANGED, INVALID_TRANSITION, NOT_FOUND
+    }
+
+    // Default constructor
+    public OrderStatusOutcomeDTO() {}
+
+    public OrderStatusOutcomeDTO(Long orderId, Outcome outcome, Order.OrderStatus previousStatus) {
+        this.orderId = orderId;
+        this.outcome = outcome;
+        this.previousStatus = previousStatus;
+    }
+
+    // Getters and Setters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public Order.OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(Order.OrderStatus previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+}
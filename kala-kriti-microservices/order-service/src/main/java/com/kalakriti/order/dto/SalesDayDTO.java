@@ -0,0 +1,54 @@
+package com.kalakriti.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class SalesDayDTO {
+    private LocalDate date;
+    private BigDecimal revenue;
+    private Long units;
+    private Long orderCount;
+
+    // Default constructor
+    public SalesDayDTO() {}
+
+    public SalesDayDTO(LocalDate date, BigDecimal revenue, Long units, Long orderCount) {
+        this.date = date;
+        this.revenue = revenue;
+        this.units = units;
+        this.orderCount = orderCount;
+    }
+
+    // Getters and Setters
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,114 @@
+package com.kalakriti.order.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ShardStatusDTO {
+    private boolean enabled;
+    private List<String> shards;
+    private List<String> ringMembers;
+    private int pinnedCustomers;
+    private RebalanceState rebalanceState;
+    private LocalDateTime rebalanceStartedAt;
+    private LocalDateTime rebalanceFinishedAt;
+    private int movedCustomers;
+    private int deferredCustomers;
+    private int failedCustomers;
+    private String rebalanceError;
+
+    public enum RebalanceState {
+        IDLE, PINNING, MOVING, COMPLETED, FAILED
+    }
+
+    // Default constructor
+    public ShardStatusDTO() {}
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<String> shards) {
+        this.shards = shards;
+    }
+
+    public List<String> getRingMembers() {
+        return ringMembers;
+    }
+
+    public void setRingMembers(List<String> ringMembers) {
+        this.ringMembers = ringMembers;
+    }
+
+    public int getPinnedCustomers() {
+        return pinnedCustomers;
+    }
+
+    public void setPinnedCustomers(int pinnedCustomers) {
+        this.pinnedCustomers = pinnedCustomers;
+    }
+
+    public RebalanceState getRebalanceState() {
+        return rebalanceState;
+    }
+
+    public void setRebalanceState(RebalanceState rebalanceState) {
+        this.rebalanceState = rebalanceState;
+    }
+
+    public LocalDateTime getRebalanceStartedAt() {
+        return rebalanceStartedAt;
+    }
+
+    public void setRebalanceStartedAt(LocalDateTime rebalanceStartedAt) {
+        this.rebalanceStartedAt = rebalanceStartedAt;
+    }
+
+    public LocalDateTime getRebalanceFinishedAt() {
+        return rebalanceFinishedAt;
+    }
+
+    public void setRebalanceFinishedAt(LocalDateTime rebalanceFinishedAt) {
+        this.rebalanceFinishedAt = rebalanceFinishedAt;
+    }
+
+    public int getMovedCustomers() {
+        return movedCustomers;
+    }
+
+    public void setMovedCustomers(int movedCustomers) {
+        this.movedCustomers = movedCustomers;
+    }
+
+    public int getDeferredCustomers() {
+        return deferredCustomers;
+    }
+
+    public void setDeferredCustomers(int deferredCustomers) {
+        this.deferredCustomers = deferredCustomers;
+    }
+
+    public int getFailedCustomers() {
+        return failedCustomers;
+    }
+
+    public void setFailedCustomers(int failedCustomers) {
+        this.failedCustomers = failedCustomers;
+    }
+
+    public String getRebalanceError() {
+        return rebalanceError;
+    }
+
+    public void setRebalanceError(String rebalanceError) {
+        this.rebalanceError = rebalanceError;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kalakriti.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Immutable
+@Table(name = "order_items_archive", indexes = {
+    @Index(name = "idx_order_items_archive_order", columnList = "order_id")
+})
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "artist_id")
+    private Long artistId;
+
+    public ArchivedOrderItem() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ArchivedOrder getOrder() {
+        return order;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Long getArtistId() {
+        return artistId;
+    }
+}
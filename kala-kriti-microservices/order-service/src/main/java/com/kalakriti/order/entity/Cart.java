@@ -0,0 +1,59 @@
+package com.kalakriti.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnTransformer;
+
+/**
+ * Persisted copy of a customer's cart. Active carts live in memory
+ * ({@code CartService}); rows are written behind in batches, so they can trail
+ * the in-memory state by up to one flush interval.
+ */
+@Entity
+@Table(name = "carts", indexes = {
+    @Index(name = "idx_carts_updated", columnList = "updated_at")
+})
+public class Cart {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(nullable = false, columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
+    private String items;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public Cart() {
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getItems() {
+        return items;
+    }
+
+    public void setItems(String items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
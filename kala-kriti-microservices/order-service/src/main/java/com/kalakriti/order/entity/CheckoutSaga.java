@@ -0,0 +1,178 @@
+package com.kalakriti.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnTransformer;
+
+/**
+ * Durable state of one checkout. Every step outcome is committed before the next
+ * decision is taken, so a restarted service can pick the saga up where it stopped.
+ */
+@Entity
+@Table(name = "checkout_sagas", indexes = {
+    @Index(name = "idx_checkout_sagas_state_updated", columnList = "state, updated_at")
+})
+public class CheckoutSaga {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SagaState state = SagaState.STARTED;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stock_status", nullable = false)
+    private StepStatus stockStatus = StepStatus.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private StepStatus paymentStatus = StepStatus.PENDING;
+
+    @Column(name = "payment_reference")
+    private String paymentReference;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    // The original checkout request, needed to create the order after a restart
+    @Column(nullable = false, columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
+    private String request;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum SagaState {
+        STARTED, ORDER_CREATED, COMPENSATING, COMPLETED, COMPENSATED, FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == COMPENSATED || this == FAILED;
+        }
+    }
+
+    public enum StepStatus {
+        PENDING, SUCCEEDED, FAILED, COMPENSATED
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public CheckoutSaga() {
+    }
+
+    public CheckoutSaga(Long customerId, String request) {
+        this.customerId = customerId;
+        this.request = request;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public SagaState getState() {
+        return state;
+    }
+
+    public void setState(SagaState state) {
+        this.state = state;
+    }
+
+    public StepStatus getStockStatus() {
+        return stockStatus;
+    }
+
+    public void setStockStatus(StepStatus stockStatus) {
+        this.stockStatus = stockStatus;
+    }
+
+    public StepStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(StepStatus paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
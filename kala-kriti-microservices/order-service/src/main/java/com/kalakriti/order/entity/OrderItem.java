@@ -6,6 +6,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -13,7 +14,12 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+    // Covering index for the artist inbox: artist lookup, keyset order and every selected item column
+    @Index(name = "idx_order_items_artist_inbox",
+           columnList = "artist_id, order_id, id, product_id, quantity, price, product_name"),
+    @Index(name = "idx_order_items_order", columnList = "order_id")
+})
 public class OrderItem {
 
     @Id
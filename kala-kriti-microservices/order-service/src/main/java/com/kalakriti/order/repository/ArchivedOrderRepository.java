@@ -0,0 +1,55 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.ArchivedOrder;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @EntityGraph(attributePaths = "items")
+    Optional<ArchivedOrder> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = "items")
+    List<ArchivedOrder> findByCustomerIdOrderByIdDesc(Long customerId);
+
+    @EntityGraph(attributePaths = "items")
+    List<ArchivedOrder> findWithItemsByIdIn(Collection<Long> ids);
+
+    // Candidates are locked and skipped if busy, so an order being updated is simply archived next run
+    @Query(value = "SELECT id FROM orders WHERE status IN ('DELIVERED', 'CANCELLED') AND created_at < :cutoff "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockArchivableOrderIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, customer_id, total_amount, status, shipping_address, "
+            + "billing_address, created_at, updated_at, version, archived_at) "
+            + "SELECT id, customer_id, total_amount, status, shipping_address, billing_address, "
+            + "created_at, updated_at, version, :now FROM orders WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, order_id, product_id, quantity, price, product_name, artist_id) "
+            + "SELECT id, order_id, product_id, quantity, price, product_name, artist_id "
+            + "FROM order_items WHERE order_id IN (:ids)",
+           nativeQuery = true)
+    int copyOrderItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteHotOrderItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteHotOrders(@Param("ids") Collection<Long> ids);
+}
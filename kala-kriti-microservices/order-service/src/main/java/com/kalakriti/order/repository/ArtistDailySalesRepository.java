@@ -0,0 +1,66 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.ArtistDailySales;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArtistDailySalesRepository extends JpaRepository<ArtistDailySales, Long> {
+
+    List<ArtistDailySales> findByArtistIdAndSalesDateBetweenOrderBySalesDate(Long artistId, LocalDate from, LocalDate to);
+
+    // Adds (sign = 1) or reverses (sign = -1) the given orders' items into the per-day rollups
+    @Modifying
+    @Query(value = "INSERT INTO artist_daily_sales (artist_id, sales_date, revenue, units, order_count, updated_at) "
+            + "SELECT oi.artist_id, CAST(o.created_at AS date), :sign * SUM(oi.price * oi.quantity), "
+            + ":sign * SUM(oi.quantity), :sign * COUNT(DISTINCT o.id), now() "
+            + "FROM orders o JOIN order_items oi ON oi.order_id = o.id "
+            + "WHERE o.id IN (:orderIds) AND oi.artist_id IS NOT NULL "
+            + "GROUP BY oi.artist_id, CAST(o.created_at AS date) "
+            + "ON CONFLICT (artist_id, sales_date) DO UPDATE SET "
+            + "revenue = artist_daily_sales.revenue + EXCLUDED.revenue, "
+            + "units = artist_daily_sales.units + EXCLUDED.units, "
+            + "order_count = artist_daily_sales.order_count + EXCLUDED.order_count, "
+            + "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int applyOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query("DELETE FROM ArtistDailySales s WHERE s.salesDate BETWEEN :from AND :to")
+    int deleteBySalesDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO artist_daily_sales (artist_id, sales_date, revenue, units, order_count, updated_at) "
+            + "SELECT oi.artist_id, CAST(o.created_at AS date), SUM(oi.price * oi.quantity), "
+            + "SUM(oi.quantity), COUNT(DISTINCT o.id), now() "
+            + "FROM (SELECT id, status, created_at FROM orders UNION ALL "
+            + "      SELECT id, status, created_at FROM orders_archive) o "
+            + "JOIN (SELECT order_id, artist_id, price, quantity FROM order_items UNION ALL "
+            + "      SELECT order_id, artist_id, price, quantity FROM order_items_archive) oi ON oi.order_id = o.id "
+            + "WHERE o.created_at >= :fromTime AND o.created_at < :toTime "
+            + "AND o.status <> 'CANCELLED' AND oi.artist_id IS NOT NULL "
+            + "GROUP BY oi.artist_id, CAST(o.created_at AS date)",
+           nativeQuery = true)
+    int rebuildBetween(@Param("fromTime") LocalDateTime fromTime, @Param("toTime") LocalDateTime toTime);
+
+    @Query(value = "SELECT artist_id AS artistId, SUM(revenue) AS revenue, SUM(units) AS units, SUM(order_count) AS orderCount "
+            + "FROM artist_daily_sales WHERE sales_date BETWEEN :from AND :to "
+            + "GROUP BY artist_id ORDER BY SUM(revenue) DESC LIMIT :limit",
+           nativeQuery = true)
+    List<ArtistSalesTotal> findTopArtists(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("limit") int limit);
+
+    interface ArtistSalesTotal {
+        Long getArtistId();
+        BigDecimal getRevenue();
+        Long getUnits();
+        Long getOrderCount();
+    }
+}
@@ -0,0 +1,17 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.Cart;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.updatedAt < :cutoff")
+    int deleteInactiveSince(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,63 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.CheckoutSaga;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Step outcomes are written with targeted updates so the parallel steps of one saga
+// never overwrite each other's columns
+@Repository
+public interface CheckoutSagaRepository extends JpaRepository<CheckoutSaga, Long> {
+
+    @Query("SELECT s.id FROM CheckoutSaga s WHERE s.state IN :states AND s.updatedAt < :cutoff ORDER BY s.id")
+    List<Long> findStalled(@Param("states") Collection<CheckoutSaga.SagaState> states,
+                           @Param("cutoff") LocalDateTime cutoff,
+                           Pageable pageable);
+
+    // Succeeds for exactly one instance, so a stalled saga is never resumed twice
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CheckoutSaga s SET s.updatedAt = :now WHERE s.id = :id AND s.updatedAt < :cutoff")
+    int claimStalled(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CheckoutSaga s SET s.orderId = :orderId, s.state = :state, s.updatedAt = :now WHERE s.id = :id")
+    int orderCreated(@Param("id") Long id,
+                     @Param("orderId") Long orderId,
+                     @Param("state") CheckoutSaga.SagaState state,
+                     @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CheckoutSaga s SET s.state = :state, s.failureReason = COALESCE(:reason, s.failureReason), "
+            + "s.updatedAt = :now WHERE s.id = :id")
+    int updateState(@Param("id") Long id,
+                    @Param("state") CheckoutSaga.SagaState state,
+                    @Param("reason") String reason,
+                    @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CheckoutSaga s SET s.stockStatus = :status, s.updatedAt = :now WHERE s.id = :id")
+    int updateStockStatus(@Param("id") Long id,
+                          @Param("status") CheckoutSaga.StepStatus status,
+                          @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CheckoutSaga s SET s.paymentStatus = :status, "
+            + "s.paymentReference = COALESCE(:reference, s.paymentReference), s.updatedAt = :now WHERE s.id = :id")
+    int updatePaymentStatus(@Param("id") Long id,
+                            @Param("status") CheckoutSaga.StepStatus status,
+                            @Param("reference") String reference,
+                            @Param("now") LocalDateTime now);
+}
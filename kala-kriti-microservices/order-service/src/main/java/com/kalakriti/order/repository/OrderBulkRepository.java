@@ -0,0 +1,92 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.Order;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based status updates for many orders at once. Every statement carries the
+ * allowed source statuses in its WHERE clause, so rows changed concurrently by
+ * someone else are simply not matched instead of being overwritten.
+ */
+@Repository
+public class OrderBulkRepository {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<StatusChange> transitionStatus(Collection<Long> orderIds, Set<Order.OrderStatus> fromStatuses,
+                                               Order.OrderStatus toStatus, LocalDateTime now) {
+        if (orderIds.isEmpty() || fromStatuses.isEmpty()) {
+            return List.of();
+        }
+        // The locking subquery exposes each row's status from before the update
+        String sql = "UPDATE orders o SET status = :toStatus, version = o.version + 1, updated_at = :now "
+                + "FROM (SELECT id, status FROM orders WHERE id IN (:ids) AND status IN (:fromStatuses) FOR UPDATE) prev "
+                + "WHERE o.id = prev.id "
+                + "RETURNING o.id, o.customer_id, o.total_amount, prev.status AS previous_status";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", orderIds)
+                .addValue("fromStatuses", fromStatuses.stream().map(Enum::name).collect(Collectors.toList()))
+                .addValue("toStatus", toStatus.name())
+                .addValue("now", now);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new StatusChange(
+                rs.getLong("id"),
+                rs.getLong("customer_id"),
+                rs.getBigDecimal("total_amount"),
+                Order.OrderStatus.valueOf(rs.getString("previous_status"))));
+    }
+
+    public Map<Long, Order.OrderStatus> findStatuses(Collection<Long> orderIds) {
+        Map<Long, Order.OrderStatus> statuses = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return statuses;
+        }
+        jdbcTemplate.query("SELECT id, status FROM orders WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", orderIds),
+                rs -> {
+                    statuses.put(rs.getLong("id"), Order.OrderStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    public static class StatusChange {
+        private final Long orderId;
+        private final Long customerId;
+        private final BigDecimal totalAmount;
+        private final Order.OrderStatus previousStatus;
+
+        public StatusChange(Long orderId, Long customerId, BigDecimal totalAmount, Order.OrderStatus previousStatus) {
+            this.orderId = orderId;
+            this.customerId = customerId;
+            this.totalAmount = totalAmount;
+            this.previousStatus = previousStatus;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public Long getCustomerId() {
+            return customerId;
+        }
+
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+
+        public Order.OrderStatus getPreviousStatus() {
+            return previousStatus;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.dto.ArtistOrderLineDTO;
+import com.kalakriti.order.dto.OrderSearchCriteria;
+import com.kalakriti.order.dto.OrderSummaryDTO;
+import com.kalakriti.order.entity.Order;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read-side queries with optional filters and keyset pagination, which do not fit
+ * Spring Data derived queries. Each page is a bounded index range scan.
+ */
+@Repository
+public class OrderQueryRepository {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Walks idx_order_items_artist_inbox backwards from the cursor; the index covers
+    // every selected item column, and the join is a primary-key probe into orders.
+    public List<ArtistOrderLineDTO> findArtistOrderLines(Long artistId, Order.OrderStatus status,
+                                                         LocalDateTime from, LocalDateTime to,
+                                                         Long afterOrderId, Long afterItemId, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT oi.id, oi.order_id, oi.product_id, oi.product_name, oi.quantity, oi.price, "
+                + "o.customer_id, o.status, o.created_at "
+                + "FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                + "WHERE oi.artist_id = :artistId");
+        MapSqlParameterSource params = new MapSqlParameterSource("artistId", artistId);
+        if (afterOrderId != null) {
+            sql.append(" AND (oi.order_id, oi.id) < (:afterOrderId, :afterItemId)");
+            params.addValue("afterOrderId", afterOrderId).addValue("afterItemId", afterItemId);
+        }
+        if (status != null) {
+            sql.append(" AND o.status = :status");
+            params.addValue("status", status.name());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < :to");
+            params.addValue("to", to);
+        }
+        sql.append(" ORDER BY oi.order_id DESC, oi.id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            ArtistOrderLineDTO line = new ArtistOrderLineDTO();
+            line.setItemId(rs.getLong("id"));
+            line.setOrderId(rs.getLong("order_id"));
+            line.setProductId(rs.getLong("product_id"));
+            line.setProductName(rs.getString("product_name"));
+            line.setQuantity(rs.getInt("quantity"));
+            line.setPrice(rs.getBigDecimal("price"));
+            line.setCustomerId(rs.getLong("customer_id"));
+            line.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
+            line.setOrderedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            return line;
+        });
+    }
+
+    // status and customer are equality filters, so the planner can pick
+    // idx_orders_status_created_id or idx_orders_customer_created_id and walk it in
+    // (created_at, id) order from the cursor; with neither it uses idx_orders_created_id.
+    // Amount bounds are checked on the rows visited and do not change the access path.
+    public List<OrderSummaryDTO> searchOrders(OrderSearchCriteria criteria, LocalDateTime afterCreatedAt,
+                                              Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT o.id, o.customer_id, o.status, o.total_amount, o.created_at, o.updated_at "
+                + "FROM orders o WHERE 1 = 1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String direction = criteria.isAscending() ? "ASC" : "DESC";
+        if (afterCreatedAt != null) {
+            sql.append(criteria.isAscending()
+                    ? " AND (o.created_at, o.id) > (:afterCreatedAt, :afterId)"
+                    : " AND (o.created_at, o.id) < (:afterCreatedAt, :afterId)");
+            params.addValue("afterCreatedAt", Timestamp.valueOf(afterCreatedAt)).addValue("afterId", afterId);
+        }
+        if (criteria.getStatus() != null) {
+            sql.append(" AND o.status = :status");
+            params.addValue("status", criteria.getStatus().name());
+        }
+        if (criteria.getCustomerId() != null) {
+            sql.append(" AND o.customer_id = :customerId");
+            params.addValue("customerId", criteria.getCustomerId());
+        }
+        if (criteria.getFrom() != null) {
+            sql.append(" AND o.created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            sql.append(" AND o.created_at < :to");
+            params.addValue("to", Timestamp.valueOf(criteria.getTo()));
+        }
+        if (criteria.getMinAmount() != null) {
+            sql.append(" AND o.total_amount >= :minAmount");
+            params.addValue("minAmount", criteria.getMinAmount());
+        }
+        if (criteria.getMaxAmount() != null) {
+            sql.append(" AND o.total_amount <= :maxAmount");
+            params.addValue("maxAmount", criteria.getMaxAmount());
+        }
+        sql.append(" ORDER BY o.created_at ").append(direction).append(", o.id ").append(direction)
+                .append(" LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            OrderSummaryDTO summary = new OrderSummaryDTO();
+            summary.setId(rs.getLong("id"));
+            summary.setCustomerId(rs.getLong("customer_id"));
+            summary.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
+            summary.setTotalAmount(rs.getBigDecimal("total_amount"));
+            summary.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            summary.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+            return summary;
+        });
+    }
+}
@@ -1,12 +1,45 @@
 package com.kalakriti.order.repository;
 
 import com.kalakriti.order.entity.Order;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomerId(Long customerId);
     List<Order> findByStatus(Order.OrderStatus status);
+
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    // Items are loaded up front: results gathered from shards outlive their sessions
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithItems();
+
+    @Query("SELECT o.status AS status, o.version AS version FROM Order o WHERE o.id = :id")
+    Optional<StatusVersion> findStatusVersion(@Param("id") Long id);
+
+    // Compare-and-set: only succeeds if nobody changed the order since it was read
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1, o.updatedAt = :now "
+            + "WHERE o.id = :id AND o.version = :version AND o.status IN :fromStatuses")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("version") Long version,
+                            @Param("fromStatuses") Collection<Order.OrderStatus> fromStatuses,
+                            @Param("status") Order.OrderStatus status,
+                            @Param("now") LocalDateTime now);
+
+    interface StatusVersion {
+        Order.OrderStatus getStatus();
+        Long getVersion();
+    }
 }
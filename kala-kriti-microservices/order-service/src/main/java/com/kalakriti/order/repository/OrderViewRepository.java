@@ -0,0 +1,50 @@
+package com.kalakriti.order.repository;
+
+import com.kalakriti.order.entity.OrderView;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+
+    @Query(value = "SELECT CAST(document AS text) FROM order_views WHERE order_id = :orderId", nativeQuery = true)
+    Optional<String> findDocument(@Param("orderId") Long orderId);
+
+    @Query(value = "SELECT CAST(document AS text) FROM order_views WHERE customer_id = :customerId ORDER BY order_id DESC",
+           nativeQuery = true)
+    List<String> findDocumentsByCustomer(@Param("customerId") Long customerId);
+
+    // Patches status and updatedAt in place, so set-based transitions need not re-map whole orders;
+    // updatedAt is a JSON value, serialized the way whole documents are. The version is taken
+    // from the order the transition just bumped.
+    @Modifying
+    @Query(value = "UPDATE order_views SET document = jsonb_set(jsonb_set(document, '{status}', to_jsonb(CAST(:status AS text))), "
+            + "'{updatedAt}', CAST(:updatedAt AS jsonb)), updated_at = now(), "
+            + "version = (SELECT o.version FROM orders o WHERE o.id = order_views.order_id) WHERE order_id IN (:orderIds)",
+           nativeQuery = true)
+    int patchStatus(@Param("orderIds") Collection<Long> orderIds,
+                    @Param("status") String status,
+                    @Param("updatedAt") String updatedAt);
+
+    @Query(value = "SELECT o.id FROM orders o WHERE o.id > :afterId "
+            + "AND (:onlyMissing = false OR NOT EXISTS (SELECT 1 FROM order_views v WHERE v.order_id = o.id)) "
+            + "ORDER BY o.id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findOrderIdsToRebuild(@Param("afterId") long afterId,
+                                     @Param("onlyMissing") boolean onlyMissing,
+                                     @Param("limit") int limit);
+
+    @Query(value = "SELECT o.id FROM orders_archive o WHERE o.id > :afterId "
+            + "AND (:onlyMissing = false OR NOT EXISTS (SELECT 1 FROM order_views v WHERE v.order_id = o.id)) "
+            + "ORDER BY o.id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findArchivedOrderIdsToRebuild(@Param("afterId") long afterId,
+                                             @Param("onlyMissing") boolean onlyMissing,
+                                             @Param("limit") int limit);
+}
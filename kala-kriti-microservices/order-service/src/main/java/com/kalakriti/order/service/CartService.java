@@ -0,0 +1,369 @@
+package com.kalakriti.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.dto.CartCheckoutDTO;
+import com.kalakriti.order.dto.CartDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.CartRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Server-side carts. Active carts are held in a bounded, access-ordered in-memory
+ * map keyed by customer id; every change queues a snapshot that a scheduled flush
+ * upserts into {@code carts} in batches (write-behind). Evicting a cart from memory
+ * never loses data, because unflushed snapshots are kept apart from the cache and
+ * are consulted before the table when a cart is loaded again.
+ *
+ * <p>With sharding, a customer's cart row lives on their shard, next to their orders.
+ */
+@Service
+public class CartService {
+
+    private static final Logger log = LoggerFactory.getLogger(CartService.class);
+
+    private static final TypeReference<List<OrderItemCreateDTO>> ITEM_LIST = new TypeReference<>() {
+    };
+
+    private static final String UPSERT_SQL = "INSERT INTO carts (customer_id, items, updated_at) "
+            + "VALUES (?, CAST(? AS jsonb), ?) "
+            + "ON CONFLICT (customer_id) DO UPDATE SET items = EXCLUDED.items, updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private DropService dropService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.cart.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${order.cart.expiry-days:30}")
+    private long expiryDays;
+
+    @Value("${order.cart.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, ActiveCart> activeCarts;
+    // Latest unflushed state per customer; an empty snapshot means "delete the row"
+    private final ConcurrentHashMap<Long, CartSnapshot> pendingWrites = new ConcurrentHashMap<>();
+    private final TransactionTemplate transactionTemplate;
+
+    public CartService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${order.cart.max-active:100000}") int maxActiveCarts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.activeCarts = Collections.synchronizedMap(new LinkedHashMap<Long, ActiveCart>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ActiveCart> eldest) {
+                return size() > maxActiveCarts;
+            }
+        });
+        Gauge.builder("order.cart.active", activeCarts, Map::size)
+                .description("Carts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("order.cart.pending.writes", pendingWrites, Map::size)
+                .description("Cart changes not yet flushed to the database")
+                .register(meterRegistry);
+    }
+
+    public CartDTO getCart(Long customerId) {
+        ActiveCart cart = activeCart(customerId);
+        synchronized (cart) {
+            return toDTO(cart);
+        }
+    }
+
+    public CartDTO addItem(Long customerId, OrderItemCreateDTO item) {
+        if (item.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return mutate(customerId, cart -> {
+            OrderItemCreateDTO line = cart.lines.get(item.getProductId());
+            if (line == null) {
+                cart.lines.put(item.getProductId(), copyOf(item));
+            } else {
+                line.setQuantity(line.getQuantity() + item.getQuantity());
+                line.setPrice(item.getPrice());
+            }
+        });
+    }
+
+    public CartDTO setQuantity(Long customerId, Long productId, int quantity) {
+        return mutate(customerId, cart -> {
+            OrderItemCreateDTO line = cart.lines.get(productId);
+            if (line == null) {
+                throw new IllegalArgumentException("Item not in cart");
+            }
+            if (quantity <= 0) {
+                cart.lines.remove(productId);
+            } else {
+                line.setQuantity(quantity);
+            }
+        });
+    }
+
+    public CartDTO removeItem(Long customerId, Long productId) {
+        return mutate(customerId, cart -> cart.lines.remove(productId));
+    }
+
+    public CartDTO clear(Long customerId) {
+        return mutate(customerId, cart -> cart.lines.clear());
+    }
+
+    /**
+     * Turns the cart into a PENDING order without the client re-sending its items.
+     * The persisted cart row is deleted in the order's transaction, on the shard the
+     * order is created on. A flush that read the cart before checkout may still write
+     * it back, but the empty snapshot queued here replaces it and is consulted before
+     * the table on every load, so the items cannot be checked out again.
+     */
+    public Order checkout(Long customerId, CartCheckoutDTO details) {
+        while (true) {
+            ActiveCart cart = activeCart(customerId);
+            synchronized (cart) {
+                if (activeCarts.get(customerId) != cart) {
+                    continue;
+                }
+                if (cart.lines.isEmpty()) {
+                    throw new IllegalStateException("Cart is empty");
+                }
+                Order order = mappingService.toOrder(cart.customerId, new ArrayList<>(cart.lines.values()),
+                        details != null ? details.getShippingAddress() : null,
+                        details != null ? details.getBillingAddress() : null);
+                dropService.checkNotInDrop(order);
+                Order saved = shardRouter.callForCustomer(customerId, () -> transactionTemplate.execute(status -> {
+                    Order created = orderService.createOrder(order);
+                    jdbcTemplate.update("DELETE FROM carts WHERE customer_id = ?", customerId);
+                    return created;
+                }));
+                cart.lines.clear();
+                cart.updatedAt = LocalDateTime.now();
+                // Supersedes any older snapshot a concurrent flush might still write back
+                pendingWrites.put(customerId, cart.snapshot());
+                return saved;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.cart.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        List<CartSnapshot> batch = new ArrayList<>(pendingWrites.values());
+        for (int from = 0; from < batch.size(); from += flushBatchSize) {
+            List<CartSnapshot> chunk = batch.subList(from, Math.min(from + flushBatchSize, batch.size()));
+            try {
+                // A failed shard fails the chunk; groups already written are rewritten on retry
+                shardRouter.forEachCustomerShard(chunk, snapshot -> snapshot.customerId,
+                        (shard, group) -> transactionTemplate.executeWithoutResult(status -> write(group)));
+            } catch (RuntimeException ex) {
+                log.warn("Cart flush of {} carts failed, will retry", chunk.size(), ex);
+                return;
+            }
+            // Only drop snapshots that were not replaced while the batch was being written
+            chunk.forEach(snapshot -> pendingWrites.remove(snapshot.customerId, snapshot));
+        }
+    }
+
+    // Releases memory held by idle carts (their state is already queued or persisted)
+    // and deletes carts that have not changed for the expiry period
+    @Scheduled(fixedDelayString = "${order.cart.sweep-interval-ms:60000}")
+    public void expireInactiveCarts() {
+        long idleCutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        LocalDateTime expiryCutoff = LocalDateTime.now().minusDays(expiryDays);
+        List<ActiveCart> candidates;
+        synchronized (activeCarts) {
+            candidates = new ArrayList<>(activeCarts.values());
+        }
+        for (ActiveCart cart : candidates) {
+            synchronized (cart) {
+                if (cart.lastAccessed < idleCutoff || cart.updatedAt.isBefore(expiryCutoff)) {
+                    activeCarts.remove(cart.customerId, cart);
+                }
+            }
+        }
+        int deleted = shardRouter.sumOverShards(
+                () -> transactionTemplate.execute(status -> cartRepository.deleteInactiveSince(expiryCutoff)));
+        if (deleted > 0) {
+            log.info("Expired {} inactive carts", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private CartDTO mutate(Long customerId, Consumer<ActiveCart> change) {
+        while (true) {
+            ActiveCart cart = activeCart(customerId);
+            synchronized (cart) {
+                // Evicted between lookup and lock: reload so the change is not made on a dead copy
+                if (activeCarts.get(customerId) != cart) {
+                    continue;
+                }
+                change.accept(cart);
+                cart.updatedAt = LocalDateTime.now();
+                pendingWrites.put(customerId, cart.snapshot());
+                return toDTO(cart);
+            }
+        }
+    }
+
+    private ActiveCart activeCart(Long customerId) {
+        ActiveCart cart = activeCarts.get(customerId);
+        if (cart == null) {
+            // Loaded outside the map lock so a cache miss never blocks other customers
+            ActiveCart loaded = load(customerId);
+            cart = activeCarts.putIfAbsent(customerId, loaded);
+            if (cart == null) {
+                cart = loaded;
+            }
+        }
+        cart.lastAccessed = System.currentTimeMillis();
+        return cart;
+    }
+
+    private ActiveCart load(Long customerId) {
+        ActiveCart cart = new ActiveCart(customerId);
+        CartSnapshot pending = pendingWrites.get(customerId);
+        if (pending != null) {
+            cart.restore(pending.items, pending.updatedAt);
+            return cart;
+        }
+        LocalDateTime expiryCutoff = LocalDateTime.now().minusDays(expiryDays);
+        shardRouter.callForCustomer(customerId, () -> cartRepository.findById(customerId))
+                .filter(row -> !row.getUpdatedAt().isBefore(expiryCutoff))
+                .ifPresent(row -> cart.restore(fromJson(row.getItems()), row.getUpdatedAt()));
+        return cart;
+    }
+
+    private void write(List<CartSnapshot> snapshots) {
+        List<CartSnapshot> upserts = new ArrayList<>();
+        List<CartSnapshot> deletes = new ArrayList<>();
+        for (CartSnapshot snapshot : snapshots) {
+            (snapshot.items.isEmpty() ? deletes : upserts).add(snapshot);
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, upserts, flushBatchSize, (ps, snapshot) -> {
+            ps.setLong(1, snapshot.customerId);
+            ps.setString(2, toJson(snapshot.items));
+            ps.setTimestamp(3, Timestamp.valueOf(snapshot.updatedAt));
+        });
+        jdbcTemplate.batchUpdate("DELETE FROM carts WHERE customer_id = ?", deletes, flushBatchSize,
+                (ps, snapshot) -> ps.setLong(1, snapshot.customerId));
+    }
+
+    private CartDTO toDTO(ActiveCart cart) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCustomerId(cart.customerId);
+        cartDTO.setItems(cart.lines.values().stream().map(CartService::copyOf).collect(Collectors.toList()));
+        cartDTO.setTotalAmount(mappingService.totalOf(cart.lines.values()));
+        cartDTO.setUpdatedAt(cart.updatedAt);
+        return cartDTO;
+    }
+
+    private static OrderItemCreateDTO copyOf(OrderItemCreateDTO item) {
+        OrderItemCreateDTO copy = new OrderItemCreateDTO();
+        copy.setProductId(item.getProductId());
+        copy.setQuantity(item.getQuantity());
+        copy.setPrice(item.getPrice());
+        copy.setProductName(item.getProductName());
+        copy.setArtistId(item.getArtistId());
+        return copy;
+    }
+
+    private String toJson(List<OrderItemCreateDTO> items) {
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize cart", ex);
+        }
+    }
+
+    private List<OrderItemCreateDTO> fromJson(String items) {
+        try {
+            return objectMapper.readValue(items, ITEM_LIST);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read stored cart", ex);
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class ActiveCart {
+        private final Long customerId;
+        private final Map<Long, OrderItemCreateDTO> lines = new LinkedHashMap<>();
+        private LocalDateTime updatedAt = LocalDateTime.now();
+        private volatile long lastAccessed = System.currentTimeMillis();
+
+        private ActiveCart(Long customerId) {
+            this.customerId = customerId;
+        }
+
+        private void restore(List<OrderItemCreateDTO> items, LocalDateTime updatedAt) {
+            for (OrderItemCreateDTO item : items) {
+                lines.put(item.getProductId(), copyOf(item));
+            }
+            this.updatedAt = updatedAt;
+        }
+
+        private CartSnapshot snapshot() {
+            List<OrderItemCreateDTO> items = lines.values().stream()
+                    .map(CartService::copyOf)
+                    .collect(Collectors.toList());
+            return new CartSnapshot(customerId, items, updatedAt);
+        }
+    }
+
+    // Immutable once queued; compared by identity when the flush clears it
+    private static final class CartSnapshot {
+        private final Long customerId;
+        private final List<OrderItemCreateDTO> items;
+        private final LocalDateTime updatedAt;
+
+        private CartSnapshot(Long customerId, List<OrderItemCreateDTO> items, LocalDateTime updatedAt) {
+            this.customerId = customerId;
+            this.items = items;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.kalakriti.order.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Payment side of the checkout saga. Keyed by the saga id with the same idempotency
+ * contract as {@link StockReservationClient}; refunding an uncaptured charge is a no-op.
+ */
+public interface CheckoutPaymentClient {
+
+    /**
+     * Charges the customer and returns the payment reference.
+     */
+    String charge(Long sagaId, Long orderId, Long customerId, BigDecimal amount, String method);
+
+    void refund(Long sagaId);
+}
@@ -0,0 +1,384 @@
+package com.kalakriti.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.dto.CheckoutRequestDTO;
+import com.kalakriti.order.dto.CheckoutSagaDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.CheckoutSaga;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.CheckoutSagaRepository;
+import com.kalakriti.order.sharding.ShardKey;
+import com.kalakriti.order.sharding.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Orchestrates checkout as a saga: create the order (local, atomic with the saga
+ * row), then reserve stock and charge payment in parallel, then confirm the order.
+ * If either remote step fails, the steps that may have taken effect are compensated
+ * (release stock, refund) and the order is cancelled.
+ *
+ * <p>Each transition is committed before the next one starts, and the remote calls are
+ * idempotent per saga id, so a saga interrupted by a restart is simply re-run from its
+ * stored state by {@link #resumeStalled()}, which also runs right after startup. The
+ * remote clients must bound their own call time below {@code stalled-after-seconds}.
+ */
+@Service
+public class CheckoutSagaService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutSagaService.class);
+
+    private static final List<CheckoutSaga.SagaState> ACTIVE_STATES = List.of(
+            CheckoutSaga.SagaState.STARTED,
+            CheckoutSaga.SagaState.ORDER_CREATED,
+            CheckoutSaga.SagaState.COMPENSATING);
+
+    @Autowired
+    private CheckoutSagaRepository checkoutSagaRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private DropService dropService;
+
+    @Autowired
+    private StockReservationClient stockClient;
+
+    @Autowired
+    private CheckoutPaymentClient paymentClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.checkout.workers:8}")
+    private int workers;
+
+    @Value("${order.checkout.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${order.checkout.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    @Value("${order.checkout.stalled-after-seconds:30}")
+    private long stalledAfterSeconds;
+
+    @Value("${order.checkout.resume-batch-size:100}")
+    private int resumeBatchSize;
+
+    // Sagas being advanced by this instance; the stalled sweep skips them
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final TransactionTemplate transactionTemplate;
+    private ExecutorService sagaPool;
+    private ExecutorService stepPool;
+
+    public CheckoutSagaService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        sagaPool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("checkout-saga-"));
+        // Two remote steps per saga, so twice the saga workers keeps both in flight
+        stepPool = new ThreadPoolExecutor(workers * 2, workers * 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity * 2), threadFactory("checkout-step-"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Interrupted sagas keep their last committed state and are resumed on the next start
+        sagaPool.shutdown();
+        stepPool.shutdown();
+        if (!sagaPool.awaitTermination(10, TimeUnit.SECONDS)) {
+            sagaPool.shutdownNow();
+            stepPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Records the saga and runs it, waiting up to {@code response-timeout-ms} for a
+     * terminal state. A saga that is still running (or could not be scheduled because
+     * the pool is saturated) is returned as-is and finishes in the background.
+     */
+    public CheckoutSagaDTO checkout(CheckoutRequestDTO request) {
+        dropService.checkNotInDrop(request.getItems().stream()
+                .map(OrderItemCreateDTO::getProductId)
+                .collect(Collectors.toList()));
+        // Kept with the customer's orders, so the saga and its order commit together
+        CheckoutSaga saga = shardRouter.callForCustomer(request.getCustomerId(),
+                () -> checkoutSagaRepository.save(new CheckoutSaga(request.getCustomerId(), toJson(request))));
+        Long sagaId = saga.getId();
+        try {
+            // Read back on the saga thread: the caller's persistence context still holds the new row
+            return CompletableFuture.supplyAsync(() -> {
+                advance(sagaId);
+                return getSaga(sagaId).orElseThrow();
+            }, sagaPool).get(responseTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Checkout saga {} queued for resumption, saga pool is saturated", sagaId);
+        } catch (TimeoutException | ExecutionException ex) {
+            // Still running, or stopped and left for the stalled-saga sweep
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return toDTO(saga);
+    }
+
+    public Optional<CheckoutSagaDTO> getSaga(@ShardKey(ShardKey.Kind.ID_RANGE) Long sagaId) {
+        return checkoutSagaRepository.findById(sagaId).map(this::toDTO);
+    }
+
+    @Scheduled(fixedDelayString = "${order.checkout.resume-interval-ms:30000}")
+    public void resumeStalled() {
+        shardRouter.forEachShard(this::resumeStalledOnShard);
+    }
+
+    private void resumeStalledOnShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(stalledAfterSeconds);
+        List<Long> stalled = checkoutSagaRepository.findStalled(ACTIVE_STATES, cutoff, PageRequest.of(0, resumeBatchSize));
+        for (Long sagaId : stalled) {
+            if (inFlight.contains(sagaId)) {
+                continue;
+            }
+            Integer claimed = transactionTemplate.execute(status ->
+                    checkoutSagaRepository.claimStalled(sagaId, cutoff, LocalDateTime.now()));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+            try {
+                sagaPool.execute(() -> advance(sagaId));
+                log.info("Resuming checkout saga {}", sagaId);
+            } catch (RejectedExecutionException ex) {
+                return;
+            }
+        }
+    }
+
+    private void advance(Long sagaId) {
+        if (!inFlight.add(sagaId)) {
+            return;
+        }
+        try {
+            shardRouter.runOnShard(shardRouter.shardOfId(sagaId), () -> runSaga(sagaId));
+        } catch (RuntimeException ex) {
+            // Left in its last committed state; the stalled-saga sweep retries it
+            log.warn("Checkout saga {} interrupted, will be resumed", sagaId, ex);
+        } finally {
+            inFlight.remove(sagaId);
+        }
+    }
+
+    private void runSaga(Long sagaId) {
+        CheckoutSaga saga = checkoutSagaRepository.findById(sagaId).orElseThrow();
+        while (!saga.getState().isTerminal()) {
+            switch (saga.getState()) {
+                case STARTED:
+                    createOrder(saga);
+                    break;
+                case ORDER_CREATED:
+                    runSteps(saga);
+                    break;
+                case COMPENSATING:
+                    compensate(saga);
+                    break;
+                default:
+                    break;
+            }
+            saga = checkoutSagaRepository.findById(sagaId).orElseThrow();
+        }
+    }
+
+    private void createOrder(CheckoutSaga saga) {
+        CheckoutRequestDTO request = fromJson(saga.getRequest());
+        Order order = mappingService.toOrder(request.getCustomerId(), request.getItems(),
+                request.getShippingAddress(), request.getBillingAddress());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Order created = orderService.createOrder(order);
+                checkoutSagaRepository.orderCreated(saga.getId(), created.getId(),
+                        CheckoutSaga.SagaState.ORDER_CREATED, LocalDateTime.now());
+            });
+        } catch (IllegalArgumentException | DataIntegrityViolationException ex) {
+            // Nothing has happened outside this service yet, so there is nothing to compensate
+            checkoutSagaRepository.updateState(saga.getId(), CheckoutSaga.SagaState.FAILED,
+                    "Order rejected: " + ex.getMessage(), LocalDateTime.now());
+        }
+    }
+
+    private void runSteps(CheckoutSaga saga) {
+        CheckoutRequestDTO request = fromJson(saga.getRequest());
+        // Step threads record their outcome on the saga's shard
+        String shard = shardRouter.shardOfId(saga.getId());
+        CompletableFuture<String> stock = saga.getStockStatus() == CheckoutSaga.StepStatus.PENDING
+                ? CompletableFuture.supplyAsync(() -> shardRouter.callOnShard(shard,
+                        () -> reserveStock(saga, request)), stepPool)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<String> payment = saga.getPaymentStatus() == CheckoutSaga.StepStatus.PENDING
+                ? CompletableFuture.supplyAsync(() -> shardRouter.callOnShard(shard,
+                        () -> chargePayment(saga, request)), stepPool)
+                : CompletableFuture.completedFuture(null);
+        String stockFailure = stock.join();
+        String paymentFailure = payment.join();
+
+        CheckoutSaga current = checkoutSagaRepository.findById(saga.getId()).orElseThrow();
+        if (current.getStockStatus() == CheckoutSaga.StepStatus.SUCCEEDED
+                && current.getPaymentStatus() == CheckoutSaga.StepStatus.SUCCEEDED) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    orderService.updateOrderStatus(current.getOrderId(), Order.OrderStatus.CONFIRMED);
+                    checkoutSagaRepository.updateState(current.getId(), CheckoutSaga.SagaState.COMPLETED,
+                            null, LocalDateTime.now());
+                });
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                // The order was cancelled or removed while the steps ran
+                checkoutSagaRepository.updateState(current.getId(), CheckoutSaga.SagaState.COMPENSATING,
+                        "Order could not be confirmed: " + ex.getMessage(), LocalDateTime.now());
+            }
+        } else {
+            String reason = stockFailure != null ? stockFailure : paymentFailure;
+            checkoutSagaRepository.updateState(current.getId(), CheckoutSaga.SagaState.COMPENSATING,
+                    reason, LocalDateTime.now());
+        }
+    }
+
+    // Returns the failure reason, or null on success
+    private String reserveStock(CheckoutSaga saga, CheckoutRequestDTO request) {
+        try {
+            stockClient.reserve(saga.getId(), request.getItems());
+            checkoutSagaRepository.updateStockStatus(saga.getId(), CheckoutSaga.StepStatus.SUCCEEDED, LocalDateTime.now());
+            return null;
+        } catch (IllegalStateException ex) {
+            checkoutSagaRepository.updateStockStatus(saga.getId(), CheckoutSaga.StepStatus.FAILED, LocalDateTime.now());
+            return "Stock reservation failed: " + ex.getMessage();
+        }
+    }
+
+    private String chargePayment(CheckoutSaga saga, CheckoutRequestDTO request) {
+        try {
+            String reference = paymentClient.charge(saga.getId(), saga.getOrderId(), request.getCustomerId(),
+                    mappingService.totalOf(request.getItems()), request.getPaymentMethod());
+            checkoutSagaRepository.updatePaymentStatus(saga.getId(), CheckoutSaga.StepStatus.SUCCEEDED,
+                    reference, LocalDateTime.now());
+            return null;
+        } catch (IllegalStateException ex) {
+            checkoutSagaRepository.updatePaymentStatus(saga.getId(), CheckoutSaga.StepStatus.FAILED,
+                    null, LocalDateTime.now());
+            return "Payment failed: " + ex.getMessage();
+        }
+    }
+
+    // A step still PENDING here may have taken effect before a crash, so it is
+    // compensated too; the idempotent clients make that a no-op if it had not.
+    // An order that has moved past cancellation (e.g. shipped) ends the saga FAILED
+    // with the reason recorded, for someone to resolve by hand.
+    private void compensate(CheckoutSaga saga) {
+        if (needsCompensation(saga.getStockStatus())) {
+            stockClient.release(saga.getId());
+            checkoutSagaRepository.updateStockStatus(saga.getId(), CheckoutSaga.StepStatus.COMPENSATED,
+                    LocalDateTime.now());
+        }
+        if (needsCompensation(saga.getPaymentStatus())) {
+            paymentClient.refund(saga.getId());
+            checkoutSagaRepository.updatePaymentStatus(saga.getId(), CheckoutSaga.StepStatus.COMPENSATED,
+                    null, LocalDateTime.now());
+        }
+        if (saga.getOrderId() != null) {
+            try {
+                orderService.updateOrderStatus(saga.getOrderId(), Order.OrderStatus.CANCELLED);
+            } catch (IllegalArgumentException ex) {
+                // Order already deleted
+            } catch (IllegalStateException ex) {
+                Order.OrderStatus status = orderService.getOrderById(saga.getOrderId()).getStatus();
+                if (status.canTransitionTo(Order.OrderStatus.CANCELLED)) {
+                    // Lost a race with another update; left COMPENSATING for the stalled-saga sweep
+                    throw ex;
+                }
+                log.error("Checkout saga {} compensated its steps but order {} is {} and cannot be cancelled",
+                        saga.getId(), saga.getOrderId(), status);
+                checkoutSagaRepository.updateState(saga.getId(), CheckoutSaga.SagaState.FAILED,
+                        "Steps compensated, but order " + saga.getOrderId() + " is " + status
+                                + " and could not be cancelled; needs manual handling", LocalDateTime.now());
+                return;
+            }
+        }
+        checkoutSagaRepository.updateState(saga.getId(), CheckoutSaga.SagaState.COMPENSATED, null, LocalDateTime.now());
+    }
+
+    private static boolean needsCompensation(CheckoutSaga.StepStatus status) {
+        return status == CheckoutSaga.StepStatus.SUCCEEDED || status == CheckoutSaga.StepStatus.PENDING;
+    }
+
+    private CheckoutSagaDTO toDTO(CheckoutSaga saga) {
+        CheckoutSagaDTO sagaDTO = new CheckoutSagaDTO();
+        sagaDTO.setSagaId(saga.getId());
+        sagaDTO.setCustomerId(saga.getCustomerId());
+        sagaDTO.setOrderId(saga.getOrderId());
+        sagaDTO.setState(saga.getState());
+        sagaDTO.setStockStatus(saga.getStockStatus());
+        sagaDTO.setPaymentStatus(saga.getPaymentStatus());
+        sagaDTO.setPaymentReference(saga.getPaymentReference());
+        sagaDTO.setFailureReason(saga.getFailureReason());
+        sagaDTO.setCreatedAt(saga.getCreatedAt());
+        sagaDTO.setUpdatedAt(saga.getUpdatedAt());
+        return sagaDTO;
+    }
+
+    private String toJson(CheckoutRequestDTO request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize checkout request", ex);
+        }
+    }
+
+    private CheckoutRequestDTO fromJson(String request) {
+        try {
+            return objectMapper.readValue(request, CheckoutRequestDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read checkout request", ex);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,465 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.DropCreateDTO;
+import com.kalakriti.order.dto.DropStatsDTO;
+import com.kalakriti.order.dto.DropTicketDTO;
+import com.kalakriti.order.dto.DropTicketDTO.State;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.entity.OrderItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Virtual waiting room for limited artwork drops. While a drop is open, orders for
+ * its products are only accepted with an admission token. Buyers join a FIFO queue
+ * and are admitted from its head only while unreserved stock remains, so no more
+ * checkouts reach the database than there are units to sell; everyone else polls
+ * for their position. An admission reserves units until its token lapses, after
+ * which they pass to the next buyer in line.
+ *
+ * <p>Queue state lives in memory on this instance, so drop traffic must be routed
+ * to a single order-service instance.
+ */
+@Service
+public class DropService {
+
+    public static final String TOKEN_HEADER = "X-Drop-Token";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${order.drop.max-per-customer:1}")
+    private int defaultMaxPerCustomer;
+
+    @Value("${order.drop.token-ttl-seconds:120}")
+    private int defaultTokenTtlSeconds;
+
+    @Value("${order.drop.abandon-after-seconds:60}")
+    private long abandonAfterSeconds;
+
+    @Value("${order.drop.min-poll-ms:1000}")
+    private long minPollMs;
+
+    @Value("${order.drop.max-poll-ms:10000}")
+    private long maxPollMs;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Drop> drops = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Drop> dropsByProduct = new ConcurrentHashMap<>();
+
+    public DropService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public DropStatsDTO openDrop(DropCreateDTO request) {
+        int maxPerCustomer = request.getMaxPerCustomer() != null ? request.getMaxPerCustomer() : defaultMaxPerCustomer;
+        int tokenTtlSeconds = request.getTokenTtlSeconds() != null
+                ? request.getTokenTtlSeconds() : defaultTokenTtlSeconds;
+        if (maxPerCustomer <= 0 || tokenTtlSeconds <= 0) {
+            throw new IllegalArgumentException("maxPerCustomer and tokenTtlSeconds must be positive");
+        }
+        Drop drop = new Drop(UUID.randomUUID().toString(), Set.copyOf(request.getProductIds()),
+                request.getStock(), maxPerCustomer, TimeUnit.SECONDS.toMillis(tokenTtlSeconds));
+        synchronized (dropsByProduct) {
+            for (Long productId : drop.productIds) {
+                if (dropsByProduct.containsKey(productId)) {
+                    drop.meters.forEach(meterRegistry::remove);
+                    throw new IllegalStateException("Product " + productId + " is already in an open drop");
+                }
+            }
+            drops.put(drop.id, drop);
+            drop.productIds.forEach(productId -> dropsByProduct.put(productId, drop));
+        }
+        return drop.stats(System.currentTimeMillis());
+    }
+
+    public void closeDrop(String dropId) {
+        Drop drop = drops.remove(dropId);
+        if (drop == null) {
+            throw new IllegalArgumentException("Drop not found: " + dropId);
+        }
+        synchronized (dropsByProduct) {
+            drop.productIds.forEach(productId -> dropsByProduct.remove(productId, drop));
+        }
+        drop.meters.forEach(meterRegistry::remove);
+    }
+
+    public Optional<DropStatsDTO> getStats(String dropId) {
+        Drop drop = drops.get(dropId);
+        if (drop == null) {
+            return Optional.empty();
+        }
+        synchronized (drop) {
+            return Optional.of(drop.stats(System.currentTimeMillis()));
+        }
+    }
+
+    public List<DropStatsDTO> getOpenDrops() {
+        long now = System.currentTimeMillis();
+        List<DropStatsDTO> stats = new ArrayList<>();
+        for (Drop drop : drops.values()) {
+            synchronized (drop) {
+                stats.add(drop.stats(now));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Puts the customer in line. Joining again returns the customer's current ticket,
+     * so a retried request never loses its place; only a lapsed ticket is replaced by
+     * a new one at the back.
+     */
+    public DropTicketDTO join(String dropId, Long customerId) {
+        Drop drop = requireDrop(dropId);
+        long now = System.currentTimeMillis();
+        synchronized (drop) {
+            Ticket ticket = drop.ticketsByCustomer.get(customerId);
+            if (ticket != null && ticket.state != State.EXPIRED) {
+                ticket.lastPolledAt = now;
+                return drop.view(ticket, now);
+            }
+            ticket = new Ticket(UUID.randomUUID().toString(), customerId, ++drop.lastSeq, now);
+            drop.ticketsByCustomer.put(customerId, ticket);
+            drop.ticketsById.put(ticket.id, ticket);
+            drop.joined.increment();
+            if (drop.soldOut()) {
+                ticket.state = State.SOLD_OUT;
+            } else {
+                drop.waiting.addLast(ticket);
+                drop.admitNext(now);
+            }
+            return drop.view(ticket, now);
+        }
+    }
+
+    // Polling is what keeps a waiting ticket alive; see abandon-after-seconds
+    public DropTicketDTO poll(String dropId, String ticketId) {
+        Drop drop = requireDrop(dropId);
+        long now = System.currentTimeMillis();
+        synchronized (drop) {
+            Ticket ticket = drop.ticketsById.get(ticketId);
+            if (ticket == null) {
+                throw new IllegalArgumentException("Ticket not found: " + ticketId);
+            }
+            ticket.lastPolledAt = now;
+            return drop.view(ticket, now);
+        }
+    }
+
+    /**
+     * Creates the order, requiring a valid admission token when it contains products
+     * from an open drop. The token is held while the order is written and spent once
+     * it commits; if creation fails the customer may retry with the same token until
+     * it lapses.
+     */
+    public Order createOrder(Order order, String token) {
+        Drop drop = dropFor(order);
+        if (drop == null) {
+            return orderService.createOrder(order);
+        }
+        int units = order.getItems().stream()
+                .filter(item -> drop.productIds.contains(item.getProductId()))
+                .mapToInt(OrderItem::getQuantity)
+                .sum();
+        Ticket ticket = claim(drop, token, order.getCustomerId(), units);
+        Order created;
+        try {
+            created = orderService.createOrder(order);
+        } catch (RuntimeException ex) {
+            synchronized (drop) {
+                ticket.state = State.ADMITTED;
+            }
+            throw ex;
+        }
+        synchronized (drop) {
+            drop.purchased(ticket, units, System.currentTimeMillis());
+        }
+        return created;
+    }
+
+    // For order paths that cannot carry an admission token
+    public void checkNotInDrop(Order order) {
+        checkNotInDrop(order.getItems().stream().map(OrderItem::getProductId).collect(Collectors.toList()));
+    }
+
+    public void checkNotInDrop(Collection<Long> productIds) {
+        for (Long productId : productIds) {
+            Drop drop = dropsByProduct.get(productId);
+            if (drop != null) {
+                throw new IllegalStateException("Product " + productId
+                        + " is in a limited drop; join the waiting room for drop " + drop.id);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.drop.sweep-interval-ms:1000}")
+    public void expireTokens() {
+        long now = System.currentTimeMillis();
+        for (Drop drop : drops.values()) {
+            synchronized (drop) {
+                drop.expireTokens(now);
+                drop.admitNext(now);
+            }
+        }
+    }
+
+    private Drop requireDrop(String dropId) {
+        Drop drop = drops.get(dropId);
+        if (drop == null) {
+            throw new IllegalArgumentException("Drop not found: " + dropId);
+        }
+        return drop;
+    }
+
+    private Drop dropFor(Order order) {
+        Drop found = null;
+        for (OrderItem item : order.getItems()) {
+            Drop drop = dropsByProduct.get(item.getProductId());
+            if (drop == null) {
+                continue;
+            }
+            if (found != null && found != drop) {
+                throw new IllegalStateException("An order cannot contain products from more than one drop");
+            }
+            found = drop;
+        }
+        return found;
+    }
+
+    private Ticket claim(Drop drop, String token, Long customerId, int units) {
+        long now = System.currentTimeMillis();
+        synchronized (drop) {
+            if (token == null) {
+                throw new IllegalStateException("Order contains products from limited drop " + drop.id
+                        + "; an admission token is required");
+            }
+            Ticket ticket = drop.ticketsByToken.get(token);
+            if (ticket == null || ticket.state != State.ADMITTED || !ticket.customerId.equals(customerId)) {
+                throw new IllegalStateException("Admission token is not valid for this customer or has been used");
+            }
+            if (ticket.tokenExpiresAt <= now) {
+                drop.expireTokens(now);
+                drop.admitNext(now);
+                throw new IllegalStateException("Admission token has expired");
+            }
+            if (units > ticket.reservedUnits) {
+                throw new IllegalStateException("Admission covers at most " + ticket.reservedUnits + " units");
+            }
+            ticket.state = State.CHECKING_OUT;
+            return ticket;
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final Long customerId;
+        private final long seq;
+        private final long joinedAt;
+        private long lastPolledAt;
+        private State state = State.WAITING;
+        private String token;
+        private int reservedUnits;
+        private long tokenExpiresAt;
+
+        private Ticket(String id, Long customerId, long seq, long joinedAt) {
+            this.id = id;
+            this.customerId = customerId;
+            this.seq = seq;
+            this.joinedAt = joinedAt;
+            this.lastPolledAt = joinedAt;
+        }
+    }
+
+    // All state is guarded by the drop's monitor
+    private final class Drop {
+        private final String id;
+        private final Set<Long> productIds;
+        private final int stock;
+        private final int maxPerCustomer;
+        private final long tokenTtlMs;
+        private final long openedAt = System.currentTimeMillis();
+
+        private final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+        // Holders of unspent tokens; bounded by stock
+        private final Set<Ticket> admitted = new LinkedHashSet<>();
+        private final Map<Long, Ticket> ticketsByCustomer = new HashMap<>();
+        private final Map<String, Ticket> ticketsById = new HashMap<>();
+        private final Map<String, Ticket> ticketsByToken = new HashMap<>();
+        private final ArrayDeque<Long> recentPurchases = new ArrayDeque<>();
+        // Tickets are numbered on joining and leave the queue in order, so a position is
+        // the ticket's number minus the tickets already dequeued
+        private long lastSeq;
+        private long dequeued;
+        private int sold;
+        private int reserved;
+
+        private final List<Meter> meters = new ArrayList<>();
+        private final Counter joined;
+        private final Counter admittedCounter;
+        private final Counter purchasedCounter;
+        private final Counter expiredCounter;
+        private final Timer waitTimer;
+
+        private Drop(String id, Set<Long> productIds, int stock, int maxPerCustomer, long tokenTtlMs) {
+            this.id = id;
+            this.productIds = productIds;
+            this.stock = stock;
+            this.maxPerCustomer = maxPerCustomer;
+            this.tokenTtlMs = tokenTtlMs;
+            this.joined = register(Counter.builder("order.drop.joined").tag("drop", id).register(meterRegistry));
+            this.admittedCounter = register(Counter.builder("order.drop.admitted").tag("drop", id)
+                    .register(meterRegistry));
+            this.purchasedCounter = register(Counter.builder("order.drop.purchased").tag("drop", id)
+                    .description("Orders placed with an admission token")
+                    .register(meterRegistry));
+            this.expiredCounter = register(Counter.builder("order.drop.tokens.expired").tag("drop", id)
+                    .register(meterRegistry));
+            this.waitTimer = register(Timer.builder("order.drop.wait").tag("drop", id)
+                    .description("Time from joining the queue to admission")
+                    .register(meterRegistry));
+            register(Gauge.builder("order.drop.waiting", this, drop -> drop.waiting.size()).tag("drop", id)
+                    .register(meterRegistry));
+            register(Gauge.builder("order.drop.remaining", this, drop -> drop.stock - drop.sold).tag("drop", id)
+                    .register(meterRegistry));
+        }
+
+        private <M extends Meter> M register(M meter) {
+            meters.add(meter);
+            return meter;
+        }
+
+        private int available() {
+            return stock - sold - reserved;
+        }
+
+        private boolean soldOut() {
+            return sold >= stock;
+        }
+
+        private void admitNext(long now) {
+            long abandonAfterMs = TimeUnit.SECONDS.toMillis(abandonAfterSeconds);
+            while (available() > 0 && !waiting.isEmpty()) {
+                Ticket ticket = waiting.pollFirst();
+                dequeued++;
+                // A buyer who stopped polling has left; don't hold stock for them
+                if (now - ticket.lastPolledAt > abandonAfterMs) {
+                    ticket.state = State.EXPIRED;
+                    continue;
+                }
+                ticket.state = State.ADMITTED;
+                ticket.token = UUID.randomUUID().toString();
+                ticket.reservedUnits = Math.min(maxPerCustomer, available());
+                ticket.tokenExpiresAt = now + tokenTtlMs;
+                reserved += ticket.reservedUnits;
+                admitted.add(ticket);
+                ticketsByToken.put(ticket.token, ticket);
+                admittedCounter.increment();
+                waitTimer.record(now - ticket.joinedAt, TimeUnit.MILLISECONDS);
+            }
+            if (soldOut()) {
+                waiting.forEach(ticket -> ticket.state = State.SOLD_OUT);
+                dequeued += waiting.size();
+                waiting.clear();
+            }
+        }
+
+        private void expireTokens(long now) {
+            Iterator<Ticket> iterator = admitted.iterator();
+            while (iterator.hasNext()) {
+                Ticket ticket = iterator.next();
+                // A token being spent is left alone until its order settles
+                if (ticket.state == State.ADMITTED && ticket.tokenExpiresAt <= now) {
+                    iterator.remove();
+                    ticket.state = State.EXPIRED;
+                    ticketsByToken.remove(ticket.token);
+                    reserved -= ticket.reservedUnits;
+                    expiredCounter.increment();
+                }
+            }
+        }
+
+        private void purchased(Ticket ticket, int units, long now) {
+            ticket.state = State.PURCHASED;
+            admitted.remove(ticket);
+            ticketsByToken.remove(ticket.token);
+            reserved -= ticket.reservedUnits;
+            sold += units;
+            purchasedCounter.increment();
+            recentPurchases.addLast(now);
+            // Units reserved but not bought go to the next in line
+            admitNext(now);
+        }
+
+        private DropTicketDTO view(Ticket ticket, long now) {
+            DropTicketDTO dto = new DropTicketDTO();
+            dto.setTicketId(ticket.id);
+            dto.setDropId(id);
+            dto.setCustomerId(ticket.customerId);
+            dto.setState(ticket.state);
+            dto.setJoinedAt(toDateTime(ticket.joinedAt));
+            if (ticket.state == State.WAITING) {
+                long position = ticket.seq - dequeued;
+                dto.setPosition(position);
+                // Buyers far back in line poll less often
+                long rounds = position / Math.max(1, stock - sold);
+                dto.setPollAfterMs(Math.min(maxPollMs, minPollMs * (1 + rounds)));
+            } else if (ticket.state == State.ADMITTED || ticket.state == State.CHECKING_OUT) {
+                dto.setToken(ticket.token);
+                dto.setReservedUnits(ticket.reservedUnits);
+                dto.setTokenExpiresAt(toDateTime(ticket.tokenExpiresAt));
+            }
+            return dto;
+        }
+
+        private DropStatsDTO stats(long now) {
+            while (!recentPurchases.isEmpty() && recentPurchases.peekFirst() <= now - 60_000) {
+                recentPurchases.pollFirst();
+            }
+            DropStatsDTO dto = new DropStatsDTO();
+            dto.setDropId(id);
+            dto.setProductIds(productIds);
+            dto.setStock(stock);
+            dto.setSold(sold);
+            dto.setReserved(reserved);
+            dto.setRemaining(stock - sold);
+            dto.setWaiting(waiting.size());
+            dto.setActiveTokens(admitted.size());
+            dto.setJoined((long) joined.count());
+            dto.setAdmitted((long) admittedCounter.count());
+            dto.setPurchased((long) purchasedCounter.count());
+            dto.setExpiredTokens((long) expiredCounter.count());
+            dto.setPurchasesLastMinute(recentPurchases.size());
+            dto.setOpenedAt(toDateTime(openedAt));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.entity.OutboxEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embedded stand-in for a message broker: events are handed synchronously to
+ * in-process subscribers. Selected with {@code order.outbox.sink=in-process}.
+ */
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessOrderEventSink implements OrderEventSink {
+
+    private final List<Consumer<OutboxEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<OutboxEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            for (Consumer<OutboxEvent> subscriber : subscribers) {
+                subscriber.accept(event);
+            }
+        }
+    }
+}
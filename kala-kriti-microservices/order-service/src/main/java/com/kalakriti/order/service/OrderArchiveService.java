@@ -0,0 +1,140 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.entity.ArchivedOrder;
+import com.kalakriti.order.entity.ArchivedOrderItem;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.entity.OrderItem;
+import com.kalakriti.order.repository.ArchivedOrderRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves finished orders (DELIVERED/CANCELLED) older than the configured age from the
+ * hot {@code orders}/{@code order_items} tables into their archive copies, and serves
+ * archived orders back as read-only {@link Order} instances.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.archive.min-age-days:180}")
+    private int minAgeDays;
+
+    @Value("${order.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${order.archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderArchiveService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            int archived = archiveOldOrders();
+            log.info("Archived {} orders older than {} days", archived, minAgeDays);
+        }
+    }
+
+    public int archiveOldOrders() {
+        return shardRouter.sumOverShards(this::archiveShard);
+    }
+
+    private int archiveShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        int total = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            Integer moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            int count = moved != null ? moved : 0;
+            total += count;
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = archivedOrderRepository.lockArchivableOrderIds(cutoff, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyOrders(ids, LocalDateTime.now());
+        archivedOrderRepository.copyOrderItems(ids);
+        archivedOrderRepository.deleteHotOrderItems(ids);
+        archivedOrderRepository.deleteHotOrders(ids);
+        return ids.size();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Order> findArchivedOrder(Long id) {
+        return archivedOrderRepository.findWithItemsById(id).map(this::toOrder);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedOrdersByCustomer(Long customerId) {
+        return archivedOrderRepository.findByCustomerIdOrderByIdDesc(customerId).stream()
+                .map(this::toOrder)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedOrders(Collection<Long> ids) {
+        return archivedOrderRepository.findWithItemsByIdIn(ids).stream()
+                .map(this::toOrder)
+                .collect(Collectors.toList());
+    }
+
+    // Detached copy: never passed to save(), mutations only ever target the hot table
+    private Order toOrder(ArchivedOrder archived) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setCustomerId(archived.getCustomerId());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setStatus(archived.getStatus());
+        order.setShippingAddress(archived.getShippingAddress());
+        order.setBillingAddress(archived.getBillingAddress());
+        order.setCreatedAt(archived.getCreatedAt());
+        order.setUpdatedAt(archived.getUpdatedAt());
+        order.setVersion(archived.getVersion());
+        for (ArchivedOrderItem archivedItem : archived.getItems()) {
+            OrderItem item = new OrderItem();
+            item.setId(archivedItem.getId());
+            item.setOrder(order);
+            item.setProductId(archivedItem.getProductId());
+            item.setQuantity(archivedItem.getQuantity());
+            item.setPrice(archivedItem.getPrice());
+            item.setProductName(archivedItem.getProductName());
+            item.setArtistId(archivedItem.getArtistId());
+            order.getItems().add(item);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,165 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.BulkStatusUpdateResultDTO;
+import com.kalakriti.order.dto.OrderStatusOutcomeDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.entity.OutboxEvent;
+import com.kalakriti.order.repository.OrderBulkRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class OrderBulkService {
+
+    @Autowired
+    private OrderBulkRepository orderBulkRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${order.bulk.max-orders:10000}")
+    private int maxOrders;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderBulkService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Moves every listed order to {@code target} where the state machine allows it.
+     * Each chunk is one transaction with a single guarded UPDATE, so a failure
+     * only rolls back its own chunk and row locks are held briefly.
+     */
+    public BulkStatusUpdateResultDTO transition(List<Long> orderIds, Order.OrderStatus target) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(orderIds);
+        if (uniqueIds.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " orders can be updated per request");
+        }
+
+        Map<Long, OrderStatusOutcomeDTO> outcomes = new HashMap<>();
+        List<Long> ids = new ArrayList<>(uniqueIds);
+        shardRouter.locateOrders(ids).forEach((shard, shardIds) -> shardRouter.runOnShard(shard, () -> {
+            for (int start = 0; start < shardIds.size(); start += chunkSize) {
+                List<Long> chunk = shardIds.subList(start, Math.min(start + chunkSize, shardIds.size()));
+                List<OrderStatusOutcomeDTO> chunkOutcomes = transactionTemplate.execute(status ->
+                        applyChunk(chunk, Order.OrderStatus.sourcesOf(target), target, false));
+                chunkOutcomes.forEach(outcome -> outcomes.put(outcome.getOrderId(), outcome));
+            }
+        }));
+
+        List<OrderStatusOutcomeDTO> results = ids.stream().map(outcomes::get).collect(Collectors.toList());
+        BulkStatusUpdateResultDTO result = new BulkStatusUpdateResultDTO();
+        result.setStatus(target);
+        result.setRequested(results.size());
+        result.setResults(results);
+        for (OrderStatusOutcomeDTO outcome : results) {
+            if (outcome.getOutcome() == OrderStatusOutcomeDTO.Outcome.UPDATED) {
+                result.setUpdated(result.getUpdated() + 1);
+            } else if (outcome.getOutcome() == OrderStatusOutcomeDTO.Outcome.UNCHANGED) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                result.setFailed(result.getFailed() + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cancels orders whose payment window has passed. Only orders still PENDING are
+     * touched, so an order paid in the meantime is left alone. Returns how many were
+     * cancelled.
+     */
+    public int expire(List<Long> orderIds) {
+        int cancelled = 0;
+        for (Map.Entry<String, List<Long>> shard : shardRouter.locateOrders(orderIds).entrySet()) {
+            cancelled += shardRouter.callOnShard(shard.getKey(), () -> expireOnShard(shard.getValue()));
+        }
+        return cancelled;
+    }
+
+    private int expireOnShard(List<Long> orderIds) {
+        int cancelled = 0;
+        for (int start = 0; start < orderIds.size(); start += chunkSize) {
+            List<Long> chunk = orderIds.subList(start, Math.min(start + chunkSize, orderIds.size()));
+            List<OrderStatusOutcomeDTO> chunkOutcomes = transactionTemplate.execute(status -> applyChunk(
+                    chunk, EnumSet.of(Order.OrderStatus.PENDING), Order.OrderStatus.CANCELLED, true));
+            for (OrderStatusOutcomeDTO outcome : chunkOutcomes) {
+                if (outcome.getOutcome() == OrderStatusOutcomeDTO.Outcome.UPDATED) {
+                    cancelled++;
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    private List<OrderStatusOutcomeDTO> applyChunk(List<Long> chunk, Set<Order.OrderStatus> sources,
+                                                   Order.OrderStatus target, boolean expiry) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderBulkRepository.StatusChange> changes = orderBulkRepository.transitionStatus(
+                chunk, sources, target, now);
+
+        List<OrderStatusOutcomeDTO> outcomes = new ArrayList<>(chunk.size());
+        List<OutboxEvent> events = new ArrayList<>(changes.size());
+        Set<Long> changedIds = new LinkedHashSet<>();
+        for (OrderBulkRepository.StatusChange change : changes) {
+            changedIds.add(change.getOrderId());
+            outcomes.add(new OrderStatusOutcomeDTO(change.getOrderId(), OrderStatusOutcomeDTO.Outcome.UPDATED,
+                    change.getPreviousStatus()));
+            events.add(expiry
+                    ? outboxService.expiredEvent(change.getOrderId(), change.getCustomerId(), change.getTotalAmount())
+                    : outboxService.statusChangedEvent(change.getOrderId(), change.getCustomerId(),
+                            change.getTotalAmount(), target, change.getPreviousStatus()));
+        }
+
+        // Orders the guarded UPDATE skipped are classified from their current status
+        List<Long> skipped = chunk.stream().filter(id -> !changedIds.contains(id)).collect(Collectors.toList());
+        Map<Long, Order.OrderStatus> current = orderBulkRepository.findStatuses(skipped);
+        for (Long id : skipped) {
+            Order.OrderStatus status = current.get(id);
+            OrderStatusOutcomeDTO.Outcome outcome;
+            if (status == null) {
+                outcome = OrderStatusOutcomeDTO.Outcome.NOT_FOUND;
+            } else if (status == target) {
+                outcome = OrderStatusOutcomeDTO.Outcome.UNCHANGED;
+            } else {
+                outcome = OrderStatusOutcomeDTO.Outcome.INVALID_TRANSITION;
+            }
+            outcomes.add(new OrderStatusOutcomeDTO(id, outcome, status));
+        }
+
+        if (!events.isEmpty()) {
+            outboxService.recordAll(events);
+        }
+        if (target == Order.OrderStatus.CANCELLED) {
+            salesRollupService.ordersCancelled(changedIds);
+        }
+        orderViewService.statusChanged(changedIds, target, now);
+        return outcomes;
+    }
+}
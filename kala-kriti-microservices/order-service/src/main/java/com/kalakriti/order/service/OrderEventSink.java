@@ -0,0 +1,13 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.entity.OutboxEvent;
+import java.util.List;
+
+/**
+ * Destination for order events drained from the outbox. Implementations must either
+ * accept the whole batch or throw, in which case the batch is redelivered later.
+ */
+public interface OrderEventSink {
+
+    void publish(List<OutboxEvent> events);
+}
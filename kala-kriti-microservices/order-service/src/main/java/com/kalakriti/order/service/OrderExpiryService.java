@@ -0,0 +1,227 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.OrderSearchCriteria;
+import com.kalakriti.order.dto.OrderSummaryDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.OrderQueryRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import com.kalakriti.order.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cancels orders left unpaid past their payment window. Every pending order has a
+ * deadline in an in-memory {@link HierarchicalTimingWheel}; the wheel is rebuilt
+ * from the database on startup and kept current by {@link OrderService}.
+ *
+ * <p>A paid order can still be PENDING, since payments are taken by payment-service
+ * and nothing there moves the order on. So due orders are first looked up with
+ * {@link PaymentStatusClient}: paid ones are confirmed, ones with a payment in flight
+ * are checked again later, and only the rest are cancelled, through
+ * {@link OrderBulkService#expire(List)}. That only touches orders still PENDING, so
+ * a deadline that outlived its order fires harmlessly. If payment-service cannot be
+ * reached nothing is cancelled and the batch is retried.
+ */
+@Service
+public class OrderExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    @Autowired
+    private OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    private OrderBulkService orderBulkService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PaymentStatusClient paymentStatusClient;
+
+    @Value("${order.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.expiry.pending-ttl-minutes:30}")
+    private long pendingTtlMinutes;
+
+    @Value("${order.expiry.rebuild-page-size:10000}")
+    private int rebuildPageSize;
+
+    @Value("${order.expiry.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    // Due orders looked up with payment-service at once; it takes at most 1000
+    @Value("${order.expiry.batch-size:500}")
+    private int batchSize;
+
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<Long>> deadlines = new ConcurrentHashMap<>();
+    private final Counter expiredCounter;
+    private final Counter confirmedCounter;
+
+    public OrderExpiryService(MeterRegistry meterRegistry,
+                              @Value("${order.expiry.tick-ms:1000}") long tickMs,
+                              @Value("${order.expiry.wheel-size:512}") int wheelSize) {
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.expiredCounter = meterRegistry.counter("order.expiry.cancelled");
+        this.confirmedCounter = meterRegistry.counter("order.expiry.confirmed");
+        Gauge.builder("order.expiry.scheduled", wheel, HierarchicalTimingWheel::size)
+                .description("Pending orders with a scheduled expiry")
+                .register(meterRegistry);
+    }
+
+    public void orderCreated(Order order) {
+        if (enabled && order.getStatus() == Order.OrderStatus.PENDING) {
+            afterCommit(() -> schedule(order.getId(), deadlineOf(order.getCreatedAt())));
+        }
+    }
+
+    public void ordersCreated(List<Order> orders) {
+        orders.forEach(this::orderCreated);
+    }
+
+    // The order left PENDING (or was deleted), so its deadline no longer applies
+    public void orderSettled(Long orderId) {
+        afterCommit(() -> {
+            HierarchicalTimingWheel.Timeout<Long> timeout = deadlines.remove(orderId);
+            if (timeout != null) {
+                wheel.cancel(timeout);
+            }
+        });
+    }
+
+    // Pages through pending orders along idx_orders_status_created_id; this is the
+    // only time the table is read, the wheel is driven from memory afterwards
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Thread rebuild = new Thread(() -> {
+            int scheduled = shardRouter.sumOverShards(this::schedulePending);
+            log.info("Scheduled expiry for {} pending orders", scheduled);
+        }, "order-expiry-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    private int schedulePending() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setStatus(Order.OrderStatus.PENDING);
+        criteria.setAscending(true);
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        int scheduled = 0;
+        List<OrderSummaryDTO> page;
+        do {
+            page = orderQueryRepository.searchOrders(criteria, afterCreatedAt, afterId, rebuildPageSize);
+            for (OrderSummaryDTO order : page) {
+                schedule(order.getId(), deadlineOf(order.getCreatedAt()));
+            }
+            scheduled += page.size();
+            if (!page.isEmpty()) {
+                OrderSummaryDTO last = page.get(page.size() - 1);
+                afterCreatedAt = last.getCreatedAt();
+                afterId = last.getId();
+            }
+        } while (page.size() == rebuildPageSize);
+        return scheduled;
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.tick-ms:1000}")
+    public void expireDue() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = wheel.advanceTo(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        // Drop the handles that just fired, keeping any newer deadline for the same order
+        due.forEach(orderId -> deadlines.computeIfPresent(orderId, (id, timeout) -> timeout.isDone() ? null : timeout));
+        for (int start = 0; start < due.size(); start += batchSize) {
+            List<Long> batch = due.subList(start, Math.min(start + batchSize, due.size()));
+            try {
+                expireUnpaid(batch);
+            } catch (RuntimeException ex) {
+                log.warn("Expiring {} orders failed, retrying in {} ms", batch.size(), retryDelayMs, ex);
+                long retryAt = System.currentTimeMillis() + retryDelayMs;
+                batch.forEach(orderId -> schedule(orderId, retryAt));
+            }
+        }
+    }
+
+    private void expireUnpaid(List<Long> orderIds) {
+        Map<Long, PaymentStatusClient.PaymentState> payments = paymentStatusClient.paymentStates(orderIds);
+        List<Long> paid = new ArrayList<>();
+        List<Long> unpaid = new ArrayList<>();
+        long recheckAt = System.currentTimeMillis() + retryDelayMs;
+        for (Long orderId : orderIds) {
+            PaymentStatusClient.PaymentState payment = payments.get(orderId);
+            if (payment == null) {
+                unpaid.add(orderId);
+            } else if (payment == PaymentStatusClient.PaymentState.PAID) {
+                paid.add(orderId);
+            } else {
+                schedule(orderId, recheckAt);
+            }
+        }
+        if (!paid.isEmpty()) {
+            int confirmed = orderBulkService.transition(paid, Order.OrderStatus.CONFIRMED).getUpdated();
+            confirmedCounter.increment(confirmed);
+            if (confirmed > 0) {
+                log.info("Confirmed {} paid orders that were still pending", confirmed);
+            }
+        }
+        if (!unpaid.isEmpty()) {
+            int cancelled = orderBulkService.expire(unpaid);
+            expiredCounter.increment(cancelled);
+            if (cancelled > 0) {
+                log.info("Cancelled {} expired pending orders", cancelled);
+            }
+        }
+    }
+
+    private void schedule(Long orderId, long deadlineMs) {
+        HierarchicalTimingWheel.Timeout<Long> previous = deadlines.put(orderId, wheel.schedule(orderId, deadlineMs));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    private long deadlineOf(LocalDateTime createdAt) {
+        return createdAt.plusMinutes(pendingTtlMinutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Timers only follow committed state; a rolled-back order never gets one
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
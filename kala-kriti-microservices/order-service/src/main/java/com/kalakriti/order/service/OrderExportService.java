@@ -0,0 +1,340 @@
+package com.kalakriti.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.sharding.ShardRouter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams orders with their items for a date range straight from a forward-only
+ * JDBC cursor to the response, one row at a time. Nothing is collected in memory,
+ * so the cost of an export is bounded by the fetch size, not the range.
+ *
+ * <p>Rows are in {@code created_at, order id} order. With sharding, one cursor is
+ * open per shard and their rows are merged as they are read.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String COLUMNS = "o.id AS order_id, o.created_at, o.customer_id, o.status, o.total_amount, "
+            + "o.shipping_address, o.billing_address, oi.id AS item_id, oi.product_id, oi.product_name, "
+            + "oi.artist_id, oi.quantity, oi.price";
+
+    // Orders are archived by status as well as age, so archived and hot orders overlap
+    // in time and are sorted together
+    private static final String EXPORT_SQL = "SELECT * FROM ("
+            + "SELECT " + COLUMNS + " FROM orders_archive o LEFT JOIN order_items_archive oi ON oi.order_id = o.id "
+            + "WHERE o.created_at >= ? AND o.created_at < ? "
+            + "UNION ALL SELECT " + COLUMNS + " FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.id "
+            + "WHERE o.created_at >= ? AND o.created_at < ?) e "
+            + "ORDER BY created_at, order_id, item_id";
+
+    // Order ids are unique across shards, so this is a total order on orders
+    private static final Comparator<ShardCursor> CURSOR_ORDER = Comparator
+            .comparing((ShardCursor cursor) -> cursor.createdAt)
+            .thenComparingLong(cursor -> cursor.orderId)
+            .thenComparingInt(cursor -> cursor.index);
+
+    private static final String CSV_HEADER = "order_id,created_at,customer_id,status,total_amount,"
+            + "shipping_address,billing_address,item_id,product_id,product_name,artist_id,quantity,price";
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.export.flush-every-rows:1000}")
+    private int flushEveryRows;
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+
+    public OrderExportService(DataSource dataSource, @Value("${order.export.fetch-size:1000}") int fetchSize) {
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(LocalDateTime from, LocalDateTime to, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        // Sync-flush gzip so each incremental flush reaches the client
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, 64 * 1024, true) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzipStream != null ? gzipStream : out, StandardCharsets.UTF_8), 64 * 1024);
+        ExportWriter rows = format == Format.CSV ? new CsvWriter(writer) : new NdjsonWriter(writer);
+        List<String> shards = shardRouter.isEnabled() ? shardRouter.getShardNames() : Collections.singletonList(null);
+        List<ShardCursor> cursors = new ArrayList<>(shards.size());
+        try {
+            rows.begin();
+            PriorityQueue<ShardCursor> heads = new PriorityQueue<>(CURSOR_ORDER);
+            for (String shard : shards) {
+                ShardCursor cursor = open(shard, cursors.size(), from, to);
+                cursors.add(cursor);
+                if (cursor.next()) {
+                    heads.add(cursor);
+                }
+            }
+            ShardCursor last = null;
+            long lastOrderId = 0;
+            while (!heads.isEmpty()) {
+                ShardCursor head = heads.poll();
+                // An order found on two shards (its customer caught mid-move) is exported once
+                if (last == null || head == last || head.orderId != lastOrderId) {
+                    rows.processRow(head.rs);
+                    last = head;
+                    lastOrderId = head.orderId;
+                }
+                if (head.next()) {
+                    heads.add(head);
+                }
+            }
+            rows.finish();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (SQLException ex) {
+            throw new UncategorizedSQLException("Order export", EXPORT_SQL, ex);
+        } finally {
+            cursors.forEach(ShardCursor::close);
+        }
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    private ShardCursor open(String shard, int index, LocalDateTime from, LocalDateTime to) throws SQLException {
+        Connection connection = shardRouter.callOnShard(shard, () -> DataSourceUtils.getConnection(dataSource));
+        ShardCursor cursor = new ShardCursor(index, connection);
+        try {
+            // PostgreSQL only streams with a fetch size inside a transaction; otherwise the
+            // driver materializes the whole result set
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            cursor.statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cursor.statement.setFetchSize(fetchSize);
+            for (int i = 0; i < 4; i += 2) {
+                cursor.statement.setTimestamp(i + 1, Timestamp.valueOf(from));
+                cursor.statement.setTimestamp(i + 2, Timestamp.valueOf(to));
+            }
+            cursor.rs = cursor.statement.executeQuery();
+            return cursor;
+        } catch (SQLException | RuntimeException ex) {
+            cursor.close();
+            throw ex;
+        }
+    }
+
+    // One shard's open result set, positioned on its current row
+    private final class ShardCursor {
+        private final int index;
+        private final Connection connection;
+        private PreparedStatement statement;
+        private ResultSet rs;
+        private Timestamp createdAt;
+        private long orderId;
+
+        private ShardCursor(int index, Connection connection) {
+            this.index = index;
+            this.connection = connection;
+        }
+
+        private boolean next() throws SQLException {
+            if (!rs.next()) {
+                return false;
+            }
+            createdAt = rs.getTimestamp("created_at");
+            orderId = rs.getLong("order_id");
+            return true;
+        }
+
+        private void close() {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(statement);
+            try {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                // The connection is closed below either way
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private abstract class ExportWriter implements RowCallbackHandler {
+        protected final Writer writer;
+        private int rowsSinceFlush;
+
+        ExportWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void begin() throws IOException {
+        }
+
+        void finish() throws IOException {
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                write(rs);
+                if (++rowsSinceFlush >= flushEveryRows) {
+                    writer.flush();
+                    rowsSinceFlush = 0;
+                }
+            } catch (IOException ex) {
+                // Client went away; abandon the cursor
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // One line per item, order columns repeated, which is what spreadsheets expect
+    private class CsvWriter extends ExportWriter {
+
+        CsvWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void begin() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong("order_id")));
+            writer.write(',');
+            writer.write(rs.getTimestamp("created_at").toLocalDateTime().toString());
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong("customer_id")));
+            writer.write(',');
+            writer.write(rs.getString("status"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("total_amount").toPlainString());
+            writer.write(',');
+            writeField(rs.getString("shipping_address"));
+            writer.write(',');
+            writeField(rs.getString("billing_address"));
+            writer.write(',');
+            writeField(rs.getString("item_id"));
+            writer.write(',');
+            writeField(rs.getString("product_id"));
+            writer.write(',');
+            writeField(rs.getString("product_name"));
+            writer.write(',');
+            writeField(rs.getString("artist_id"));
+            writer.write(',');
+            writeField(rs.getString("quantity"));
+            writer.write(',');
+            BigDecimal price = rs.getBigDecimal("price");
+            writeField(price != null ? price.toPlainString() : null);
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    // One JSON object per order; rows arrive grouped by order, so only the current
+    // order is ever buffered
+    private class NdjsonWriter extends ExportWriter {
+        private Map<String, Object> currentOrder;
+        private List<Map<String, Object>> currentItems;
+        private long currentOrderId;
+
+        NdjsonWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("order_id");
+            if (currentOrder == null || orderId != currentOrderId) {
+                emit();
+                currentOrderId = orderId;
+                currentItems = new ArrayList<>();
+                currentOrder = new LinkedHashMap<>();
+                currentOrder.put("id", orderId);
+                currentOrder.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime());
+                currentOrder.put("customerId", rs.getLong("customer_id"));
+                currentOrder.put("status", rs.getString("status"));
+                currentOrder.put("totalAmount", rs.getBigDecimal("total_amount"));
+                currentOrder.put("shippingAddress", rs.getString("shipping_address"));
+                currentOrder.put("billingAddress", rs.getString("billing_address"));
+                currentOrder.put("items", currentItems);
+            }
+            if (rs.getObject("item_id") != null) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", rs.getLong("item_id"));
+                item.put("productId", rs.getLong("product_id"));
+                item.put("productName", rs.getString("product_name"));
+                item.put("artistId", rs.getObject("artist_id"));
+                item.put("quantity", rs.getInt("quantity"));
+                item.put("price", rs.getBigDecimal("price"));
+                currentItems.add(item);
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            emit();
+        }
+
+        private void emit() throws IOException {
+            if (currentOrder == null) {
+                return;
+            }
+            writer.write(objectMapper.writeValueAsString(currentOrder));
+            writer.write('\n');
+            currentOrder = null;
+        }
+    }
+}
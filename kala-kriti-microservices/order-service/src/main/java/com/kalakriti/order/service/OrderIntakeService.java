@@ -0,0 +1,285 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.OrderIntakeStatusDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.entity.OrderItem;
+import com.kalakriti.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Asynchronous order intake: requests are validated cheaply and parked in a bounded
+ * queue, and a small worker pool persists them in group-committed batches. Request
+ * threads never touch the database, and a full queue is reported instead of
+ * blocking (backpressure).
+ *
+ * <p>Each accepted order has a ticket for status polls. Tickets are bounded too: a
+ * new one pushes out the longest-completed ones, and when every ticket is still
+ * queued or in flight the order is turned away like on a full queue.
+ */
+@Service
+public class OrderIntakeService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeService.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order.intake.workers:4}")
+    private int workers;
+
+    @Value("${order.intake.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.intake.status-retention-minutes:15}")
+    private int statusRetentionMinutes;
+
+    @Value("${order.intake.max-tickets:50000}")
+    private int maxTickets;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    // Completed tickets in completion order, oldest first; the ones to forget first
+    private final Queue<Ticket> completedTickets = new ConcurrentLinkedQueue<>();
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter persistedCounter;
+    private final Counter failedCounter;
+    private final MeterRegistry meterRegistry;
+    private BlockingQueue<Ticket> queue;
+    private ExecutorService workerPool;
+    private volatile boolean running;
+
+    public OrderIntakeService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.acceptedCounter = meterRegistry.counter("order.intake.accepted");
+        this.rejectedCounter = meterRegistry.counter("order.intake.rejected");
+        this.persistedCounter = meterRegistry.counter("order.intake.persisted");
+        this.failedCounter = meterRegistry.counter("order.intake.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gaugeCollectionSize("order.intake.queue.depth", List.of(), queue);
+        meterRegistry.gaugeMapSize("order.intake.tickets", List.of(), tickets);
+        AtomicInteger threadIds = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::drainLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Stop accepting, then give the workers a chance to flush what is already queued
+        running = false;
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Accepts an order for asynchronous persistence and returns its handle.
+     *
+     * @throws IllegalArgumentException if the order fails the cheap validation
+     * @throws IllegalStateException if the intake queue is full, or every ticket
+     *         slot is taken by an order not yet persisted
+     */
+    public OrderIntakeStatusDTO submit(Order order) {
+        validate(order);
+        if (!running) {
+            rejectedCounter.increment();
+            throw new IllegalStateException("Order intake is shutting down");
+        }
+        if (!makeRoomForTicket()) {
+            rejectedCounter.increment();
+            throw new IllegalStateException("Order intake is tracking too many orders");
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), order);
+        tickets.put(ticket.handle, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.handle);
+            rejectedCounter.increment();
+            throw new IllegalStateException("Order intake queue is full");
+        }
+        acceptedCounter.increment();
+        return ticket.toStatus();
+    }
+
+    public Optional<OrderIntakeStatusDTO> getStatus(String handle) {
+        return Optional.ofNullable(tickets.get(handle)).map(Ticket::toStatus);
+    }
+
+    @Scheduled(fixedDelayString = "${order.intake.status-cleanup-interval-ms:60000}")
+    public void evictCompletedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(statusRetentionMinutes);
+        Ticket oldest;
+        while ((oldest = completedTickets.peek()) != null && oldest.completedAt.isBefore(cutoff)) {
+            if (completedTickets.remove(oldest)) {
+                tickets.remove(oldest.handle);
+            }
+        }
+    }
+
+    // Forgets the longest-completed tickets until one more fits; false if none has completed
+    private boolean makeRoomForTicket() {
+        while (tickets.size() >= maxTickets) {
+            Ticket oldest = completedTickets.poll();
+            if (oldest == null) {
+                return false;
+            }
+            tickets.remove(oldest.handle);
+        }
+        return true;
+    }
+
+    private void complete(Ticket ticket, Long orderId, String error) {
+        ticket.complete(orderId, error);
+        completedTickets.add(ticket);
+    }
+
+    private void validate(Order order) {
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        for (OrderItem item : order.getItems()) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Item quantity must be positive");
+            }
+            if (item.getPrice() == null || item.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("Item price must not be negative");
+            }
+        }
+        if (order.getTotalAmount().compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Total amount must not be negative");
+        }
+    }
+
+    private void drainLoop() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Order intake worker failed", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // A group commit is one transaction, so it can only cover one shard
+    private void persist(List<Ticket> batch) {
+        shardRouter.forEachCustomerShard(batch, ticket -> ticket.order.getCustomerId(),
+                (shard, group) -> persistGroup(group));
+    }
+
+    private void persistGroup(List<Ticket> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        batch.forEach(ticket -> orders.add(ticket.order));
+        try {
+            List<Order> saved = orderService.createOrders(orders);
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), saved.get(i).getId(), null);
+            }
+            persistedCounter.increment(batch.size());
+        } catch (RuntimeException batchFailure) {
+            // One bad order must not sink the batch: retry each individually to isolate it
+            for (Ticket ticket : batch) {
+                try {
+                    // Identity values and version assigned during the rolled-back attempt must not leak into the retry
+                    ticket.order.setId(null);
+                    ticket.order.setVersion(null);
+                    ticket.order.getItems().forEach(item -> item.setId(null));
+                    complete(ticket, orderService.createOrder(ticket.order).getId(), null);
+                    persistedCounter.increment();
+                } catch (RuntimeException ex) {
+                    complete(ticket, null, ex.getMessage());
+                    failedCounter.increment();
+                }
+            }
+        }
+    }
+
+    private static class Ticket {
+        private final String handle;
+        private final Order order;
+        private final LocalDateTime acceptedAt = LocalDateTime.now();
+        private volatile Long orderId;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        Ticket(String handle, Order order) {
+            this.handle = handle;
+            this.order = order;
+        }
+
+        void complete(Long orderId, String error) {
+            this.orderId = orderId;
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+        }
+
+        OrderIntakeStatusDTO toStatus() {
+            // completedAt is written last in complete(), so reading it first gives a consistent view
+            LocalDateTime completed = completedAt;
+            OrderIntakeStatusDTO status = new OrderIntakeStatusDTO();
+            status.setHandle(handle);
+            status.setAcceptedAt(acceptedAt);
+            status.setCompletedAt(completed);
+            status.setOrderId(orderId);
+            status.setError(error);
+            if (completed == null) {
+                status.setState(OrderIntakeStatusDTO.State.QUEUED);
+            } else {
+                status.setState(error == null ? OrderIntakeStatusDTO.State.PERSISTED : OrderIntakeStatusDTO.State.FAILED);
+            }
+            return status;
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -52,6 +54,39 @@ public class OrderMappingService {
         return order;
     }
 
+    public Order toOrder(OrderUpdateDTO updateDTO) {
+        Order order = new Order();
+        order.setStatus(updateDTO.getStatus());
+        order.setShippingAddress(updateDTO.getShippingAddress());
+        order.setBillingAddress(updateDTO.getBillingAddress());
+        return order;
+    }
+
+    // Builds a new order from server-held lines (cart, checkout saga); the total is derived, not trusted
+    public Order toOrder(Long customerId, List<OrderItemCreateDTO> lines, String shippingAddress, String billingAddress) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setShippingAddress(shippingAddress);
+        order.setBillingAddress(billingAddress);
+        List<OrderItem> items = new ArrayList<>();
+        for (OrderItemCreateDTO line : lines) {
+            OrderItem item = toOrderItem(line);
+            item.setOrder(order);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(totalOf(lines));
+        return order;
+    }
+
+    public BigDecimal totalOf(Iterable<OrderItemCreateDTO> lines) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItemCreateDTO line : lines) {
+            total = total.add(line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return total;
+    }
+
     public Order updateOrderFromDTO(Order existingOrder, OrderUpdateDTO updateDTO) {
         modelMapper.getConfiguration().setSkipNullEnabled(true);
         modelMapper.map(updateDTO, existingOrder);
@@ -1,10 +1,24 @@
 package com.kalakriti.order.service;
 
+import com.kalakriti.order.dto.ArtistOrderLineDTO;
+import com.kalakriti.order.dto.KeysetPageDTO;
+import com.kalakriti.order.dto.OrderSearchCriteria;
+import com.kalakriti.order.dto.OrderSummaryDTO;
 import com.kalakriti.order.entity.Order;
 import com.kalakriti.order.entity.OrderItem;
+import com.kalakriti.order.repository.OrderQueryRepository;
 import com.kalakriti.order.repository.OrderRepository;
+import com.kalakriti.order.sharding.ShardKey;
+import com.kalakriti.order.sharding.ShardRouter;
+import com.kalakriti.order.util.KeysetCursor;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,51 +28,217 @@ public class OrderService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.status-update.max-attempts:3}")
+    private int maxStatusUpdateAttempts;
+
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        List<Order> orders = new ArrayList<>();
+        shardRouter.scatter(orderRepository::findAllWithItems).forEach(orders::addAll);
+        return orders;
     }
 
-    public Order getOrderById(Long id) {
+    public Order getOrderById(@ShardKey(ShardKey.Kind.ORDER) Long id) {
         return orderRepository.findById(id)
+            .or(() -> orderArchiveService.findArchivedOrder(id))
             .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
 
-    public List<Order> getOrdersByCustomer(Long customerId) {
-        return orderRepository.findByCustomerId(customerId);
+    public List<Order> getOrdersByCustomer(@ShardKey(ShardKey.Kind.CUSTOMER) Long customerId) {
+        List<Order> orders = new ArrayList<>(orderRepository.findByCustomerId(customerId));
+        orders.addAll(orderArchiveService.findArchivedOrdersByCustomer(customerId));
+        return orders;
+    }
+
+    public KeysetPageDTO<ArtistOrderLineDTO> getOrderLinesByArtist(Long artistId, Order.OrderStatus status,
+                                                                 LocalDateTime from, LocalDateTime to,
+                                                                 String cursor, int size) {
+        long[] keys = cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor, 2) : null;
+        Long afterOrderId = keys != null ? keys[0] : null;
+        Long afterItemId = keys != null ? keys[1] : null;
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        List<ArtistOrderLineDTO> lines = ShardRouter.merge(
+                shardRouter.scatter(() -> orderQueryRepository.findArtistOrderLines(
+                        artistId, status, from, to, afterOrderId, afterItemId, size + 1)),
+                Comparator.comparing(ArtistOrderLineDTO::getOrderId)
+                        .thenComparing(ArtistOrderLineDTO::getItemId).reversed(),
+                ArtistOrderLineDTO::getItemId, size + 1);
+        String nextCursor = null;
+        if (lines.size() > size) {
+            lines = lines.subList(0, size);
+            ArtistOrderLineDTO last = lines.get(size - 1);
+            nextCursor = KeysetCursor.encode(last.getOrderId(), last.getItemId());
+        }
+        return new KeysetPageDTO<>(lines, nextCursor);
+    }
+
+    public KeysetPageDTO<OrderSummaryDTO> searchOrders(OrderSearchCriteria criteria, String cursor, int size) {
+        long[] keys = cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor, 2) : null;
+        // created_at travels as epoch microseconds, the precision PostgreSQL stores
+        LocalDateTime afterCreatedAt = keys != null
+                ? LocalDateTime.ofEpochSecond(Math.floorDiv(keys[0], 1_000_000L),
+                        (int) Math.floorMod(keys[0], 1_000_000L) * 1000, ZoneOffset.UTC)
+                : null;
+        Long afterId = keys != null ? keys[1] : null;
+        Comparator<OrderSummaryDTO> sortOrder = Comparator.comparing(OrderSummaryDTO::getCreatedAt)
+                .thenComparing(OrderSummaryDTO::getId);
+        List<OrderSummaryDTO> orders = ShardRouter.merge(
+                shardRouter.scatter(() -> orderQueryRepository.searchOrders(criteria, afterCreatedAt, afterId, size + 1)),
+                criteria.isAscending() ? sortOrder : sortOrder.reversed(), OrderSummaryDTO::getId, size + 1);
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            OrderSummaryDTO last = orders.get(size - 1);
+            long createdAtMicros = last.getCreatedAt().toEpochSecond(ZoneOffset.UTC) * 1_000_000L
+                    + last.getCreatedAt().getNano() / 1000;
+            nextCursor = KeysetCursor.encode(createdAtMicros, last.getId());
+        }
+        return new KeysetPageDTO<>(orders, nextCursor);
+    }
+
+    @Transactional
+    public Order createOrder(@ShardKey(ShardKey.Kind.CUSTOMER) Order order) {
+        return persistNewOrder(order);
     }
 
+    // Group commit for the async intake workers: one transaction, one outbox batch and
+    // one rollup statement for the whole batch. With sharding, callers group the batch
+    // by shard and bind it first.
     @Transactional
-    public Order createOrder(Order order) {
+    public List<Order> createOrders(List<Order> orders) {
+        List<Order> saved = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            linkItems(order);
+            saved.add(orderRepository.save(order));
+        }
+        outboxService.recordAll(saved.stream().map(outboxService::createdEvent).collect(Collectors.toList()));
+        salesRollupService.ordersCreated(saved);
+        orderViewService.refreshAll(saved);
+        orderExpiryService.ordersCreated(saved);
+        return saved;
+    }
+
+    private Order persistNewOrder(Order order) {
+        linkItems(order);
+        Order saved = orderRepository.save(order);
+        outboxService.orderCreated(saved);
+        salesRollupService.orderCreated(saved);
+        orderViewService.refresh(saved);
+        orderExpiryService.orderCreated(saved);
+        return saved;
+    }
+
+    private void linkItems(Order order) {
         if (order.getItems() != null) {
             for (OrderItem item : order.getItems()) {
                 item.setOrder(order);
             }
         }
-        return orderRepository.save(order);
     }
 
+    /**
+     * Lock-free status change: read status and version, validate the transition, then
+     * compare-and-set. On a lost race the order is re-read, so a concurrent change to
+     * the same status is accepted and one that made the transition illegal is rejected.
+     */
     @Transactional
-    public Order updateOrderStatus(Long id, Order.OrderStatus status) {
-        Order order = getOrderById(id);
-        order.setStatus(status);
-        return orderRepository.save(order);
-    }
+    public Order updateOrderStatus(@ShardKey(ShardKey.Kind.ORDER) Long id, Order.OrderStatus status) {
+        for (int attempt = 1; ; attempt++) {
+            OrderRepository.StatusVersion current = orderRepository.findStatusVersion(id)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+            Order.OrderStatus previousStatus = current.getStatus();
+            if (previousStatus == status) {
+                return getActiveOrder(id);
+            }
+            requireTransition(previousStatus, status);
 
-    public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new IllegalArgumentException("Order not found");
+            int updated = orderRepository.compareAndSetStatus(id, current.getVersion(),
+                    Order.OrderStatus.sourcesOf(status), status, LocalDateTime.now());
+            if (updated == 1) {
+                Order saved = getActiveOrder(id);
+                outboxService.orderStatusChanged(saved, previousStatus);
+                salesRollupService.orderStatusChanged(id, previousStatus, status);
+                orderViewService.refresh(saved);
+                orderExpiryService.orderSettled(id);
+                return saved;
+            }
+            if (attempt >= maxStatusUpdateAttempts) {
+                throw new IllegalStateException("Order " + id + " is being modified concurrently, please retry");
+            }
         }
-        orderRepository.deleteById(id);
     }
 
-    public Order updateOrder(Long id, Order orderDetails) {
-        Order order = getOrderById(id);
+    /**
+     * Deletes the order, taking it out of the sales rollups (unless a cancellation
+     * already did) and publishing the deletion, in the same transaction. The delete is
+     * version-checked, so a concurrent status change fails it rather than leaving the
+     * rollups reversed against the wrong status.
+     */
+    @Transactional
+    public void deleteOrder(@ShardKey(ShardKey.Kind.ORDER) Long id) {
+        Order order = orderRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        // Reversed while the order's items are still there to read
+        salesRollupService.orderDeleted(order);
+        outboxService.orderDeleted(order);
+        orderRepository.delete(order);
+        orderRepository.flush();
+        orderViewService.delete(id);
+        orderExpiryService.orderSettled(id);
+    }
+
+    @Transactional
+    public Order updateOrder(@ShardKey(ShardKey.Kind.ORDER) Long id, Order orderDetails) {
+        Order order = getActiveOrder(id);
+        Order.OrderStatus previousStatus = order.getStatus();
 
-        order.setShippingAddress(orderDetails.getShippingAddress());
-        order.setBillingAddress(orderDetails.getBillingAddress());
-        order.setStatus(orderDetails.getStatus() != null ? orderDetails.getStatus() : order.getStatus());
+        order.setShippingAddress(orderDetails.getShippingAddress() != null ? orderDetails.getShippingAddress() : order.getShippingAddress());
+        order.setBillingAddress(orderDetails.getBillingAddress() != null ? orderDetails.getBillingAddress() : order.getBillingAddress());
+        if (orderDetails.getStatus() != null) {
+            requireTransition(previousStatus, orderDetails.getStatus());
+            order.setStatus(orderDetails.getStatus());
+        }
 
-        return orderRepository.save(order);
+        // The version check on flush turns a concurrent modification into an optimistic lock failure
+        Order saved = orderRepository.saveAndFlush(order);
+        if (previousStatus != saved.getStatus()) {
+            outboxService.orderStatusChanged(saved, previousStatus);
+            salesRollupService.orderStatusChanged(id, previousStatus, saved.getStatus());
+            orderExpiryService.orderSettled(id);
+        }
+        orderViewService.refresh(saved);
+        return saved;
     }
 
+    // Archived orders are read-only, so every mutation resolves against the hot table only
+    private Order getActiveOrder(Long id) {
+        return orderRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
+    private void requireTransition(Order.OrderStatus from, Order.OrderStatus to) {
+        if (from != to && !from.canTransitionTo(to)) {
+            throw new IllegalStateException("Cannot change order status from " + from + " to " + to);
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package com.kalakriti.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.OrderRepository;
+import com.kalakriti.order.repository.OrderViewRepository;
+import com.kalakriti.order.sharding.ShardKey;
+import com.kalakriti.order.sharding.ShardRouter;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains {@code order_views}, one JSON document per order holding exactly the
+ * {@code OrderDTO} the API returns. Writes happen inside the mutating transaction;
+ * reads are a single primary-key (or customer index) lookup with no mapping.
+ */
+@Service
+public class OrderViewService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderViewService.class);
+
+    // A view is never replaced by one built from an older order version, so a backfill
+    // chunk read before a concurrent update cannot overwrite that update's view
+    private static final String UPSERT_SQL = "INSERT INTO order_views (order_id, customer_id, document, updated_at, version) "
+            + "VALUES (?, ?, CAST(? AS jsonb), ?, ?) "
+            + "ON CONFLICT (order_id) DO UPDATE SET customer_id = EXCLUDED.customer_id, "
+            + "document = EXCLUDED.document, updated_at = EXCLUDED.updated_at, version = EXCLUDED.version "
+            + "WHERE order_views.version IS NULL OR order_views.version <= EXCLUDED.version";
+
+    @Autowired
+    private OrderViewRepository orderViewRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.read-model.rebuild-chunk-size:500}")
+    private int rebuildChunkSize;
+
+    @Value("${order.read-model.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    // Customer history is only served from the views once every order is known to have one
+    private final AtomicBoolean historyReady = new AtomicBoolean(false);
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderViewService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Order order) {
+        refreshAll(List.of(order));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshAll(List<Order> orders) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, orders, 500, (ps, order) -> {
+            ps.setLong(1, order.getId());
+            ps.setLong(2, order.getCustomerId());
+            ps.setString(3, toDocument(order));
+            ps.setTimestamp(4, now);
+            ps.setObject(5, order.getVersion(), Types.BIGINT);
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Collection<Long> orderIds, Order.OrderStatus status, LocalDateTime updatedAt) {
+        if (!orderIds.isEmpty()) {
+            // Serialized by the same mapper as whole documents, so patched timestamps match
+            orderViewRepository.patchStatus(orderIds, status.name(), toJson(updatedAt));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void delete(Long orderId) {
+        orderViewRepository.deleteById(orderId);
+    }
+
+    public Optional<String> findDocument(@ShardKey(ShardKey.Kind.ORDER) Long orderId) {
+        return orderViewRepository.findDocument(orderId);
+    }
+
+    /**
+     * Returns the customer's order history as a JSON array, or empty while the
+     * startup backfill has not finished and the views may be incomplete.
+     */
+    public Optional<String> findCustomerHistory(@ShardKey(ShardKey.Kind.CUSTOMER) Long customerId) {
+        if (!historyReady.get()) {
+            return Optional.empty();
+        }
+        return Optional.of("[" + String.join(",", orderViewRepository.findDocumentsByCustomer(customerId)) + "]");
+    }
+
+    // Backfills orders that predate the read model (or were missed) without blocking startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingViews() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread backfill = new Thread(() -> {
+            try {
+                int rebuilt = rebuild(true);
+                historyReady.set(true);
+                log.info("Order read model ready, backfilled {} views", rebuilt);
+            } catch (RuntimeException ex) {
+                log.error("Order read model backfill failed; customer history stays on the normalized tables", ex);
+            }
+        }, "order-view-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * Rebuilds views from the normalized (hot and archived) tables in id order, one
+     * chunk per transaction. With {@code onlyMissing} only orders without a view are
+     * touched. Returns the number of views written.
+     */
+    public int rebuild(boolean onlyMissing) {
+        int written = shardRouter.sumOverShards(() -> rebuildShard(onlyMissing));
+        historyReady.set(true);
+        return written;
+    }
+
+    private int rebuildShard(boolean onlyMissing) {
+        int written = 0;
+        long afterId = 0;
+        List<Long> ids;
+        while (!(ids = orderViewRepository.findOrderIdsToRebuild(afterId, onlyMissing, rebuildChunkSize)).isEmpty()) {
+            List<Long> chunk = ids;
+            transactionTemplate.executeWithoutResult(status -> refreshAll(orderRepository.findWithItemsByIdIn(chunk)));
+            written += chunk.size();
+            afterId = chunk.get(chunk.size() - 1);
+        }
+        afterId = 0;
+        while (!(ids = orderViewRepository.findArchivedOrderIdsToRebuild(afterId, onlyMissing, rebuildChunkSize)).isEmpty()) {
+            List<Long> chunk = ids;
+            transactionTemplate.executeWithoutResult(status -> refreshAll(orderArchiveService.findArchivedOrders(chunk)));
+            written += chunk.size();
+            afterId = chunk.get(chunk.size() - 1);
+        }
+        return written;
+    }
+
+    private String toDocument(Order order) {
+        return toJson(mappingService.toOrderDTO(order));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize order view", ex);
+        }
+    }
+}
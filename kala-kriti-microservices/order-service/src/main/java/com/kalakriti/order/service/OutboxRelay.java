@@ -0,0 +1,120 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.entity.OutboxEvent;
+import com.kalakriti.order.repository.OutboxEventRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains unpublished outbox rows in batches and hands them to the configured
+ * {@link OrderEventSink}. Rows are only marked published after the sink accepts
+ * them, so a crash or sink failure results in redelivery (at-least-once).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderEventSink sink;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.outbox.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${order.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Timer batchTimer;
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+
+    public OutboxRelay(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedCounter = Counter.builder("order.outbox.published")
+                .description("Order events delivered to the sink")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("order.outbox.failures")
+                .description("Outbox batches rejected by the sink")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("order.outbox.batch")
+                .description("Time to lock, publish and acknowledge one outbox batch")
+                .register(meterRegistry);
+        meterRegistry.gauge("order.outbox.last.batch.size", lastBatchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void relay() {
+        // Events are written on the shard of their order
+        shardRouter.forEachShard(this::relayShard);
+    }
+
+    private void relayShard() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int published;
+            try {
+                published = batchTimer.record(this::publishNextBatch);
+            } catch (RuntimeException ex) {
+                failureCounter.increment();
+                log.warn("Outbox batch publish failed, will retry: {}", ex.getMessage());
+                return;
+            }
+            if (published < batchSize) {
+                return;
+            }
+        }
+    }
+
+    int publishNextBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            sink.publish(batch);
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+            outboxEventRepository.markPublished(ids, LocalDateTime.now());
+            return batch.size();
+        });
+        int count = published != null ? published : 0;
+        lastBatchSize.set(count);
+        publishedCounter.increment(count);
+        return count;
+    }
+
+    @Scheduled(cron = "${order.outbox.cleanup-cron:0 15 3 * * *}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        shardRouter.forEachShard(() -> {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status ->
+                        outboxEventRepository.deletePublishedBefore(cutoff, batchSize * 10));
+            } while (deleted > 0);
+        });
+    }
+}
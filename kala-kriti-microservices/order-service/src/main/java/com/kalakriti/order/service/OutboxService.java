@@ -0,0 +1,109 @@
+package com.kalakriti.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.entity.OutboxEvent;
+import com.kalakriti.order.repository.OutboxEventRepository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Must join the caller's transaction so the event commits or rolls back with the order change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent orderCreated(Order order) {
+        return outboxEventRepository.save(createdEvent(order));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent orderStatusChanged(Order order, Order.OrderStatus previousStatus) {
+        return outboxEventRepository.save(statusChangedEvent(order.getId(), order.getCustomerId(),
+                order.getTotalAmount(), order.getStatus(), previousStatus));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent orderDeleted(Order order) {
+        return outboxEventRepository.save(deletedEvent(order));
+    }
+
+    public OutboxEvent createdEvent(Order order) {
+        return event(order.getId(), OutboxEvent.EventType.ORDER_CREATED,
+                order.getCustomerId(), order.getTotalAmount(), order.getStatus(), null, null);
+    }
+
+    public OutboxEvent statusChangedEvent(Long orderId, Long customerId, BigDecimal totalAmount,
+                                          Order.OrderStatus status, Order.OrderStatus previousStatus) {
+        return event(orderId, OutboxEvent.EventType.ORDER_STATUS_CHANGED, customerId, totalAmount,
+                status, previousStatus, null);
+    }
+
+    // A cancellation by the expiry subsystem; the reason tells consumers to release claimed stock
+    public OutboxEvent expiredEvent(Long orderId, Long customerId, BigDecimal totalAmount) {
+        return event(orderId, OutboxEvent.EventType.ORDER_STATUS_CHANGED, customerId, totalAmount,
+                Order.OrderStatus.CANCELLED, Order.OrderStatus.PENDING, "EXPIRED");
+    }
+
+    // Published as a status change with no new status, since order_outbox's event_type
+    // check constraint only accepts the types it was created with
+    public OutboxEvent deletedEvent(Order order) {
+        return event(order.getId(), OutboxEvent.EventType.ORDER_STATUS_CHANGED, order.getCustomerId(),
+                order.getTotalAmount(), null, order.getStatus(), "DELETED");
+    }
+
+    // JDBC batch insert: IDENTITY keys stop Hibernate from batching these itself
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<OutboxEvent> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO order_outbox (order_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)",
+                events, 500, (ps, event) -> {
+                    ps.setLong(1, event.getOrderId());
+                    ps.setString(2, event.getEventType().name());
+                    ps.setString(3, event.getPayload());
+                    ps.setTimestamp(4, now);
+                });
+    }
+
+    private OutboxEvent event(Long orderId, OutboxEvent.EventType type, Long customerId, BigDecimal totalAmount,
+                              Order.OrderStatus status, Order.OrderStatus previousStatus, String reason) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("customerId", customerId);
+        payload.put("status", status);
+        payload.put("previousStatus", previousStatus);
+        payload.put("totalAmount", totalAmount);
+        if (reason != null) {
+            payload.put("reason", reason);
+        }
+        payload.put("occurredAt", LocalDateTime.now());
+        return new OutboxEvent(orderId, type, toJson(payload));
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize order event", ex);
+        }
+    }
+}
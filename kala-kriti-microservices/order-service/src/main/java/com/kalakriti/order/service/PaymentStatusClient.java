@@ -0,0 +1,62 @@
+package com.kalakriti.order.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Asks payment-service how orders' payments stand. Orders stay PENDING when they
+ * are paid through {@code /api/payments/process}, so the expiry checks here before
+ * it cancels one.
+ */
+@Component
+public class PaymentStatusClient {
+
+    public enum PaymentState {
+        // A payment completed
+        PAID,
+        // A payment is with the gateway or waiting for a retry
+        IN_FLIGHT
+    }
+
+    private static final ParameterizedTypeReference<Map<Long, String>> STATUSES =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RestTemplate restTemplate;
+
+    public PaymentStatusClient(RestTemplateBuilder builder,
+                               @Value("${order.payments.url:http://localhost:8084}") String url,
+                               @Value("${order.payments.timeout-ms:5000}") long timeoutMs) {
+        this.restTemplate = builder.rootUri(url)
+                .setConnectTimeout(Duration.ofMillis(timeoutMs))
+                .setReadTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+    }
+
+    // Orders whose payments neither completed nor are in flight are left out
+    public Map<Long, PaymentState> paymentStates(List<Long> orderIds) {
+        Map<Long, String> statuses = restTemplate.exchange("/api/payments/orders/status", HttpMethod.POST,
+                new HttpEntity<>(Map.of("orderIds", orderIds)), STATUSES).getBody();
+        Map<Long, PaymentState> states = new HashMap<>();
+        if (statuses == null) {
+            return states;
+        }
+        statuses.forEach((orderId, status) -> {
+            if ("COMPLETED".equals(status)) {
+                states.put(orderId, PaymentState.PAID);
+            } else if ("PENDING".equals(status)) {
+                states.put(orderId, PaymentState.IN_FLIGHT);
+            }
+        });
+        return states;
+    }
+}
@@ -0,0 +1,165 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.ArtistSalesReportDTO;
+import com.kalakriti.order.dto.ArtistSalesTotalDTO;
+import com.kalakriti.order.dto.SalesDayDTO;
+import com.kalakriti.order.entity.ArtistDailySales;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.ArtistDailySalesRepository;
+import com.kalakriti.order.sharding.ShardRouter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class SalesRollupService {
+
+    @Autowired
+    private ArtistDailySalesRepository salesRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.rollups.rebuild-chunk-days:31}")
+    private int rebuildChunkDays;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SalesRollupService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+            salesRepository.applyOrders(List.of(order.getId()), 1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersCreated(List<Order> orders) {
+        List<Long> ids = orders.stream()
+                .filter(order -> order.getStatus() != Order.OrderStatus.CANCELLED)
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            salesRepository.applyOrders(ids, 1);
+        }
+    }
+
+    // Only the CANCELLED boundary affects revenue: entering it reverses the order, leaving it re-adds it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Long orderId, Order.OrderStatus previousStatus, Order.OrderStatus newStatus) {
+        if (previousStatus != Order.OrderStatus.CANCELLED && newStatus == Order.OrderStatus.CANCELLED) {
+            salesRepository.applyOrders(List.of(orderId), -1);
+        } else if (previousStatus == Order.OrderStatus.CANCELLED && newStatus != Order.OrderStatus.CANCELLED) {
+            salesRepository.applyOrders(List.of(orderId), 1);
+        }
+    }
+
+    // Must run before the delete, since the reversal reads the order's items; a cancelled
+    // order was already reversed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderDeleted(Order order) {
+        if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+            salesRepository.applyOrders(List.of(order.getId()), -1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersCancelled(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty()) {
+            salesRepository.applyOrders(orderIds, -1);
+        }
+    }
+
+    /**
+     * Recomputes the rollups for an inclusive date range from the normalized order
+     * tables, one chunk of days per transaction. Returns the number of rows written.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        // Each shard rolls up its own orders
+        return shardRouter.sumOverShards(() -> rebuildShard(from, to));
+    }
+
+    private int rebuildShard(LocalDate from, LocalDate to) {
+        int written = 0;
+        LocalDate chunkStart = from;
+        while (!chunkStart.isAfter(to)) {
+            LocalDate chunkEnd = chunkStart.plusDays(rebuildChunkDays - 1L);
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+            LocalDate start = chunkStart;
+            LocalDate end = chunkEnd;
+            Integer rows = transactionTemplate.execute(status -> {
+                salesRepository.deleteBySalesDateBetween(start, end);
+                return salesRepository.rebuildBetween(start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+            });
+            written += rows != null ? rows : 0;
+            chunkStart = chunkEnd.plusDays(1);
+        }
+        return written;
+    }
+
+    public ArtistSalesReportDTO getArtistReport(Long artistId, LocalDate from, LocalDate to) {
+        // With sharding every shard holds partial sums for the same days
+        Map<LocalDate, SalesDayDTO> byDay = new TreeMap<>();
+        for (List<ArtistDailySales> rows : shardRouter.scatter(() ->
+                salesRepository.findByArtistIdAndSalesDateBetweenOrderBySalesDate(artistId, from, to))) {
+            for (ArtistDailySales row : rows) {
+                byDay.merge(row.getSalesDate(),
+                        new SalesDayDTO(row.getSalesDate(), row.getRevenue(), row.getUnits(), row.getOrderCount()),
+                        (a, b) -> new SalesDayDTO(a.getDate(), a.getRevenue().add(b.getRevenue()),
+                                a.getUnits() + b.getUnits(), a.getOrderCount() + b.getOrderCount()));
+            }
+        }
+        List<SalesDayDTO> days = new ArrayList<>(byDay.values());
+
+        ArtistSalesReportDTO report = new ArtistSalesReportDTO();
+        report.setArtistId(artistId);
+        report.setFrom(from);
+        report.setTo(to);
+        report.setDays(days);
+        report.setTotalRevenue(days.stream().map(SalesDayDTO::getRevenue).reduce(BigDecimal.ZERO, BigDecimal::add));
+        report.setTotalUnits(days.stream().mapToLong(SalesDayDTO::getUnits).sum());
+        report.setTotalOrders(days.stream().mapToLong(SalesDayDTO::getOrderCount).sum());
+        return report;
+    }
+
+    public List<ArtistSalesTotalDTO> getTopArtists(LocalDate from, LocalDate to, int limit) {
+        // A shard's top n is not the global top n, so shards return every artist's totals
+        int shardLimit = shardRouter.isEnabled() ? Integer.MAX_VALUE : limit;
+        Map<Long, ArtistSalesTotalDTO> byArtist = new HashMap<>();
+        for (List<ArtistDailySalesRepository.ArtistSalesTotal> rows : shardRouter.scatter(() ->
+                salesRepository.findTopArtists(from, to, shardLimit))) {
+            for (ArtistDailySalesRepository.ArtistSalesTotal row : rows) {
+                byArtist.merge(row.getArtistId(),
+                        new ArtistSalesTotalDTO(row.getArtistId(), row.getRevenue(), row.getUnits(), row.getOrderCount()),
+                        (a, b) -> new ArtistSalesTotalDTO(a.getArtistId(), a.getRevenue().add(b.getRevenue()),
+                                a.getUnits() + b.getUnits(), a.getOrderCount() + b.getOrderCount()));
+            }
+        }
+        return byArtist.values().stream()
+                .sorted(Comparator.comparing(ArtistSalesTotalDTO::getRevenue).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,16 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import java.util.List;
+
+/**
+ * Stock side of the checkout saga. Both calls are keyed by the saga id and must be
+ * idempotent: a resumed saga may repeat a call whose outcome was never recorded,
+ * and releasing a reservation that was never made is a no-op.
+ */
+public interface StockReservationClient {
+
+    void reserve(Long sagaId, List<OrderItemCreateDTO> items);
+
+    void release(Long sagaId);
+}
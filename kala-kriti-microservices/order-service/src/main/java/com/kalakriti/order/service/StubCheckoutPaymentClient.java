@@ -0,0 +1,48 @@
+package com.kalakriti.order.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for payment-service, with configurable latency and decline rate.
+ * Selected with {@code order.checkout.clients=stub}.
+ */
+@Component
+@ConditionalOnProperty(name = "order.checkout.clients", havingValue = "stub", matchIfMissing = true)
+public class StubCheckoutPaymentClient implements CheckoutPaymentClient {
+
+    private final Map<Long, String> charges = new ConcurrentHashMap<>();
+
+    @Value("${order.checkout.stub.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${order.checkout.stub.payment-failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public String charge(Long sagaId, Long orderId, Long customerId, BigDecimal amount, String method) {
+        String existing = charges.get(sagaId);
+        if (existing != null) {
+            return existing;
+        }
+        StubLatency.pause(latencyMs);
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Payment declined");
+        }
+        String reference = "stub-" + UUID.randomUUID();
+        charges.put(sagaId, reference);
+        return reference;
+    }
+
+    @Override
+    public void refund(Long sagaId) {
+        StubLatency.pause(latencyMs);
+        charges.remove(sagaId);
+    }
+}
@@ -0,0 +1,19 @@
+package com.kalakriti.order.service;
+
+final class StubLatency {
+
+    private StubLatency() {
+    }
+
+    static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", ex);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kalakriti.order.service;
+
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for product-service stock reservations, with configurable latency
+ * and failure rate. Selected with {@code order.checkout.clients=stub}.
+ */
+@Component
+@ConditionalOnProperty(name = "order.checkout.clients", havingValue = "stub", matchIfMissing = true)
+public class StubStockReservationClient implements StockReservationClient {
+
+    private final Map<Long, List<OrderItemCreateDTO>> reservations = new ConcurrentHashMap<>();
+
+    @Value("${order.checkout.stub.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${order.checkout.stub.stock-failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public void reserve(Long sagaId, List<OrderItemCreateDTO> items) {
+        if (reservations.containsKey(sagaId)) {
+            return;
+        }
+        StubLatency.pause(latencyMs);
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Insufficient stock");
+        }
+        reservations.put(sagaId, items);
+    }
+
+    @Override
+    public void release(Long sagaId) {
+        StubLatency.pause(latencyMs);
+        reservations.remove(sagaId);
+    }
+}
@@ -0,0 +1,52 @@
+package com.kalakriti.order.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring. Each shard is placed at many points (virtual
+ * nodes), so keys spread evenly and adding or removing a shard moves only about
+ * 1/n of them.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+    private final List<String> members;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("A ring needs at least one member and one virtual node per member");
+        }
+        this.members = List.copyOf(members);
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    public String shardFor(long key) {
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(Long.toString(key)));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    // MD5 is stable across JVMs and releases, unlike String.hashCode spreading
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kalakriti.order.sharding;
+
+/**
+ * The shard the current thread is working against, read by
+ * {@link ShardRoutingDataSource} whenever a connection is opened. Unbound means the
+ * primary shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        Binding binding = CURRENT.get();
+        return binding != null ? binding.shard : null;
+    }
+
+    // A lingering binding is left behind by a finished routed call so lazy loads later
+    // in the same request still reach its shard; the next routed call replaces it
+    static boolean isBoundByEnclosingCall() {
+        Binding binding = CURRENT.get();
+        return binding != null && !binding.lingering;
+    }
+
+    static Binding get() {
+        return CURRENT.get();
+    }
+
+    static void bind(String shard) {
+        CURRENT.set(new Binding(shard, false));
+    }
+
+    static void linger(String shard) {
+        CURRENT.set(new Binding(shard, true));
+    }
+
+    static void restore(Binding previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    static final class Binding {
+        private final String shard;
+        private final boolean lingering;
+
+        private Binding(String shard, boolean lingering) {
+            this.shard = shard;
+            this.lingering = lingering;
+        }
+    }
+}
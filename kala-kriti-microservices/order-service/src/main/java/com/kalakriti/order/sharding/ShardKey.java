@@ -0,0 +1,29 @@
+package com.kalakriti.order.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter that decides which shard a service method runs on. The call,
+ * including any transaction it starts, is bound to that shard by
+ * {@link ShardRoutingAspect}; calls made while a shard is already bound stay on it.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    Kind value();
+
+    enum Kind {
+        // A customer id, or an Order whose customer decides
+        CUSTOMER,
+        // An order id; the order is located and routed by its customer
+        ORDER,
+        // An id generated on a shard, routed to the shard that issued it
+        ID_RANGE
+    }
+}
@@ -0,0 +1,272 @@
+package com.kalakriti.order.sharding;
+
+import com.kalakriti.order.dto.ShardStatusDTO;
+import java.sql.Array;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Changes ring membership (adding or retiring a shard) while orders keep flowing,
+ * then moves the affected customers in the background:
+ *
+ * <ol>
+ * <li>Every customer the new ring places elsewhere is pinned to the shard their
+ * data is on, so switching the ring changes nothing for them yet.</li>
+ * <li>With every customer locked, customers that appeared during that scan are
+ * pinned too, and the ring is switched.</li>
+ * <li>Pinned customers are moved one at a time under their own lock: rows are
+ * upserted on the new shard, the moved orders are recorded in the directory, the
+ * old rows are deleted, and the pin is dropped. A failed move leaves the customer
+ * pinned and consistent; running again retries it.</li>
+ * </ol>
+ *
+ * <p>Checkout sagas stay on the shard that issued their id, so customers with a
+ * saga still running are left pinned for the next run. Locks and the ring live in
+ * this process, so only a single order-service instance may run while sharded.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String ACTIVE_SAGA_STATES = "('STARTED', 'ORDER_CREATED', 'COMPENSATING')";
+
+    private static final String CUSTOMERS_SQL = "SELECT customer_id FROM orders "
+            + "UNION SELECT customer_id FROM orders_archive "
+            + "UNION SELECT customer_id FROM order_views "
+            + "UNION SELECT customer_id FROM carts "
+            + "UNION SELECT customer_id FROM checkout_sagas WHERE state IN " + ACTIVE_SAGA_STATES;
+
+    private static final String RECENT_CUSTOMERS_SQL = "SELECT customer_id FROM orders WHERE created_at >= ? "
+            + "UNION SELECT customer_id FROM carts WHERE updated_at >= ? "
+            + "UNION SELECT customer_id FROM checkout_sagas WHERE state IN " + ACTIVE_SAGA_STATES;
+
+    private static final String ACTIVE_SAGAS_SQL = "SELECT COUNT(*) FROM checkout_sagas "
+            + "WHERE customer_id = ? AND state IN " + ACTIVE_SAGA_STATES;
+
+    private static final MovedTable ORDERS = new MovedTable("orders", "id",
+            "SELECT * FROM orders WHERE customer_id = ?");
+
+    private static final MovedTable ORDERS_ARCHIVE = new MovedTable("orders_archive", "id",
+            "SELECT * FROM orders_archive WHERE customer_id = ?");
+
+    // Parents first; deleted in reverse
+    private static final List<MovedTable> MOVED_TABLES = List.of(
+            ORDERS,
+            new MovedTable("order_items", "id", "SELECT oi.* FROM order_items oi "
+                    + "JOIN orders o ON o.id = oi.order_id WHERE o.customer_id = ?"),
+            ORDERS_ARCHIVE,
+            new MovedTable("order_items_archive", "id", "SELECT oi.* FROM order_items_archive oi "
+                    + "JOIN orders_archive o ON o.id = oi.order_id WHERE o.customer_id = ?"),
+            new MovedTable("order_views", "order_id", "SELECT * FROM order_views WHERE customer_id = ?"),
+            new MovedTable("carts", "customer_id", "SELECT * FROM carts WHERE customer_id = ?"));
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile ShardStatusDTO.RebalanceState state = ShardStatusDTO.RebalanceState.IDLE;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile int moved;
+    private volatile int deferred;
+    private volatile int failed;
+    private volatile String error;
+
+    public ShardRebalancer(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Validates the new membership and starts the rebalance in the background.
+     */
+    public synchronized ShardStatusDTO rebalance(List<String> members) {
+        if (!shardRouter.isEnabled()) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        if (state == ShardStatusDTO.RebalanceState.PINNING || state == ShardStatusDTO.RebalanceState.MOVING) {
+            throw new IllegalStateException("A rebalance is already running");
+        }
+        if (members == null || members.isEmpty()) {
+            throw new IllegalArgumentException("The ring needs at least one shard");
+        }
+        ConsistentHashRing newRing = shardRouter.newRing(members);
+        state = ShardStatusDTO.RebalanceState.PINNING;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        moved = 0;
+        deferred = 0;
+        failed = 0;
+        error = null;
+        Thread worker = new Thread(() -> run(newRing), "shard-rebalance");
+        worker.setDaemon(true);
+        worker.start();
+        return getStatus();
+    }
+
+    public ShardStatusDTO getStatus() {
+        ShardStatusDTO status = new ShardStatusDTO();
+        status.setEnabled(shardRouter.isEnabled());
+        status.setShards(shardRouter.getShardNames());
+        status.setRingMembers(shardRouter.getRingMembers());
+        status.setPinnedCustomers(shardRouter.getPinnedCustomers());
+        status.setRebalanceState(state);
+        status.setRebalanceStartedAt(startedAt);
+        status.setRebalanceFinishedAt(finishedAt);
+        status.setMovedCustomers(moved);
+        status.setDeferredCustomers(deferred);
+        status.setFailedCustomers(failed);
+        status.setRebalanceError(error);
+        return status;
+    }
+
+    private void run(ConsistentHashRing newRing) {
+        try {
+            // Margin for orders stamped just before the scan started but committed after it
+            LocalDateTime scanStart = LocalDateTime.now().minusMinutes(1);
+            for (String shard : shardRouter.getShardNames()) {
+                pinMovingCustomers(shard, newRing, CUSTOMERS_SQL);
+            }
+            List<ReentrantReadWriteLock.WriteLock> locks = shardRouter.lockAllCustomers();
+            try {
+                for (String shard : shardRouter.getShardNames()) {
+                    pinMovingCustomers(shard, newRing, RECENT_CUSTOMERS_SQL, scanStart, scanStart);
+                }
+                shardRouter.switchRing(newRing);
+            } finally {
+                locks.forEach(ReentrantReadWriteLock.WriteLock::unlock);
+            }
+            log.info("Ring switched to {}, moving {} pinned customers", newRing.getMembers(),
+                    shardRouter.getPinnedCustomers());
+
+            state = ShardStatusDTO.RebalanceState.MOVING;
+            for (Map.Entry<Long, String> pinned : new HashMap<>(shardRouter.overrides()).entrySet()) {
+                moveCustomer(pinned.getKey(), pinned.getValue());
+            }
+            state = ShardStatusDTO.RebalanceState.COMPLETED;
+            log.info("Rebalance finished: {} customers moved, {} deferred, {} failed", moved, deferred, failed);
+        } catch (RuntimeException ex) {
+            log.error("Rebalance failed", ex);
+            error = ex.getMessage();
+            state = ShardStatusDTO.RebalanceState.FAILED;
+        } finally {
+            finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void pinMovingCustomers(String shard, ConsistentHashRing newRing, String sql, Object... args) {
+        Map<Long, String> batch = new HashMap<>();
+        shardRouter.jdbcFor(shard).query(sql, (RowCallbackHandler) rs -> {
+            long customerId = rs.getLong(1);
+            // Already pinned customers stay where their pin says their data is
+            if (!shardRouter.overrides().containsKey(customerId) && !shard.equals(newRing.shardFor(customerId))) {
+                batch.put(customerId, shard);
+                if (batch.size() >= shardRouter.rebalanceBatchSize()) {
+                    shardRouter.pin(batch);
+                    batch.clear();
+                }
+            }
+        }, args);
+        if (!batch.isEmpty()) {
+            shardRouter.pin(batch);
+        }
+    }
+
+    private void moveCustomer(Long customerId, String from) {
+        String to = shardRouter.ring().shardFor(customerId);
+        ReentrantReadWriteLock.WriteLock lock = shardRouter.customerLock(customerId).writeLock();
+        lock.lock();
+        try {
+            if (from.equals(to)) {
+                shardRouter.unpin(customerId);
+                return;
+            }
+            Long activeSagas = shardRouter.jdbcFor(from).queryForObject(ACTIVE_SAGAS_SQL, Long.class, customerId);
+            if (activeSagas != null && activeSagas > 0) {
+                deferred++;
+                return;
+            }
+            Map<MovedTable, List<Map<String, Object>>> rows = new HashMap<>();
+            for (MovedTable table : MOVED_TABLES) {
+                rows.put(table, shardRouter.jdbcFor(from).queryForList(table.selectSql, customerId));
+            }
+            // Upserts, so a retry after a failed delete overwrites the earlier copy
+            shardRouter.runOnShard(to, () -> transactionTemplate.executeWithoutResult(status -> {
+                for (MovedTable table : MOVED_TABLES) {
+                    upsert(table, rows.get(table));
+                }
+            }));
+            // Recorded before the old copies go, so the orders are findable throughout
+            List<Long> orderIds = new ArrayList<>();
+            for (MovedTable table : List.of(ORDERS, ORDERS_ARCHIVE)) {
+                rows.get(table).forEach(row -> orderIds.add(((Number) row.get("id")).longValue()));
+            }
+            shardRouter.recordRelocations(orderIds, to);
+            shardRouter.runOnShard(from, () -> transactionTemplate.executeWithoutResult(status -> {
+                for (int i = MOVED_TABLES.size() - 1; i >= 0; i--) {
+                    MovedTable table = MOVED_TABLES.get(i);
+                    delete(table, rows.get(table));
+                }
+            }));
+            shardRouter.unpin(customerId);
+            moved++;
+        } catch (RuntimeException ex) {
+            log.warn("Moving customer {} from {} to {} failed, left pinned", customerId, from, to, ex);
+            failed++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void upsert(MovedTable table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table.name + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") "
+                + "ON CONFLICT (" + table.key + ") DO UPDATE SET "
+                + columns.stream().map(column -> column + " = EXCLUDED." + column).collect(Collectors.joining(", "));
+        jdbcTemplate.batchUpdate(sql, rows.stream().map(row -> row.values().toArray()).toList());
+    }
+
+    private void delete(MovedTable table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Object[] keys = rows.stream().map(row -> row.get(table.key)).toArray();
+        jdbcTemplate.update("DELETE FROM " + table.name + " WHERE " + table.key + " = ANY(?)", ps -> {
+            Array array = ps.getConnection().createArrayOf("bigint", keys);
+            ps.setArray(1, array);
+        });
+    }
+
+    private static final class MovedTable {
+        private final String name;
+        private final String key;
+        private final String selectSql;
+
+        private MovedTable(String name, String key, String selectSql) {
+            this.name = name;
+            this.key = key;
+            this.selectSql = selectSql;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.kalakriti.order.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Decides which shard holds a customer's orders and runs work there. Customers are
+ * placed on a consistent-hash ring; a per-customer override pins a customer to the
+ * shard their data is actually on while a rebalance moves it. Ring membership and
+ * overrides are kept in a small directory on the primary shard.
+ *
+ * <p>Every shard issues ids from its own range (the shard's position in the
+ * configuration, shifted left by {@value #ID_RANGE_BITS} bits), so ids are unique
+ * across shards and an id names the shard that created it. An order stays there
+ * unless a rebalance moves its customer; the directory then records where it went,
+ * so an order is found with at most two lookups and never by asking every shard.
+ *
+ * <p>With sharding disabled every method runs its work directly, unbound, so
+ * callers need no special casing.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final int ID_RANGE_BITS = 40;
+
+    private static final String LOCATE_ORDER_SQL = "SELECT customer_id FROM orders WHERE id = ? "
+            + "UNION ALL SELECT customer_id FROM orders_archive WHERE id = ? LIMIT 1";
+
+    private final ShardingProperties properties;
+    private final ShardRoutingDataSource routingDataSource;
+    private final List<String> shardNames = new ArrayList<>();
+    private final Map<String, JdbcTemplate> shardTemplates = new HashMap<>();
+    private final ConcurrentHashMap<Long, String> overrides = new ConcurrentHashMap<>();
+    // Striped so a moving customer blocks only the customers sharing its stripe
+    private final ReentrantReadWriteLock[] customerLocks = new ReentrantReadWriteLock[256];
+    private volatile ConsistentHashRing ring;
+    private TransactionTemplate directoryTransaction;
+    private ThreadPoolExecutor scatterPool;
+
+    public ShardRouter(ShardingProperties properties, ObjectProvider<ShardRoutingDataSource> routingDataSource) {
+        this.properties = properties;
+        this.routingDataSource = properties.isEnabled() ? routingDataSource.getIfAvailable() : null;
+        for (int i = 0; i < customerLocks.length; i++) {
+            customerLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (routingDataSource == null) {
+            return;
+        }
+        routingDataSource.getShards().forEach((name, dataSource) -> {
+            shardNames.add(name);
+            shardTemplates.put(name, new JdbcTemplate(dataSource));
+        });
+        JdbcTemplate directory = directory();
+        directoryTransaction = new TransactionTemplate(
+                new DataSourceTransactionManager(routingDataSource.getShards().get(shardNames.get(0))));
+        directory.execute("CREATE TABLE IF NOT EXISTS shard_ring (shard VARCHAR(64) PRIMARY KEY)");
+        directory.execute("CREATE TABLE IF NOT EXISTS shard_overrides ("
+                + "customer_id BIGINT PRIMARY KEY, shard VARCHAR(64) NOT NULL)");
+        directory.execute("CREATE TABLE IF NOT EXISTS shard_relocated_orders ("
+                + "order_id BIGINT PRIMARY KEY, shard VARCHAR(64) NOT NULL)");
+
+        List<String> members = directory.queryForList("SELECT shard FROM shard_ring ORDER BY shard", String.class);
+        if (members.isEmpty()) {
+            // First start: every configured shard joins the ring
+            members = new ArrayList<>(shardNames);
+            directory.batchUpdate("INSERT INTO shard_ring (shard) VALUES (?)",
+                    members.stream().map(name -> new Object[]{name}).toList());
+        }
+        for (String member : members) {
+            if (!shardTemplates.containsKey(member)) {
+                throw new IllegalStateException("Shard " + member + " is in the ring but not configured");
+            }
+        }
+        ring = new ConsistentHashRing(members, properties.getVirtualNodes());
+        directory.query("SELECT customer_id, shard FROM shard_overrides",
+                (RowCallbackHandler) rs -> overrides.put(rs.getLong(1), rs.getString(2)));
+
+        int threads = properties.getScatterThreads();
+        AtomicInteger threadIds = new AtomicInteger();
+        scatterPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+                    Thread thread = new Thread(runnable, "shard-scatter-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Sharding enabled: shards {}, ring {}, {} pinned customers", shardNames, members, overrides.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scatterPool != null) {
+            scatterPool.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return routingDataSource != null;
+    }
+
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    public List<String> getRingMembers() {
+        return ring != null ? ring.getMembers() : List.of();
+    }
+
+    public int getPinnedCustomers() {
+        return overrides.size();
+    }
+
+    public String shardForCustomer(Long customerId) {
+        String pinned = overrides.get(customerId);
+        return pinned != null ? pinned : ring.shardFor(customerId);
+    }
+
+    // The shard that issued the id
+    public String shardOfId(Long id) {
+        int index = rangeIndexOf(id);
+        return index < shardNames.size() ? shardNames.get(index) : shardNames.get(0);
+    }
+
+    // First id the shard at this position in the configuration issues
+    static long rangeStart(int index) {
+        return (long) index << ID_RANGE_BITS;
+    }
+
+    static int rangeIndexOf(long id) {
+        return (int) (id >>> ID_RANGE_BITS);
+    }
+
+    public <T> T callOnShard(String shard, Supplier<T> work) {
+        if (shard == null || !isEnabled()) {
+            return work.get();
+        }
+        ShardContext.Binding previous = ShardContext.get();
+        ShardContext.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    public void runOnShard(String shard, Runnable work) {
+        callOnShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the work on the customer's shard. The customer cannot be moved by a
+     * rebalance while the work runs.
+     */
+    public <T> T callForCustomer(Long customerId, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        ReentrantReadWriteLock.ReadLock lock = customerLock(customerId).readLock();
+        lock.lock();
+        try {
+            return callOnShard(shardForCustomer(customerId), work);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The customer an order belongs to, looked up on the shard that issued the id or,
+    // if a rebalance moved the order, the shard the directory records; null when
+    // neither has it
+    public Long findCustomerOfOrder(Long orderId) {
+        List<Long> customer = shardTemplates.get(shardOfId(orderId))
+                .queryForList(LOCATE_ORDER_SQL, Long.class, orderId, orderId);
+        if (customer.isEmpty()) {
+            List<String> relocated = directory().queryForList(
+                    "SELECT shard FROM shard_relocated_orders WHERE order_id = ?", String.class, orderId);
+            if (relocated.isEmpty()) {
+                return null;
+            }
+            customer = shardTemplates.get(relocated.get(0))
+                    .queryForList(LOCATE_ORDER_SQL, Long.class, orderId, orderId);
+        }
+        return customer.isEmpty() ? null : customer.get(0);
+    }
+
+    /**
+     * Groups order ids by the shard holding them. Ids found nowhere are grouped with
+     * the shard that issued them, so callers still report them as missing.
+     */
+    public Map<String, List<Long>> locateOrders(List<Long> orderIds) {
+        Map<String, List<Long>> byShard = new LinkedHashMap<>();
+        if (!isEnabled()) {
+            byShard.put(null, orderIds);
+            return byShard;
+        }
+        // Each shard is asked only about the ids it issued
+        Map<String, List<Long>> byOrigin = new HashMap<>();
+        orderIds.forEach(id -> byOrigin.computeIfAbsent(shardOfId(id), shard -> new ArrayList<>()).add(id));
+        Set<Long> atOrigin = new HashSet<>();
+        scatterByShard(shard -> byOrigin.containsKey(shard)
+                ? shardTemplates.get(shard).query("SELECT id FROM orders WHERE id = ANY(?)",
+                        ps -> ps.setArray(1, bigintArray(ps.getConnection(), byOrigin.get(shard))),
+                        (rs, rowNum) -> rs.getLong(1))
+                : List.<Long>of()).forEach(atOrigin::addAll);
+        List<Long> missing = orderIds.stream().filter(id -> !atOrigin.contains(id)).toList();
+        Map<Long, String> relocated = new HashMap<>();
+        if (!missing.isEmpty()) {
+            directory().query("SELECT order_id, shard FROM shard_relocated_orders WHERE order_id = ANY(?)",
+                    ps -> ps.setArray(1, bigintArray(ps.getConnection(), missing)),
+                    (RowCallbackHandler) rs -> relocated.put(rs.getLong(1), rs.getString(2)));
+        }
+        for (Long id : orderIds) {
+            byShard.computeIfAbsent(relocated.getOrDefault(id, shardOfId(id)), shard -> new ArrayList<>()).add(id);
+        }
+        return byShard;
+    }
+
+    /**
+     * Groups the items by their customer's shard and runs the work once per group,
+     * bound to that shard. None of the customers can be moved by a rebalance until
+     * all groups are done.
+     */
+    public <T> void forEachCustomerShard(List<T> items, Function<T, Long> customerOf,
+                                         BiConsumer<String, List<T>> work) {
+        if (!isEnabled()) {
+            work.accept(null, items);
+            return;
+        }
+        // Ascending stripe order, the same order the rebalancer locks them in
+        TreeSet<Integer> stripes = new TreeSet<>();
+        items.forEach(item -> stripes.add(stripeOf(customerOf.apply(item))));
+        List<ReentrantReadWriteLock.ReadLock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                ReentrantReadWriteLock.ReadLock lock = customerLocks[stripe].readLock();
+                lock.lock();
+                held.add(lock);
+            }
+            Map<String, List<T>> byShard = new LinkedHashMap<>();
+            for (T item : items) {
+                byShard.computeIfAbsent(shardForCustomer(customerOf.apply(item)), shard -> new ArrayList<>()).add(item);
+            }
+            byShard.forEach((shard, group) -> runOnShard(shard, () -> work.accept(shard, group)));
+        } finally {
+            held.forEach(ReentrantReadWriteLock.ReadLock::unlock);
+        }
+    }
+
+    /**
+     * Runs the query on every shard in parallel and returns the results in shard
+     * order.
+     */
+    public <T> List<T> scatter(Supplier<T> query) {
+        if (!isEnabled()) {
+            List<T> single = new ArrayList<>(1);
+            single.add(query.get());
+            return single;
+        }
+        return scatterByShard(shard -> callOnShard(shard, query));
+    }
+
+    // Background jobs: runs the work once per shard, one shard at a time
+    public int sumOverShards(Supplier<Integer> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        int total = 0;
+        for (String shard : shardNames) {
+            total += callOnShard(shard, work);
+        }
+        return total;
+    }
+
+    public void forEachShard(Runnable work) {
+        sumOverShards(() -> {
+            work.run();
+            return 0;
+        });
+    }
+
+    /**
+     * Merges per-shard results that are each sorted by {@code order}, dropping rows
+     * seen twice (a customer caught mid-move), and keeps the first {@code limit}.
+     */
+    public static <T> List<T> merge(List<List<T>> parts, Comparator<? super T> order,
+                                    Function<T, Object> identity, int limit) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        List<T> all = new ArrayList<>();
+        parts.forEach(all::addAll);
+        all.sort(order);
+        Set<Object> seen = new HashSet<>();
+        List<T> merged = new ArrayList<>(Math.min(limit, all.size()));
+        for (T row : all) {
+            if (merged.size() >= limit) {
+                break;
+            }
+            if (seen.add(identity.apply(row))) {
+                merged.add(row);
+            }
+        }
+        return merged;
+    }
+
+    // --- Used by the rebalancer ---
+
+    ReentrantReadWriteLock customerLock(Long customerId) {
+        return customerLocks[stripeOf(customerId)];
+    }
+
+    // Every stripe in ascending order; while held no customer can be read or written
+    // through the ring
+    List<ReentrantReadWriteLock.WriteLock> lockAllCustomers() {
+        List<ReentrantReadWriteLock.WriteLock> held = new ArrayList<>(customerLocks.length);
+        for (ReentrantReadWriteLock stripe : customerLocks) {
+            stripe.writeLock().lock();
+            held.add(stripe.writeLock());
+        }
+        return held;
+    }
+
+    JdbcTemplate jdbcFor(String shard) {
+        return shardTemplates.get(shard);
+    }
+
+    ConsistentHashRing newRing(Collection<String> members) {
+        for (String member : members) {
+            if (!shardTemplates.containsKey(member)) {
+                throw new IllegalArgumentException("Unknown shard: " + member);
+            }
+        }
+        return new ConsistentHashRing(members, properties.getVirtualNodes());
+    }
+
+    ConsistentHashRing ring() {
+        return ring;
+    }
+
+    Map<Long, String> overrides() {
+        return overrides;
+    }
+
+    int rebalanceBatchSize() {
+        return properties.getRebalanceBatchSize();
+    }
+
+    void pin(Map<Long, String> customers) {
+        directory().batchUpdate("INSERT INTO shard_overrides (customer_id, shard) VALUES (?, ?) "
+                        + "ON CONFLICT (customer_id) DO UPDATE SET shard = EXCLUDED.shard",
+                customers.entrySet().stream().map(entry -> new Object[]{entry.getKey(), entry.getValue()}).toList());
+        overrides.putAll(customers);
+    }
+
+    // Records where a rebalance moved orders to; orders back on the shard that issued
+    // them need no entry
+    void recordRelocations(Collection<Long> orderIds, String shard) {
+        List<Long> away = orderIds.stream().filter(id -> !shardOfId(id).equals(shard)).toList();
+        List<Long> home = orderIds.stream().filter(id -> shardOfId(id).equals(shard)).toList();
+        directoryTransaction.executeWithoutResult(status -> {
+            directory().batchUpdate("INSERT INTO shard_relocated_orders (order_id, shard) VALUES (?, ?) "
+                            + "ON CONFLICT (order_id) DO UPDATE SET shard = EXCLUDED.shard",
+                    away.stream().map(id -> new Object[]{id, shard}).toList());
+            if (!home.isEmpty()) {
+                directory().update("DELETE FROM shard_relocated_orders WHERE order_id = ANY(?)",
+                        ps -> ps.setArray(1, bigintArray(ps.getConnection(), home)));
+            }
+        });
+    }
+
+    void unpin(Long customerId) {
+        directory().update("DELETE FROM shard_overrides WHERE customer_id = ?", customerId);
+        overrides.remove(customerId);
+    }
+
+    void switchRing(ConsistentHashRing newRing) {
+        directoryTransaction.executeWithoutResult(status -> {
+            directory().update("DELETE FROM shard_ring");
+            directory().batchUpdate("INSERT INTO shard_ring (shard) VALUES (?)",
+                    newRing.getMembers().stream().map(name -> new Object[]{name}).toList());
+        });
+        ring = newRing;
+    }
+
+    private int stripeOf(Long customerId) {
+        return Math.floorMod(Long.hashCode(customerId), customerLocks.length);
+    }
+
+    private static Array bigintArray(Connection connection, Collection<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private JdbcTemplate directory() {
+        return shardTemplates.get(shardNames.get(0));
+    }
+
+    private <T> List<T> scatterByShard(Function<String, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardNames.size());
+        for (String shard : shardNames) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), scatterPool));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,94 @@
+package com.kalakriti.order.sharding;
+
+import com.kalakriti.order.entity.Order;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Binds calls to methods with a {@link ShardKey} parameter to the shard that key
+ * maps to. Ordered ahead of the transaction interceptor, so the transaction's
+ * connection already comes from the right shard.
+ *
+ * <p>In a web request the binding is left in place after the call, so entities it
+ * returned can still lazy-load from their shard while the response is rendered; it
+ * is cleared when the request completes.
+ */
+@Aspect
+@Component
+public class ShardRoutingAspect implements Ordered {
+
+    private static final String REQUEST_CLEANUP = ShardRoutingAspect.class.getName() + ".cleanup";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Around("execution(* com.kalakriti.order..*(.., @com.kalakriti.order.sharding.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!shardRouter.isEnabled() || ShardContext.isBoundByEnclosingCall()) {
+            return joinPoint.proceed();
+        }
+        Annotation[][] parameterAnnotations = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getParameterAnnotations();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof ShardKey shardKey) {
+                    return route(joinPoint, shardKey.value(), args[i]);
+                }
+            }
+        }
+        return joinPoint.proceed();
+    }
+
+    private Object route(ProceedingJoinPoint joinPoint, ShardKey.Kind kind, Object key) throws Throwable {
+        if (key == null) {
+            return joinPoint.proceed();
+        }
+        Long customerId = switch (kind) {
+            case CUSTOMER -> key instanceof Order order ? order.getCustomerId() : (Long) key;
+            case ORDER -> shardRouter.findCustomerOfOrder((Long) key);
+            case ID_RANGE -> null;
+        };
+        if (customerId == null) {
+            // Not found anywhere, or not customer-owned: the issuing shard answers
+            return proceedOn(joinPoint, shardRouter.shardOfId((Long) key));
+        }
+        ReentrantReadWriteLock.ReadLock lock = shardRouter.customerLock(customerId).readLock();
+        lock.lock();
+        try {
+            return proceedOn(joinPoint, shardRouter.shardForCustomer(customerId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object proceedOn(ProceedingJoinPoint joinPoint, String shard) throws Throwable {
+        ShardContext.bind(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestAttributes request = RequestContextHolder.getRequestAttributes();
+            if (request != null) {
+                ShardContext.linger(shard);
+                request.registerDestructionCallback(REQUEST_CLEANUP, ShardContext::clear,
+                        RequestAttributes.SCOPE_REQUEST);
+            } else {
+                ShardContext.clear();
+            }
+        }
+    }
+}
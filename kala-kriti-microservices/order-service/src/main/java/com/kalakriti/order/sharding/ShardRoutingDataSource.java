@@ -0,0 +1,46 @@
+package com.kalakriti.order.sharding;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * The application's DataSource when sharding is enabled: hands out connections
+ * from the shard bound in {@link ShardContext}, or the primary (first) shard when
+ * none is bound.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(LinkedHashMap<String, DataSource> shards) {
+        this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.values().iterator().next());
+        // An unknown shard name is a bug, never a reason to write to the primary
+        setLenientFallback(false);
+    }
+
+    // In configuration order; the position of a shard fixes its id range
+    public Map<String, DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource shard : shards.values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
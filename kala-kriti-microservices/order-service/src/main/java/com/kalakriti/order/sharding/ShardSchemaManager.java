@@ -0,0 +1,84 @@
+package com.kalakriti.order.sharding;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropRegistryNotAvailableImpl;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Gives every shard the same schema. Hibernate only manages the schema of the
+ * connection it boots with (the primary), so the mapping is captured while the
+ * session factory is built and the same {@code ddl-auto} action is then applied to
+ * each other shard. Each shard's identity sequences are also moved into its own id
+ * range.
+ */
+public class ShardSchemaManager implements Integrator, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaManager.class);
+
+    // Tables whose ids must be unique across shards: moved or routed by id
+    private static final List<String> RANGED_TABLES = List.of("orders", "order_items", "checkout_sagas");
+
+    private final ShardRouter shardRouter;
+    private Metadata metadata;
+    private ServiceRegistry serviceRegistry;
+
+    public ShardSchemaManager(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                         SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.serviceRegistry = sessionFactory.getServiceRegistry();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> shards = shardRouter.getShardNames();
+        Map<String, Object> settings = new HashMap<>(
+                serviceRegistry.requireService(ConfigurationService.class).getSettings());
+        for (int index = 0; index < shards.size(); index++) {
+            String shard = shards.get(index);
+            if (index > 0) {
+                shardRouter.runOnShard(shard, () -> SchemaManagementToolCoordinator.process(
+                        metadata, serviceRegistry, settings, DelayedDropRegistryNotAvailableImpl.INSTANCE));
+            }
+            moveIdentitiesIntoRange(shardRouter.jdbcFor(shard), ShardRouter.rangeStart(index));
+        }
+        log.info("Schema applied to shards {}", shards);
+    }
+
+    private void moveIdentitiesIntoRange(JdbcTemplate jdbc, long rangeStart) {
+        if (rangeStart == 0) {
+            return;
+        }
+        for (String table : RANGED_TABLES) {
+            String sequence = jdbc.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, table);
+            if (sequence == null) {
+                continue;
+            }
+            Long last = jdbc.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+            if (last == null || last < rangeStart) {
+                jdbc.queryForObject("SELECT setval(?, ?, false)", Long.class, sequence, rangeStart + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.kalakriti.order.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical timing wheel (as in Kafka's purgatory) for very large numbers of
+ * deadlines. Scheduling and cancelling are O(1): an entry goes into the bucket for
+ * its tick on the finest wheel that spans it, and coarser wheels are created lazily
+ * for far deadlines. Only non-empty buckets are queued by expiry, so advancing the
+ * clock never walks empty ticks, and entries cascade down to finer wheels as their
+ * bucket comes due. An entry never fires before its deadline and at most one tick
+ * after it.
+ *
+ * <p>All methods are synchronized; the expected use is many schedulers and one
+ * thread calling {@link #advanceTo(long)}.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final PriorityQueue<Bucket<T>> dueBuckets = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.expiration, b.expiration));
+    // Entries whose deadline had already passed when they were scheduled
+    private final List<Timeout<T>> overdue = new ArrayList<>();
+    private final Wheel root;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize greater than one");
+        }
+        this.root = new Wheel(tickMs, wheelSize, startMs);
+    }
+
+    public synchronized Timeout<T> schedule(T payload, long deadlineMs) {
+        // Keyed by the end of the deadline's tick, so bucket expiry never precedes the deadline
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMs, deadlineMs + root.tickMs - 1);
+        if (!root.add(timeout)) {
+            overdue.add(timeout);
+        }
+        size++;
+        return timeout;
+    }
+
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.done) {
+            return false;
+        }
+        timeout.done = true;
+        if (timeout.bucket != null) {
+            timeout.bucket.remove(timeout);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the clock to {@code nowMs} and returns the payloads whose deadline has
+     * passed, removing them from the wheel.
+     */
+    public synchronized List<T> advanceTo(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        for (Timeout<T> timeout : overdue) {
+            if (!timeout.done) {
+                expire(timeout, expired);
+            }
+        }
+        overdue.clear();
+        while (!dueBuckets.isEmpty() && dueBuckets.peek().expiration <= nowMs) {
+            Bucket<T> bucket = dueBuckets.poll();
+            root.advanceClock(bucket.expiration);
+            for (Timeout<T> timeout : bucket.drain()) {
+                // Cascades into a finer wheel, or expires if it is due within the current tick
+                if (!root.add(timeout)) {
+                    expire(timeout, expired);
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void expire(Timeout<T> timeout, List<T> expired) {
+        timeout.done = true;
+        size--;
+        expired.add(timeout.payload);
+    }
+
+    /**
+     * Handle for a scheduled deadline, used to cancel it.
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineMs;
+        private final long expiryKey;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private volatile boolean done;
+
+        private Timeout(T payload, long deadlineMs, long expiryKey) {
+            this.payload = payload;
+            this.deadlineMs = deadlineMs;
+            this.expiryKey = expiryKey;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+
+        // Expired or cancelled
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    private final class Wheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long intervalMs;
+        private final List<Bucket<T>> buckets;
+        private long currentTime;
+        private Wheel overflow;
+
+        private Wheel(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.intervalMs = tickMs * wheelSize;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket<>());
+            }
+        }
+
+        // Returns false when the deadline falls within the current tick, i.e. it is due
+        private boolean add(Timeout<T> timeout) {
+            if (timeout.expiryKey < currentTime + tickMs) {
+                return false;
+            }
+            if (timeout.expiryKey < currentTime + intervalMs) {
+                long virtualId = timeout.expiryKey / tickMs;
+                Bucket<T> bucket = buckets.get((int) (virtualId % wheelSize));
+                bucket.add(timeout);
+                // A bucket is reused only after it has been drained, so it is queued once per expiration
+                if (bucket.expiration != virtualId * tickMs) {
+                    bucket.expiration = virtualId * tickMs;
+                    dueBuckets.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Wheel(intervalMs, wheelSize, currentTime);
+            }
+            return overflow.add(timeout);
+        }
+
+        private void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    // Intrusive doubly-linked list, so removal by handle is O(1)
+    private static final class Bucket<T> {
+        private final Timeout<T> head = new Timeout<>(null, -1, -1);
+        private long expiration = -1;
+
+        private Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private List<Timeout<T>> drain() {
+            List<Timeout<T>> entries = new ArrayList<>();
+            Timeout<T> current = head.next;
+            while (current != head) {
+                Timeout<T> next = current.next;
+                remove(current);
+                entries.add(current);
+                current = next;
+            }
+            expiration = -1;
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.kalakriti.order.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kalakriti.order.entity.Order.OrderStatus;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class OrderStatusTest {
+
+    @Test
+    void nextStatusesFollowTheFulfilmentFlow() {
+        assertEquals(EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.CANCELLED), OrderStatus.PENDING.nextStatuses());
+        assertEquals(EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED), OrderStatus.CONFIRMED.nextStatuses());
+        assertEquals(EnumSet.of(OrderStatus.DELIVERED), OrderStatus.SHIPPED.nextStatuses());
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.DELIVERED.nextStatuses());
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.CANCELLED.nextStatuses());
+    }
+
+    @Test
+    void noStatusTransitionsToItselfOrBackToPending() {
+        for (OrderStatus status : OrderStatus.values()) {
+            assertFalse(status.canTransitionTo(status), status.name());
+            assertFalse(status.canTransitionTo(OrderStatus.PENDING), status.name());
+        }
+    }
+
+    @Test
+    void shippedOrdersCanNoLongerBeCancelled() {
+        assertFalse(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void sourcesOfIsTheInverseOfNextStatuses() {
+        for (OrderStatus target : OrderStatus.values()) {
+            Set<OrderStatus> sources = OrderStatus.sourcesOf(target);
+            for (OrderStatus status : OrderStatus.values()) {
+                assertEquals(status.nextStatuses().contains(target), sources.contains(status),
+                        status + " -> " + target);
+            }
+        }
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.sourcesOf(OrderStatus.PENDING));
+        assertEquals(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED), OrderStatus.sourcesOf(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void everyStatusIsReachableFromPending() {
+        Set<OrderStatus> reached = EnumSet.of(OrderStatus.PENDING);
+        Deque<OrderStatus> queue = new ArrayDeque<>(reached);
+        while (!queue.isEmpty()) {
+            for (OrderStatus next : queue.poll().nextStatuses()) {
+                if (reached.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        assertEquals(EnumSet.allOf(OrderStatus.class), reached);
+    }
+}
@@ -0,0 +1,116 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderCreateDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Deleting an order takes it out of the artist sales rollups, once, and publishes
+ * the deletion through the outbox.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderDeletionTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_deletion");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void deletingALiveOrderReversesItsSales() throws Exception {
+        Long artistId = 11L;
+        Order kept = createOrder(artistId, 2);
+        Order deleted = createOrder(artistId, 3);
+        orderService.updateOrderStatus(deleted.getId(), Order.OrderStatus.CONFIRMED);
+        assertEquals(5L, units(artistId));
+
+        orderService.deleteOrder(deleted.getId());
+
+        assertEquals(2L, units(artistId));
+        assertEquals(1L, orderCount(artistId));
+        JsonNode event = lastEvent(deleted.getId());
+        assertEquals("DELETED", event.get("reason").asText());
+        assertEquals("CONFIRMED", event.get("previousStatus").asText());
+        assertTrue(event.get("status").isNull());
+        assertEquals(Order.OrderStatus.PENDING, orderService.getOrderById(kept.getId()).getStatus());
+    }
+
+    @Test
+    void deletingACancelledOrderDoesNotReverseItTwice() throws Exception {
+        Long artistId = 12L;
+        createOrder(artistId, 1);
+        Order cancelled = createOrder(artistId, 4);
+        orderService.updateOrderStatus(cancelled.getId(), Order.OrderStatus.CANCELLED);
+        assertEquals(1L, units(artistId));
+
+        orderService.deleteOrder(cancelled.getId());
+
+        assertEquals(1L, units(artistId));
+        assertEquals("CANCELLED", lastEvent(cancelled.getId()).get("previousStatus").asText());
+    }
+
+    private Order createOrder(Long artistId, int quantity) {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setArtistId(artistId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal("10.00"));
+        OrderCreateDTO order = new OrderCreateDTO();
+        order.setCustomerId(5L);
+        order.setTotalAmount(new BigDecimal("10.00").multiply(BigDecimal.valueOf(quantity)));
+        order.setItems(List.of(item));
+        return orderService.createOrder(mappingService.toOrder(order));
+    }
+
+    private long units(Long artistId) {
+        return rollup(artistId).get("units");
+    }
+
+    private long orderCount(Long artistId) {
+        return rollup(artistId).get("order_count");
+    }
+
+    private Map<String, Long> rollup(Long artistId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(units), 0) AS units, "
+                + "COALESCE(SUM(order_count), 0) AS order_count FROM artist_daily_sales WHERE artist_id = ?",
+                (rs, row) -> Map.of("units", rs.getLong("units"), "order_count", rs.getLong("order_count")), artistId);
+    }
+
+    private JsonNode lastEvent(Long orderId) throws Exception {
+        return objectMapper.readTree(jdbcTemplate.queryForObject(
+                "SELECT payload FROM order_outbox WHERE order_id = ? ORDER BY id DESC LIMIT 1", String.class, orderId));
+    }
+}
@@ -0,0 +1,134 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderCreateDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Orders past their payment window are only cancelled when payment-service knows of
+ * no payment for them; paid ones are confirmed and ones with a payment in flight wait.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderExpiryTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_expiry");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        // Every order is due as soon as it is created
+        registry.add("order.expiry.pending-ttl-minutes", () -> "0");
+        registry.add("order.expiry.tick-ms", () -> "20");
+        registry.add("order.expiry.retry-delay-ms", () -> "200");
+    }
+
+    @MockBean
+    private PaymentStatusClient paymentStatusClient;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    // What payment-service answers, per customer, so it is in place before the order's
+    // deadline fires
+    private final Map<Long, PaymentStatusClient.PaymentState> payments = new ConcurrentHashMap<>();
+    private volatile boolean paymentServiceDown;
+
+    @BeforeEach
+    void answerFromThePaymentsMap() {
+        when(paymentStatusClient.paymentStates(anyList())).thenAnswer(invocation -> {
+            if (paymentServiceDown) {
+                throw new IllegalStateException("payment-service unavailable");
+            }
+            Map<Long, PaymentStatusClient.PaymentState> states = new HashMap<>();
+            for (Long orderId : invocation.<List<Long>>getArgument(0)) {
+                PaymentStatusClient.PaymentState state = payments.get(
+                        orderService.getOrderById(orderId).getCustomerId());
+                if (state != null) {
+                    states.put(orderId, state);
+                }
+            }
+            return states;
+        });
+    }
+
+    @Test
+    void paidOrdersAreConfirmedAndOnlyUnpaidOnesCancelled() throws InterruptedException {
+        Order paid = createOrder(1L, PaymentStatusClient.PaymentState.PAID);
+        Order inFlight = createOrder(2L, PaymentStatusClient.PaymentState.IN_FLIGHT);
+        Order unpaid = createOrder(3L, null);
+
+        await(() -> status(paid) == Order.OrderStatus.CONFIRMED && status(unpaid) == Order.OrderStatus.CANCELLED);
+        assertEquals(Order.OrderStatus.PENDING, status(inFlight));
+
+        // Checked again once the payment has settled
+        payments.put(inFlight.getCustomerId(), PaymentStatusClient.PaymentState.PAID);
+        await(() -> status(inFlight) == Order.OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    void nothingIsCancelledWhilePaymentServiceIsDown() throws InterruptedException {
+        paymentServiceDown = true;
+        Order unpaid = createOrder(4L, null);
+
+        Thread.sleep(300);
+        assertEquals(Order.OrderStatus.PENDING, status(unpaid));
+
+        paymentServiceDown = false;
+        await(() -> status(unpaid) == Order.OrderStatus.CANCELLED);
+    }
+
+    private Order createOrder(Long customerId, PaymentStatusClient.PaymentState payment) {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("25.00"));
+        OrderCreateDTO order = new OrderCreateDTO();
+        order.setCustomerId(customerId);
+        order.setTotalAmount(new BigDecimal("25.00"));
+        order.setItems(List.of(item));
+        if (payment != null) {
+            payments.put(customerId, payment);
+        }
+        return orderService.createOrder(mappingService.toOrder(order));
+    }
+
+    private Order.OrderStatus status(Order order) {
+        return orderService.getOrderById(order.getId()).getStatus();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("condition not reached in 5 seconds");
+    }
+}
@@ -0,0 +1,137 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Order throughput with one commit per order ({@link OrderService#createOrder})
+ * against group commit ({@link OrderService#createOrders}, as the intake workers
+ * use it), at several concurrency levels. Not part of the regular test run:
+ * <pre>mvn test -pl order-service -Dtest=OrderGroupCommitBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderGroupCommitBenchmark {
+
+    private static final int[] CONCURRENCY = {1, 4, 16, 32};
+    private static final int ORDERS_PER_RUN = 4000;
+    private static final int BATCH_SIZE = 100;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_group_commit");
+        // The embedded server acknowledges commits before they are flushed; a
+        // commit here has to wait for its WAL flush as in production
+        try (Connection connection = DriverManager.getConnection(url, TestDatabases.USERNAME, TestDatabases.PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER DATABASE " + connection.getCatalog() + " SET synchronous_commit = on");
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> CONCURRENCY[CONCURRENCY.length - 1]);
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong customerIds = new AtomicLong();
+
+    @Test
+    void groupCommitOutrunsOneCommitPerOrder() throws Exception {
+        // Warms up the pool, the JIT and Hibernate's statement caches
+        run(4, 1);
+        run(4, BATCH_SIZE);
+
+        System.out.printf(Locale.ROOT, "%n%12s %18s %18s %8s%n", "concurrency", "per-order (ord/s)",
+                "batched (ord/s)", "speedup");
+        for (int threads : CONCURRENCY) {
+            double perOrder = run(threads, 1);
+            double batched = run(threads, BATCH_SIZE);
+            System.out.printf(Locale.ROOT, "%12d %18.0f %18.0f %7.1fx%n", threads, perOrder, batched, batched / perOrder);
+            if (threads == 1) {
+                assertTrue(batched > perOrder, "a batch pays for one commit instead of " + BATCH_SIZE);
+            }
+        }
+    }
+
+    // Orders per second for ORDERS_PER_RUN orders; a batch size of 1 commits each order on its own
+    private double run(int threads, int batchSize) throws Exception {
+        long before = orderCount();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong remaining = new AtomicLong(ORDERS_PER_RUN);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    long claimed;
+                    while ((claimed = Math.min(batchSize, remaining.getAndAdd(-batchSize))) > 0) {
+                        if (batchSize == 1) {
+                            orderService.createOrder(newOrder());
+                        } else {
+                            List<Order> batch = new ArrayList<>((int) claimed);
+                            for (int n = 0; n < claimed; n++) {
+                                batch.add(newOrder());
+                            }
+                            orderService.createOrders(batch);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertEquals(before + ORDERS_PER_RUN, orderCount());
+        return ORDERS_PER_RUN / seconds;
+    }
+
+    private Order newOrder() {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("25.00"));
+        return mappingService.toOrder(customerIds.incrementAndGet(), List.of(item), null, null);
+    }
+
+    private long orderCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+    }
+}
@@ -0,0 +1,110 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderCreateDTO;
+import com.kalakriti.order.dto.OrderIntakeStatusDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Intake status tickets stay within {@code order.intake.max-tickets}: the oldest
+ * completed ones make room first, and orders are turned away only while every
+ * ticket is still waiting to be persisted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderIntakeTicketsTest {
+
+    private static final int MAX_TICKETS = 3;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_intake_tickets");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("order.intake.max-tickets", () -> String.valueOf(MAX_TICKETS));
+    }
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void oldestCompletedTicketsMakeRoomAndPendingOnesAreNeverDropped() throws Exception {
+        List<String> completed = new ArrayList<>();
+        for (int i = 0; i < MAX_TICKETS; i++) {
+            String handle = submit().getHandle();
+            awaitPersisted(handle);
+            completed.add(handle);
+        }
+
+        List<String> pending = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            // Holds the intake workers' inserts so the new tickets stay queued
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE orders IN EXCLUSIVE MODE");
+            }
+
+            for (int i = 0; i < MAX_TICKETS; i++) {
+                pending.add(submit().getHandle());
+                // Each new ticket pushed out the oldest completed one
+                assertTrue(orderIntakeService.getStatus(completed.get(i)).isEmpty());
+            }
+            assertThrows(IllegalStateException.class, this::submit);
+
+            connection.rollback();
+        }
+
+        for (String handle : pending) {
+            awaitPersisted(handle);
+        }
+    }
+
+    private OrderIntakeStatusDTO submit() {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("15.00"));
+        OrderCreateDTO order = new OrderCreateDTO();
+        order.setCustomerId(8L);
+        order.setTotalAmount(new BigDecimal("15.00"));
+        order.setItems(List.of(item));
+        return orderIntakeService.submit(mappingService.toOrder(order));
+    }
+
+    private void awaitPersisted(String handle) throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            OrderIntakeStatusDTO status = orderIntakeService.getStatus(handle).orElseThrow();
+            if (status.getState() != OrderIntakeStatusDTO.State.QUEUED) {
+                assertEquals(OrderIntakeStatusDTO.State.PERSISTED, status.getState());
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("order not persisted in 5 seconds");
+    }
+}
@@ -0,0 +1,195 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderCreateDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Races many threads through {@link OrderService#updateOrderStatus} on one order.
+ * Every committed change must be a single compare-and-set with exactly one outbox
+ * event, however many threads asked for it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderStatusConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    private static ExecutorService pool;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_status");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS + 4);
+    }
+
+    @BeforeAll
+    static void startPool() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void theSameTransitionRequestedByEveryThreadCommitsOnce() throws Exception {
+        Long orderId = createOrder(1L);
+        long versionBefore = version(orderId);
+
+        List<Throwable> failures = race(THREADS, thread -> orderService.updateOrderStatus(orderId, Order.OrderStatus.CONFIRMED));
+
+        assertEquals(List.of(), failures);
+        assertEquals(Order.OrderStatus.CONFIRMED, orderService.getOrderById(orderId).getStatus());
+        assertEquals(versionBefore + 1, version(orderId), "one compare-and-set won");
+        assertEquals(List.of("PENDING->CONFIRMED"), statusEvents(orderId));
+    }
+
+    @Test
+    void competingTransitionsHaveOneWinnerEach() throws Exception {
+        Long orderId = createOrder(2L);
+        long versionBefore = version(orderId);
+
+        // Half confirm, half cancel: either PENDING->CANCELLED, or PENDING->CONFIRMED->CANCELLED
+        List<Throwable> failures = race(THREADS, thread -> orderService.updateOrderStatus(orderId,
+                thread % 2 == 0 ? Order.OrderStatus.CONFIRMED : Order.OrderStatus.CANCELLED));
+
+        failures.forEach(failure -> assertTrue(failure instanceof IllegalStateException, failure.toString()));
+        assertEquals(Order.OrderStatus.CANCELLED, orderService.getOrderById(orderId).getStatus());
+        List<String> events = statusEvents(orderId);
+        assertTrue(events.equals(List.of("PENDING->CANCELLED"))
+                || events.equals(List.of("PENDING->CONFIRMED", "CONFIRMED->CANCELLED")), events.toString());
+        assertEquals(versionBefore + events.size(), version(orderId), "one event per committed change");
+    }
+
+    @Test
+    void everyStepOfTheLifecycleIsCommittedOnce() throws Exception {
+        Long orderId = createOrder(3L);
+        long versionBefore = version(orderId);
+        List<Order.OrderStatus> lifecycle = List.of(Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED,
+                Order.OrderStatus.DELIVERED);
+
+        List<Throwable> failures = race(THREADS, thread -> {
+            for (Order.OrderStatus status : lifecycle) {
+                // A thread that lost every attempt on a step retries it; an order already
+                // past the step rejects it, and the thread moves on
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    try {
+                        orderService.updateOrderStatus(orderId, status);
+                        break;
+                    } catch (IllegalStateException ex) {
+                        if (!ex.getMessage().contains("concurrently")) {
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(List.of(), failures);
+        assertEquals(Order.OrderStatus.DELIVERED, orderService.getOrderById(orderId).getStatus());
+        assertEquals(List.of("PENDING->CONFIRMED", "CONFIRMED->SHIPPED", "SHIPPED->DELIVERED"), statusEvents(orderId));
+        assertEquals(versionBefore + 3, version(orderId));
+    }
+
+    // Starts every thread at once; returns what they threw
+    private List<Throwable> race(int threads, ThreadWork work) throws Exception {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            futures.add(pool.submit(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    work.run(thread);
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            }));
+        }
+        ready.await();
+        go.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return new ArrayList<>(failures);
+    }
+
+    private Long createOrder(Long customerId) {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("25.00"));
+        OrderCreateDTO order = new OrderCreateDTO();
+        order.setCustomerId(customerId);
+        order.setTotalAmount(new BigDecimal("25.00"));
+        order.setItems(List.of(item));
+        return orderService.createOrder(mappingService.toOrder(order)).getId();
+    }
+
+    private long version(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, orderId);
+    }
+
+    // "PREVIOUS->STATUS" per status event, in commit order; each transition must appear once
+    private List<String> statusEvents(Long orderId) throws Exception {
+        List<String> events = new ArrayList<>();
+        for (String payload : jdbcTemplate.queryForList("SELECT payload FROM order_outbox "
+                + "WHERE order_id = ? AND event_type = 'ORDER_STATUS_CHANGED' ORDER BY id", String.class, orderId)) {
+            JsonNode event = objectMapper.readTree(payload);
+            events.add(event.get("previousStatus").asText() + "->" + event.get("status").asText());
+        }
+        Set<String> distinct = new HashSet<>(events);
+        assertEquals(distinct.size(), events.size(), "a transition was published twice: " + events);
+        return events;
+    }
+
+    private interface ThreadWork {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,105 @@
+package com.kalakriti.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.OrderCreateDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.repository.OrderRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A rebuild chunk read before a concurrent status change must not overwrite the view
+ * that change wrote, whether it went through a single update or a bulk transition.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderViewBackfillTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("order_view_backfill");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkService orderBulkService;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void staleRebuildChunksLeaveNewerViewsAlone() throws Exception {
+        Long id = createOrder().getId();
+        // What a rebuild chunk read before the changes below would hold
+        List<Order> stale = orderRepository.findWithItemsByIdIn(List.of(id));
+
+        orderService.updateOrderStatus(id, Order.OrderStatus.CONFIRMED);
+        refreshAll(stale);
+        assertEquals("CONFIRMED", viewStatus(id));
+
+        orderBulkService.transition(List.of(id), Order.OrderStatus.SHIPPED);
+        List<Order> shipped = orderRepository.findWithItemsByIdIn(List.of(id));
+        refreshAll(stale);
+        assertEquals("SHIPPED", viewStatus(id));
+
+        // A rebuild from the current order still rewrites the view
+        jdbcTemplate.update("UPDATE order_views SET document = jsonb_set(document, '{status}', '\"PENDING\"') "
+                + "WHERE order_id = ?", id);
+        refreshAll(shipped);
+        assertEquals("SHIPPED", viewStatus(id));
+    }
+
+    private void refreshAll(List<Order> orders) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> orderViewService.refreshAll(orders));
+    }
+
+    private String viewStatus(Long id) throws Exception {
+        return objectMapper.readTree(orderViewService.findDocument(id).orElseThrow()).get("status").asText();
+    }
+
+    private Order createOrder() {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(1L);
+        item.setProductName("Print");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("20.00"));
+        OrderCreateDTO order = new OrderCreateDTO();
+        order.setCustomerId(6L);
+        order.setTotalAmount(new BigDecimal("20.00"));
+        order.setItems(List.of(item));
+        return orderService.createOrder(mappingService.toOrder(order));
+    }
+}
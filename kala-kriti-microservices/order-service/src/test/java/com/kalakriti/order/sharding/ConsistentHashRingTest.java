@@ -0,0 +1,67 @@
+package com.kalakriti.order.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void placementDependsOnlyOnMembershipNotOrderOrInstance() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "a", "b"), 128);
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(ring.shardFor(key), reordered.shardFor(key));
+        }
+    }
+
+    @Test
+    void virtualNodesSpreadKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 0; key < KEYS; key++) {
+            counts.merge(ring.shardFor(key), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        counts.forEach((member, count) ->
+                assertTrue(count > KEYS / 3 * 0.75 && count < KEYS / 3 * 1.25, member + " holds " + count));
+    }
+
+    @Test
+    void addingAMemberMovesOnlyKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            if (!before.shardFor(key).equals(after.shardFor(key))) {
+                assertEquals("d", after.shardFor(key), "key " + key + " moved between old members");
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS / 4 * 0.75 && moved < KEYS / 4 * 1.25, "moved " + moved);
+    }
+
+    @Test
+    void removingAMemberMovesOnlyItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "c"), 128);
+        for (long key = 0; key < KEYS; key++) {
+            if (!before.shardFor(key).equals("b")) {
+                assertEquals(before.shardFor(key), after.shardFor(key));
+            }
+        }
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("a"), 0));
+    }
+}
@@ -0,0 +1,62 @@
+package com.kalakriti.order.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class ShardRouterTest {
+
+    @Test
+    void idRangesDoNotOverlapAndNameTheirShard() {
+        for (int index = 0; index < 8; index++) {
+            long start = ShardRouter.rangeStart(index);
+            long end = ShardRouter.rangeStart(index + 1) - 1;
+            assertEquals(index, ShardRouter.rangeIndexOf(start));
+            assertEquals(index, ShardRouter.rangeIndexOf(start + 1));
+            assertEquals(index, ShardRouter.rangeIndexOf(end));
+            assertEquals(1L << ShardRouter.ID_RANGE_BITS, end - start + 1);
+        }
+        // Ids issued before sharding was enabled belong to the primary
+        assertEquals(0, ShardRouter.rangeIndexOf(1L));
+        assertEquals(0, ShardRouter.rangeIndexOf(123_456_789L));
+    }
+
+    @Test
+    void mergeSortsAcrossPartsDropsDuplicatesAndKeepsTheLimit() {
+        List<List<Long>> parts = List.of(List.of(1L, 4L, 7L, 9L), List.of(2L, 4L, 8L), List.of(3L, 5L));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ShardRouter.merge(parts, Comparator.naturalOrder(),
+                id -> id, 5));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 7L, 8L, 9L), ShardRouter.merge(parts, Comparator.naturalOrder(),
+                id -> id, 100));
+        assertEquals(List.of(9L, 8L, 7L), ShardRouter.merge(parts, Comparator.<Long>reverseOrder(),
+                id -> id, 3));
+    }
+
+    @Test
+    void mergeReturnsASinglePartAsIs() {
+        List<Long> only = List.of(3L, 1L);
+        assertSame(only, ShardRouter.merge(List.of(only), Comparator.naturalOrder(), id -> id, 1));
+    }
+
+    @Test
+    void disabledRouterRunsWorkUnbound() {
+        ShardRouter router = new ShardRouter(new ShardingProperties(),
+                new StaticListableBeanFactory().getBeanProvider(ShardRoutingDataSource.class));
+        router.start();
+
+        assertEquals(false, router.isEnabled());
+        assertEquals("done", router.callForCustomer(7L, () -> ShardContext.current() == null ? "done" : "bound"));
+        assertEquals(List.of(42), router.scatter(() -> 42));
+        List<String> shards = new ArrayList<>();
+        router.forEachCustomerShard(List.of(1L, 2L, 3L), Function.identity(),
+                (shard, group) -> shards.add(shard + ":" + group));
+        assertEquals(List.of("null:[1, 2, 3]"), shards);
+    }
+}
@@ -0,0 +1,232 @@
+package com.kalakriti.order.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kalakriti.order.TestDatabases;
+import com.kalakriti.order.dto.KeysetPageDTO;
+import com.kalakriti.order.dto.OrderItemCreateDTO;
+import com.kalakriti.order.dto.OrderSearchCriteria;
+import com.kalakriti.order.dto.OrderSummaryDTO;
+import com.kalakriti.order.dto.ShardStatusDTO;
+import com.kalakriti.order.entity.Order;
+import com.kalakriti.order.service.CartService;
+import com.kalakriti.order.service.OrderMappingService;
+import com.kalakriti.order.service.OrderService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Runs the service against two real shards (databases on an embedded PostgreSQL)
+ * and checks routing, scatter reads and a rebalance end to end. The context is
+ * closed with the class: the shard pools do not take the test profile's short
+ * connection timeout and would otherwise hold up the exit once the server stops.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class ShardingIntegrationTest {
+
+    private static final List<String> SHARDS = List.of("shard0", "shard1");
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        registry.add("order.sharding.enabled", () -> "true");
+        for (int i = 0; i < SHARDS.size(); i++) {
+            String name = SHARDS.get(i);
+            String url = TestDatabases.create("sharding_" + name);
+            String prefix = "order.sharding.shards[" + i + "].";
+            registry.add(prefix + "name", () -> name);
+            registry.add(prefix + "url", () -> url);
+            registry.add(prefix + "username", () -> TestDatabases.USERNAME);
+            registry.add(prefix + "password", () -> TestDatabases.PASSWORD);
+        }
+    }
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMappingService mappingService;
+
+    @Autowired
+    private CartService cartService;
+
+    // The mock request bound around each test is never completed, so the binding a
+    // routed call leaves for it would outlive the test
+    @AfterEach
+    void clearLingeringShard() {
+        ShardContext.clear();
+    }
+
+    @Test
+    void ordersAreWrittenToAndReadFromTheirCustomersShard() {
+        Map<Long, Order> orders = createOrders(1000, 40, new BigDecimal("10.00"));
+
+        Set<String> used = new HashSet<>();
+        orders.forEach((customerId, order) -> {
+            String shard = shardRouter.shardForCustomer(customerId);
+            used.add(shard);
+            assertEquals(shard, shardRouter.shardOfId(order.getId()), "id issued by the customer's shard");
+            for (String other : SHARDS) {
+                assertEquals(other.equals(shard) ? 1 : 0, countOrders(other, order.getId()));
+            }
+            assertEquals(customerId, orderService.getOrderById(order.getId()).getCustomerId());
+            assertEquals(List.of(order.getId()), orderService.getOrdersByCustomer(customerId).stream()
+                    .map(Order::getId).collect(Collectors.toList()));
+        });
+        assertEquals(Set.copyOf(SHARDS), used, "40 customers land on both shards");
+
+        long unknown = (1L << ShardRouter.ID_RANGE_BITS) + 999_999;
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrderById(unknown));
+    }
+
+    @Test
+    void scatterReadsMergeEveryShardInOrder() {
+        BigDecimal amount = new BigDecimal("77.00");
+        Map<Long, Order> orders = createOrders(2000, 30, amount);
+        Set<Long> ids = orders.values().stream().map(Order::getId).collect(Collectors.toSet());
+
+        Set<Long> all = orderService.getAllOrders().stream().map(Order::getId).collect(Collectors.toSet());
+        assertTrue(all.containsAll(ids));
+
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setMinAmount(amount);
+        criteria.setMaxAmount(amount);
+        criteria.setAscending(true);
+        List<OrderSummaryDTO> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPageDTO<OrderSummaryDTO> page = orderService.searchOrders(criteria, cursor, 7);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(ids, paged.stream().map(OrderSummaryDTO::getId).collect(Collectors.toSet()));
+        assertEquals(ids.size(), paged.size(), "no order on two pages");
+        for (int i = 1; i < paged.size(); i++) {
+            OrderSummaryDTO previous = paged.get(i - 1);
+            OrderSummaryDTO current = paged.get(i);
+            assertFalse(current.getCreatedAt().isBefore(previous.getCreatedAt()), "pages are merged in created_at order");
+        }
+
+        Map<String, List<Long>> located = shardRouter.locateOrders(new ArrayList<>(ids));
+        located.forEach((shard, shardIds) -> shardIds.forEach(id -> assertEquals(1, countOrders(shard, id))));
+    }
+
+    @Test
+    void rebalanceMovesCustomersAndKeepsTheirOrdersReachable() throws InterruptedException {
+        Map<Long, Order> orders = createOrders(3000, 30, new BigDecimal("5.00"));
+        List<Long> movers = orders.keySet().stream()
+                .filter(customerId -> shardRouter.shardForCustomer(customerId).equals("shard1"))
+                .collect(Collectors.toList());
+        assertFalse(movers.isEmpty());
+        Long cartOwner = movers.get(0);
+        cartService.addItem(cartOwner, item(42L, new BigDecimal("3.00")));
+        cartService.flush();
+        assertEquals(1, count("shard1", "SELECT COUNT(*) FROM carts WHERE customer_id = ?", cartOwner));
+
+        // Retire shard1: its customers move to shard0, their order ids still name shard1
+        rebalance(List.of("shard0"));
+        for (Long customerId : movers) {
+            Long orderId = orders.get(customerId).getId();
+            assertEquals("shard1", shardRouter.shardOfId(orderId));
+            assertEquals("shard0", shardRouter.shardForCustomer(customerId));
+            assertEquals(0, countOrders("shard1", orderId));
+            assertEquals(1, countOrders("shard0", orderId));
+            assertEquals(customerId, orderService.getOrderById(orderId).getCustomerId());
+        }
+        List<Long> movedIds = movers.stream().map(customerId -> orders.get(customerId).getId()).collect(Collectors.toList());
+        assertEquals(Map.of("shard0", movedIds), shardRouter.locateOrders(movedIds));
+        assertEquals(movedIds.size(), count("shard0",
+                "SELECT COUNT(*) FROM shard_relocated_orders WHERE shard = ?", "shard0"));
+        assertEquals(1, count("shard0", "SELECT COUNT(*) FROM carts WHERE customer_id = ?", cartOwner));
+        assertEquals(0, count("shard1", "SELECT COUNT(*) FROM carts WHERE customer_id = ?", cartOwner));
+
+        // Routed by the relocation, not the id range
+        Long moved = movedIds.get(0);
+        assertEquals(Order.OrderStatus.CONFIRMED,
+                orderService.updateOrderStatus(moved, Order.OrderStatus.CONFIRMED).getStatus());
+        Order placedWhileAway = createOrder(movers.get(0), new BigDecimal("5.00"));
+        assertEquals("shard0", shardRouter.shardOfId(placedWhileAway.getId()));
+
+        // Bring shard1 back: the customers return and their orders are home again
+        rebalance(SHARDS);
+        for (Long customerId : movers) {
+            assertEquals("shard1", shardRouter.shardForCustomer(customerId));
+            assertEquals(1, countOrders("shard1", orders.get(customerId).getId()));
+        }
+        assertEquals(Order.OrderStatus.CONFIRMED, orderService.getOrderById(moved).getStatus());
+        assertEquals(movers.get(0), orderService.getOrderById(placedWhileAway.getId()).getCustomerId());
+        assertEquals(List.of(placedWhileAway.getId()), shardRouter.jdbcFor("shard0").queryForList(
+                "SELECT order_id FROM shard_relocated_orders", Long.class), "only the order issued by shard0 is away");
+        assertEquals(1, count("shard1", "SELECT COUNT(*) FROM carts WHERE customer_id = ?", cartOwner));
+    }
+
+    private void rebalance(List<String> members) throws InterruptedException {
+        shardRebalancer.rebalance(members);
+        ShardStatusDTO status = shardRebalancer.getStatus();
+        for (int i = 0; i < 300 && status.getRebalanceState() != ShardStatusDTO.RebalanceState.COMPLETED
+                && status.getRebalanceState() != ShardStatusDTO.RebalanceState.FAILED; i++) {
+            Thread.sleep(100);
+            status = shardRebalancer.getStatus();
+        }
+        assertEquals(ShardStatusDTO.RebalanceState.COMPLETED, status.getRebalanceState(), status.getRebalanceError());
+        assertEquals(0, status.getFailedCustomers());
+        assertEquals(0, status.getPinnedCustomers());
+        assertEquals(members, status.getRingMembers());
+    }
+
+    private Map<Long, Order> createOrders(long firstCustomer, int customers, BigDecimal price) {
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        for (long customerId = firstCustomer; customerId < firstCustomer + customers; customerId++) {
+            orders.put(customerId, createOrder(customerId, price));
+        }
+        return orders;
+    }
+
+    private Order createOrder(Long customerId, BigDecimal price) {
+        Order order = orderService.createOrder(mappingService.toOrder(customerId, List.of(item(1L, price)), null, null));
+        assertNotNull(order.getId());
+        return order;
+    }
+
+    private static OrderItemCreateDTO item(Long productId, BigDecimal price) {
+        OrderItemCreateDTO item = new OrderItemCreateDTO();
+        item.setProductId(productId);
+        item.setProductName("Print " + productId);
+        item.setQuantity(1);
+        item.setPrice(price);
+        return item;
+    }
+
+    private long countOrders(String shard, Long orderId) {
+        return count(shard, "SELECT COUNT(*) FROM orders WHERE id = ?", orderId);
+    }
+
+    private long count(String shard, String sql, Object arg) {
+        return shardRouter.jdbcFor(shard).queryForObject(sql, Long.class, arg);
+    }
+}
@@ -0,0 +1,124 @@
+package com.kalakriti.order.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final long START_MS = 1_000_003;
+
+    @Test
+    void firesNoEarlierThanTheDeadlineAndWithinOneTickAfterIt() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, START_MS);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        // Up to ~16 hours out with 8-slot wheels, so entries cascade through several levels
+        for (long id = 0; id < 5_000; id++) {
+            long deadline = START_MS + 1 + (long) (Math.pow(random.nextDouble(), 4) * 60_000_000L);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+        assertEquals(5_000, wheel.size());
+
+        // Unfired entries by deadline, so the earliest one shows whether anything is late
+        TreeSet<long[]> pending = new TreeSet<>(Comparator.<long[]>comparingLong(entry -> entry[1])
+                .thenComparingLong(entry -> entry[0]));
+        deadlines.forEach((id, deadline) -> pending.add(new long[]{id, deadline}));
+        Set<Long> fired = new HashSet<>();
+        long now = START_MS;
+        while (!pending.isEmpty()) {
+            now += 1 + random.nextInt((int) TICK_MS * 2_000);
+            for (Long id : wheel.advanceTo(now)) {
+                assertTrue(deadlines.get(id) <= now, "entry " + id + " fired early");
+                assertTrue(fired.add(id), "entry " + id + " fired twice");
+                pending.remove(new long[]{id, deadlines.get(id)});
+            }
+            if (!pending.isEmpty()) {
+                long[] earliest = pending.first();
+                assertTrue(earliest[1] + TICK_MS - 1 > now, "entry " + earliest[0] + " is late at " + now);
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancingOneMillisecondAtATimeFiresInTheDeadlinesTick() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, 4, 0);
+        List<Long> deadlines = List.of(1L, 9L, 10L, 11L, 39L, 40L, 41L, 159L, 160L, 700L, 2_561L);
+        deadlines.forEach(deadline -> wheel.schedule(deadline, deadline));
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 1; now <= 3_000; now++) {
+            for (Long deadline : wheel.advanceTo(now)) {
+                firedAt.put(deadline, now);
+            }
+        }
+        for (Long deadline : deadlines) {
+            long at = firedAt.get(deadline);
+            assertTrue(at >= deadline && at < deadline + TICK_MS, deadline + " fired at " + at);
+        }
+    }
+
+    @Test
+    void cancelledEntriesNeverFire() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 0);
+        HierarchicalTimingWheel.Timeout<String> near = wheel.schedule("near", 25);
+        HierarchicalTimingWheel.Timeout<String> far = wheel.schedule("far", 50_000);
+        wheel.schedule("kept", 30);
+
+        assertTrue(wheel.cancel(near));
+        assertTrue(wheel.cancel(far));
+        assertFalse(wheel.cancel(near), "already cancelled");
+        assertTrue(near.isDone());
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        for (long now = 0; now <= 60_000; now += 5) {
+            fired.addAll(wheel.advanceTo(now));
+        }
+        assertEquals(List.of("kept"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiredEntriesCannotBeCancelled() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 0);
+        HierarchicalTimingWheel.Timeout<String> timeout = wheel.schedule("a", 15);
+        assertEquals(List.of("a"), wheel.advanceTo(30));
+        assertTrue(timeout.isDone());
+        assertFalse(wheel.cancel(timeout));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesAlreadyPassedFireOnTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 1_000);
+        wheel.schedule("past", 500);
+        wheel.schedule("this tick", 1_000);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 400);
+        wheel.cancel(cancelled);
+
+        assertEquals(List.of("past", "this tick"), wheel.advanceTo(1_000));
+        assertEquals(List.of(), wheel.advanceTo(1_001));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsDegenerateWheels() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(10, 1, 0));
+    }
+}
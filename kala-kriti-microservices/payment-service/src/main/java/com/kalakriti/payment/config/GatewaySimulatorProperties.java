@@ -0,0 +1,130 @@
+package com.kalakriti.payment.config;
+
+import com.kalakriti.payment.entity.Payment;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "payment.gateway.simulator")
+public class GatewaySimulatorProperties {
+
+    private int schedulerThreads = 4;
+    private Profile defaultProfile = new Profile();
+    // Methods without a profile use the default one
+    private Map<Payment.PaymentMethod, Profile> methods = new EnumMap<>(Payment.PaymentMethod.class);
+
+    public enum Latency {
+        FIXED, NORMAL, LONG_TAIL
+    }
+
+    // Getters and Setters
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public Profile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    public void setDefaultProfile(Profile defaultProfile) {
+        this.defaultProfile = defaultProfile;
+    }
+
+    public Map<Payment.PaymentMethod, Profile> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Map<Payment.PaymentMethod, Profile> methods) {
+        this.methods = methods;
+    }
+
+    public Profile profileFor(Payment.PaymentMethod method) {
+        return method != null ? methods.getOrDefault(method, defaultProfile) : defaultProfile;
+    }
+
+    /**
+     * How the simulated provider behaves. {@code latencyMs} is the fixed latency, the
+     * mean of the normal distribution, or the minimum of the long tail (a Pareto
+     * distribution whose weight is set by {@code tailShape}: lower is heavier). The
+     * rates are independent probabilities, checked in the order timeout, error,
+     * decline.
+     */
+    public static class Profile {
+        private Latency latency = Latency.FIXED;
+        private long latencyMs = 100;
+        private long latencyStddevMs = 20;
+        private double tailShape = 1.5;
+        private long maxLatencyMs = 30000;
+        private double timeoutRate;
+        private double errorRate;
+        private double declineRate;
+
+        public Latency getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Latency latency) {
+            this.latency = latency;
+        }
+
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+
+        public void setLatencyMs(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        public long getLatencyStddevMs() {
+            return latencyStddevMs;
+        }
+
+        public void setLatencyStddevMs(long latencyStddevMs) {
+            this.latencyStddevMs = latencyStddevMs;
+        }
+
+        public double getTailShape() {
+            return tailShape;
+        }
+
+        public void setTailShape(double tailShape) {
+            this.tailShape = tailShape;
+        }
+
+        public long getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        public void setMaxLatencyMs(long maxLatencyMs) {
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        public double getTimeoutRate() {
+            return timeoutRate;
+        }
+
+        public void setTimeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public double getDeclineRate() {
+            return declineRate;
+        }
+
+        public void setDeclineRate(double declineRate) {
+            this.declineRate = declineRate;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kalakriti.payment.config;
+
+import com.kalakriti.payment.entity.Payment;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "payment.refunds")
+public class RefundProperties {
+
+    // Threads that claim batches and record outcomes; gateway calls do not hold them
+    private int threads = 4;
+    // Refunds sent to the gateway in one submission
+    private int batchSize = 50;
+    private long timeoutMs = 10000;
+    private long retryBackoffMs = 30000;
+    private int maxAttempts = 5;
+    // Batches in flight at once per method; each method settles through its own acquirer
+    private int defaultConcurrency = 2;
+    private Map<Payment.PaymentMethod, Integer> concurrency = new EnumMap<>(Payment.PaymentMethod.class);
+
+    // Getters and Setters
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getDefaultConcurrency() {
+        return defaultConcurrency;
+    }
+
+    public void setDefaultConcurrency(int defaultConcurrency) {
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    public Map<Payment.PaymentMethod, Integer> getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Map<Payment.PaymentMethod, Integer> concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int concurrencyFor(Payment.PaymentMethod method) {
+        return concurrency.getOrDefault(method, defaultConcurrency);
+    }
+}
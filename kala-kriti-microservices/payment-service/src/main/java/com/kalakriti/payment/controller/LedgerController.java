@@ -0,0 +1,70 @@
+package com.kalakriti.payment.controller;
+
+import com.kalakriti.payment.dto.LedgerBalanceDTO;
+import com.kalakriti.payment.dto.LedgerEntryDTO;
+import com.kalakriti.payment.dto.LedgerPostingDTO;
+import com.kalakriti.payment.entity.LedgerEntry;
+import com.kalakriti.payment.entity.LedgerLine;
+import com.kalakriti.payment.service.LedgerService;
+import com.kalakriti.payment.service.PaymentMappingService;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/payments/ledger")
+@CrossOrigin(origins = "*")
+public class LedgerController {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PaymentMappingService mappingService;
+
+    // Sales, fees and payouts for artists; captures and refunds are posted by the payment flow
+    @PostMapping("/entries")
+    public ResponseEntity<?> postEntry(@Valid @RequestBody LedgerPostingDTO posting) {
+        try {
+            LedgerEntry entry = ledgerService.postArtistEntry(posting.getType(), posting.getArtistId(),
+                    posting.getAmount(), posting.getPaymentId(), posting.getReference());
+            List<LedgerEntry> entries = List.of(entry);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(mappingService.toLedgerEntryDTOList(entries, ledgerService.getLines(entries)).get(0));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/payments/{paymentId}/entries")
+    public List<LedgerEntryDTO> getEntriesForPayment(@PathVariable Long paymentId) {
+        List<LedgerEntry> entries = ledgerService.getEntriesForPayment(paymentId);
+        return mappingService.toLedgerEntryDTOList(entries, ledgerService.getLines(entries));
+    }
+
+    @GetMapping("/balances")
+    public LedgerBalanceDTO getBalance(@RequestParam LedgerLine.Account account,
+                                       @RequestParam(defaultValue = "0") Long ownerId) {
+        return ledgerService.getBalance(account, ownerId);
+    }
+
+    @GetMapping("/customers/{customerId}/balance")
+    public LedgerBalanceDTO getCustomerBalance(@PathVariable Long customerId) {
+        return ledgerService.getBalance(LedgerLine.Account.CUSTOMER, customerId);
+    }
+
+    @GetMapping("/artists/{artistId}/balance")
+    public LedgerBalanceDTO getArtistBalance(@PathVariable Long artistId) {
+        return ledgerService.getBalance(LedgerLine.Account.ARTIST, artistId);
+    }
+}
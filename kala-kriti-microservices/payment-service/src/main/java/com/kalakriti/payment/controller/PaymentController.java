@@ -1,5 +1,8 @@
 package com.kalakriti.payment.controller;
 
+import com.kalakriti.payment.dto.CustomerPaymentHistoryDTO;
+import com.kalakriti.payment.dto.CustomerPaymentSummaryDTO;
+import com.kalakriti.payment.dto.GatewayStatusDTO;
 import com.kalakriti.payment.dto.PaymentCreateDTO;
 import com.kalakriti.payment.dto.PaymentDTO;
 import com.kalakriti.payment.dto.PaymentUpdateDTO;
@@ -9,6 +12,7 @@ import com.kalakriti.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +23,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -52,6 +58,26 @@ public class PaymentController {
         return mappingService.toPaymentDTOList(payments);
     }
 
+    // Pages through the history with the cursor from the previous page; the summary comes with every page
+    @GetMapping("/customer/{customerId}/history")
+    public ResponseEntity<?> getCustomerHistory(@PathVariable Long customerId,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "20") int size) {
+        try {
+            CustomerPaymentHistoryDTO history = paymentService.getCustomerHistory(
+                    customerId, cursor, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(history);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Recomputes the summary from the customer's payments; for repairs, as every transition keeps it current
+    @PostMapping("/customer/{customerId}/summary/rebuild")
+    public CustomerPaymentSummaryDTO rebuildCustomerSummary(@PathVariable Long customerId) {
+        return paymentService.rebuildCustomerSummary(customerId);
+    }
+
     @GetMapping("/order/{orderId}")
     public ResponseEntity<PaymentDTO> getPaymentByOrderId(@PathVariable Long orderId) {
         Optional<Payment> payment = paymentService.getPaymentByOrderId(orderId);
@@ -59,12 +85,41 @@ public class PaymentController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Which of the orders are paid (COMPLETED) or have a payment in flight (PENDING);
+    // order-service checks before it cancels an order whose payment window has passed
+    @PostMapping("/orders/status")
+    public ResponseEntity<?> getOrderPaymentStatuses(@RequestBody OrderStatusRequest request) {
+        if (request.getOrderIds() == null) {
+            return ResponseEntity.badRequest().body("orderIds is required");
+        }
+        try {
+            return ResponseEntity.ok(paymentService.getOrderPaymentStatuses(request.getOrderIds()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Circuit breaker and bulkhead state; the same figures are exported as payment.gateway.* metrics
+    @GetMapping("/gateway")
+    public GatewayStatusDTO getGatewayStatus() {
+        return paymentService.getGatewayStatus();
+    }
+
+    // Completes asynchronously: the request thread is released while the gateway works.
+    // Retries that send the same Idempotency-Key get the original payment back.
     @PostMapping("/process")
-    public ResponseEntity<PaymentDTO> processPayment(@Valid @RequestBody PaymentCreateDTO paymentCreateDTO) {
+    public CompletableFuture<ResponseEntity<?>> processPayment(
+            @Valid @RequestBody PaymentCreateDTO paymentCreateDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         Payment payment = mappingService.toPayment(paymentCreateDTO);
-        Payment processed = paymentService.processPayment(payment);
-        PaymentDTO paymentDTO = mappingService.toPaymentDTO(processed);
-        return ResponseEntity.status(HttpStatus.CREATED).body(paymentDTO);
+        try {
+            return paymentService.processPayment(payment, idempotencyKey)
+                    .thenApply(processed -> ResponseEntity.status(HttpStatus.CREATED).body(mappingService.toPaymentDTO(processed)));
+        } catch (IllegalStateException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage()));
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ex.getMessage()));
+        }
     }
 
     @PutMapping("/{id}/status")
@@ -117,4 +172,16 @@ public class PaymentController {
             this.status = status;
         }
     }
+
+    public static class OrderStatusRequest {
+        private List<Long> orderIds;
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+
+        public void setOrderIds(List<Long> orderIds) {
+            this.orderIds = orderIds;
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package com.kalakriti.payment.controller;
+
+import com.kalakriti.payment.dto.ReconciliationDiscrepancyDTO;
+import com.kalakriti.payment.dto.ReconciliationRunDTO;
+import com.kalakriti.payment.service.PaymentMappingService;
+import com.kalakriti.payment.service.ReconciliationService;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/payments/reconciliation")
+@CrossOrigin(origins = "*")
+public class ReconciliationController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PaymentMappingService mappingService;
+
+    // Reconciles payments created from the start of "from" to the start of the day after
+    // "to" against a file in the settlement directory; poll the returned run for progress
+    @PostMapping
+    public ResponseEntity<?> startRun(@RequestParam String file,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(mappingService.toReconciliationRunDTO(
+                    reconciliationService.reconcile(file, from.atStartOfDay(), to.plusDays(1).atStartOfDay())));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<ReconciliationRunDTO> getRun(@PathVariable Long runId) {
+        return reconciliationService.getRun(runId)
+                .map(run -> ResponseEntity.ok(mappingService.toReconciliationRunDTO(run)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Pages by id: pass the last id seen as afterId
+    @GetMapping("/{runId}/discrepancies")
+    public ResponseEntity<List<ReconciliationDiscrepancyDTO>> getDiscrepancies(@PathVariable Long runId,
+                                                                             @RequestParam(defaultValue = "0") Long afterId,
+                                                                             @RequestParam(defaultValue = "100") int limit) {
+        if (reconciliationService.getRun(runId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(mappingService.toReconciliationDiscrepancyDTOList(
+                reconciliationService.getDiscrepancies(runId, afterId, Math.max(1, Math.min(limit, MAX_LIMIT)))));
+    }
+}
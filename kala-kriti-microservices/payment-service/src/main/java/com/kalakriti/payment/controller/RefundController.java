@@ -0,0 +1,63 @@
+package com.kalakriti.payment.controller;
+
+import com.kalakriti.payment.dto.RefundCreateDTO;
+import com.kalakriti.payment.dto.RefundDTO;
+import com.kalakriti.payment.service.PaymentMappingService;
+import com.kalakriti.payment.service.PaymentService;
+import com.kalakriti.payment.service.RefundService;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/payments")
+@CrossOrigin(origins = "*")
+public class RefundController {
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentMappingService mappingService;
+
+    // Queues the refund and returns at once; poll the refund for its outcome
+    @PostMapping("/{paymentId}/refunds")
+    public ResponseEntity<?> requestRefund(@PathVariable Long paymentId, @Valid @RequestBody RefundCreateDTO request) {
+        if (paymentService.getPaymentById(paymentId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            RefundDTO refund = mappingService.toRefundDTO(
+                    refundService.requestRefund(paymentId, request.getAmount(), request.getReason()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(refund);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/{paymentId}/refunds")
+    public List<RefundDTO> getRefundsForPayment(@PathVariable Long paymentId) {
+        return mappingService.toRefundDTOList(refundService.getRefundsForPayment(paymentId));
+    }
+
+    @GetMapping("/refunds/{refundId}")
+    public ResponseEntity<RefundDTO> getRefund(@PathVariable Long refundId) {
+        return refundService.getRefund(refundId)
+                .map(refund -> ResponseEntity.ok(mappingService.toRefundDTO(refund)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,50 @@
+package com.kalakriti.payment.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.payment.dto.WebhookEventDTO;
+import com.kalakriti.payment.service.WebhookIngestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Called by the payment gateway, not by browsers, so no CORS
+@RestController
+@RequestMapping("/api/payments/webhooks")
+public class WebhookController {
+
+    @Autowired
+    private WebhookIngestionService webhookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Acknowledged once buffered; a 503 asks the gateway to deliver the event again later.
+    // The body is read raw because the signature covers its exact bytes.
+    @PostMapping
+    public ResponseEntity<?> receive(@RequestBody String body,
+                                     @RequestHeader(value = "X-Gateway-Signature", required = false) String signature) {
+        if (!webhookService.isSignatureValid(body, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid signature");
+        }
+        try {
+            WebhookEventDTO event = objectMapper.readValue(body, WebhookEventDTO.class);
+            if (!webhookService.receive(event)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Webhook buffer full");
+            }
+            return ResponseEntity.accepted().build();
+        } catch (JsonProcessingException ex) {
+            return ResponseEntity.badRequest().body("Malformed event");
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
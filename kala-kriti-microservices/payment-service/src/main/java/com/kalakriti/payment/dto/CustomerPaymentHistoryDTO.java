@@ -0,0 +1,54 @@
+package com.kalakriti.payment.dto;
+
+import java.util.List;
+
+// One page of a customer's payments, newest first, with the customer's summary
+public class CustomerPaymentHistoryDTO {
+    private CustomerPaymentSummaryDTO summary;
+    private List<PaymentDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Default constructor
+    public CustomerPaymentHistoryDTO() {}
+
+    public CustomerPaymentHistoryDTO(CustomerPaymentSummaryDTO summary, List<PaymentDTO> items, String nextCursor) {
+        this.summary = summary;
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters and Setters
+    public CustomerPaymentSummaryDTO getSummary() {
+        return summary;
+    }
+
+    public void setSummary(CustomerPaymentSummaryDTO summary) {
+        this.summary = summary;
+    }
+
+    public List<PaymentDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PaymentDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
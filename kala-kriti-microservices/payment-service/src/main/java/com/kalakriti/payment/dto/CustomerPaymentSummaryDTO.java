@@ -0,0 +1,85 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.Payment;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class CustomerPaymentSummaryDTO {
+    private Long customerId;
+    private long paymentCount;
+    private BigDecimal totalSpent;
+    private BigDecimal totalRefunded;
+    private Map<Payment.PaymentStatus, Long> countsByStatus;
+    private Map<Payment.PaymentMethod, Long> countsByMethod;
+    private LocalDateTime lastPaymentAt;
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public CustomerPaymentSummaryDTO() {}
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    public BigDecimal getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(BigDecimal totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public BigDecimal getTotalRefunded() {
+        return totalRefunded;
+    }
+
+    public void setTotalRefunded(BigDecimal totalRefunded) {
+        this.totalRefunded = totalRefunded;
+    }
+
+    public Map<Payment.PaymentStatus, Long> getCountsByStatus() {
+        return countsByStatus;
+    }
+
+    public void setCountsByStatus(Map<Payment.PaymentStatus, Long> countsByStatus) {
+        this.countsByStatus = countsByStatus;
+    }
+
+    public Map<Payment.PaymentMethod, Long> getCountsByMethod() {
+        return countsByMethod;
+    }
+
+    public void setCountsByMethod(Map<Payment.PaymentMethod, Long> countsByMethod) {
+        this.countsByMethod = countsByMethod;
+    }
+
+    public LocalDateTime getLastPaymentAt() {
+        return lastPaymentAt;
+    }
+
+    public void setLastPaymentAt(LocalDateTime lastPaymentAt) {
+        this.lastPaymentAt = lastPaymentAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
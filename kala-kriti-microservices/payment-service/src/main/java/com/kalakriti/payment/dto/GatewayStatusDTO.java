@@ -0,0 +1,82 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.service.GatewayCircuitBreaker;
+
+public class GatewayStatusDTO {
+    private GatewayCircuitBreaker.State circuitState;
+    private float failureRate;
+    private int bufferedCalls;
+    private int inFlight;
+    private int maxInFlight;
+    private long rejectedCircuitOpen;
+    private long rejectedBulkheadFull;
+    private long retried;
+
+    // Default constructor
+    public GatewayStatusDTO() {}
+
+    // Getters and Setters
+    public GatewayCircuitBreaker.State getCircuitState() {
+        return circuitState;
+    }
+
+    public void setCircuitState(GatewayCircuitBreaker.State circuitState) {
+        this.circuitState = circuitState;
+    }
+
+    public float getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(float failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public void setBufferedCalls(int bufferedCalls) {
+        this.bufferedCalls = bufferedCalls;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public long getRejectedCircuitOpen() {
+        return rejectedCircuitOpen;
+    }
+
+    public void setRejectedCircuitOpen(long rejectedCircuitOpen) {
+        this.rejectedCircuitOpen = rejectedCircuitOpen;
+    }
+
+    public long getRejectedBulkheadFull() {
+        return rejectedBulkheadFull;
+    }
+
+    public void setRejectedBulkheadFull(long rejectedBulkheadFull) {
+        this.rejectedBulkheadFull = rejectedBulkheadFull;
+    }
+
+    public long getRetried() {
+        return retried;
+    }
+
+    public void setRetried(long retried) {
+        this.retried = retried;
+    }
+}
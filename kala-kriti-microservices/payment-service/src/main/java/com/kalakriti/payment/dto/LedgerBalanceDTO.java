@@ -0,0 +1,65 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.LedgerLine;
+import java.math.BigDecimal;
+
+public class LedgerBalanceDTO {
+    private LedgerLine.Account account;
+    private Long ownerId;
+    private BigDecimal balance;
+    private BigDecimal snapshotBalance;
+    private Long snapshotLastLineId;
+    private long tailLines;
+
+    // Default constructor
+    public LedgerBalanceDTO() {}
+
+    // Getters and Setters
+    public LedgerLine.Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(LedgerLine.Account account) {
+        this.account = account;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public BigDecimal getSnapshotBalance() {
+        return snapshotBalance;
+    }
+
+    public void setSnapshotBalance(BigDecimal snapshotBalance) {
+        this.snapshotBalance = snapshotBalance;
+    }
+
+    public Long getSnapshotLastLineId() {
+        return snapshotLastLineId;
+    }
+
+    public void setSnapshotLastLineId(Long snapshotLastLineId) {
+        this.snapshotLastLineId = snapshotLastLineId;
+    }
+
+    public long getTailLines() {
+        return tailLines;
+    }
+
+    public void setTailLines(long tailLines) {
+        this.tailLines = tailLines;
+    }
+}
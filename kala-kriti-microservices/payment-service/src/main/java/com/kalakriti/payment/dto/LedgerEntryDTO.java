@@ -0,0 +1,85 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.LedgerEntry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class LedgerEntryDTO {
+    private Long id;
+    private String postingKey;
+    private LedgerEntry.EntryType type;
+    private Long paymentId;
+    private BigDecimal amount;
+    private String reference;
+    private LocalDateTime createdAt;
+    private List<LedgerLineDTO> lines;
+
+    // Default constructor
+    public LedgerEntryDTO() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPostingKey() {
+        return postingKey;
+    }
+
+    public void setPostingKey(String postingKey) {
+        this.postingKey = postingKey;
+    }
+
+    public LedgerEntry.EntryType getType() {
+        return type;
+    }
+
+    public void setType(LedgerEntry.EntryType type) {
+        this.type = type;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<LedgerLineDTO> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<LedgerLineDTO> lines) {
+        this.lines = lines;
+    }
+}
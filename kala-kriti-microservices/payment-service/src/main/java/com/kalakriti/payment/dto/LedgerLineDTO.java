@@ -0,0 +1,38 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.LedgerLine;
+import java.math.BigDecimal;
+
+public class LedgerLineDTO {
+    private LedgerLine.Account account;
+    private Long ownerId;
+    private BigDecimal amount;
+
+    // Default constructor
+    public LedgerLineDTO() {}
+
+    // Getters and Setters
+    public LedgerLine.Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(LedgerLine.Account account) {
+        this.account = account;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
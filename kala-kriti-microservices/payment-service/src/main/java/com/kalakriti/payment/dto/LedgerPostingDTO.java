@@ -0,0 +1,73 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.LedgerEntry;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+// An artist-side movement: SALE, FEE or PAYOUT
+public class LedgerPostingDTO {
+    @NotNull(message = "Entry type is required")
+    private LedgerEntry.EntryType type;
+
+    @NotNull(message = "Artist ID is required")
+    private Long artistId;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    private BigDecimal amount;
+
+    // The payment a sale or fee came from, if any
+    private Long paymentId;
+
+    // Unique per type; posting the same reference again returns the first entry
+    @NotBlank(message = "Reference is required")
+    @Size(max = 200, message = "Reference must be at most 200 characters")
+    private String reference;
+
+    // Default constructor
+    public LedgerPostingDTO() {}
+
+    // Getters and Setters
+    public LedgerEntry.EntryType getType() {
+        return type;
+    }
+
+    public void setType(LedgerEntry.EntryType type) {
+        this.type = type;
+    }
+
+    public Long getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+}
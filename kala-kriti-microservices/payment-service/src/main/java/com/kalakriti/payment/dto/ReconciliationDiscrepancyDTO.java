@@ -0,0 +1,102 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.ReconciliationDiscrepancy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class ReconciliationDiscrepancyDTO {
+    private Long id;
+    private ReconciliationDiscrepancy.DiscrepancyType type;
+    private String transactionId;
+    private Long paymentId;
+    private BigDecimal paymentAmount;
+    private BigDecimal settledAmount;
+    private String paymentStatus;
+    private String settlementStatus;
+    private String detail;
+    private LocalDateTime createdAt;
+
+    // Default constructor
+    public ReconciliationDiscrepancyDTO() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ReconciliationDiscrepancy.DiscrepancyType getType() {
+        return type;
+    }
+
+    public void setType(ReconciliationDiscrepancy.DiscrepancyType type) {
+        this.type = type;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public BigDecimal getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public void setPaymentAmount(BigDecimal paymentAmount) {
+        this.paymentAmount = paymentAmount;
+    }
+
+    public BigDecimal getSettledAmount() {
+        return settledAmount;
+    }
+
+    public void setSettledAmount(BigDecimal settledAmount) {
+        this.settledAmount = settledAmount;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getSettlementStatus() {
+        return settlementStatus;
+    }
+
+    public void setSettlementStatus(String settlementStatus) {
+        this.settlementStatus = settlementStatus;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,119 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.ReconciliationRun;
+import java.time.LocalDateTime;
+
+public class ReconciliationRunDTO {
+    private Long id;
+    private String settlementFile;
+    private LocalDateTime periodFrom;
+    private LocalDateTime periodTo;
+    private ReconciliationRun.RunState state;
+    private long settlementRecords;
+    private long paymentsScanned;
+    private long matched;
+    private long discrepancies;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // Default constructor
+    public ReconciliationRunDTO() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSettlementFile() {
+        return settlementFile;
+    }
+
+    public void setSettlementFile(String settlementFile) {
+        this.settlementFile = settlementFile;
+    }
+
+    public LocalDateTime getPeriodFrom() {
+        return periodFrom;
+    }
+
+    public void setPeriodFrom(LocalDateTime periodFrom) {
+        this.periodFrom = periodFrom;
+    }
+
+    public LocalDateTime getPeriodTo() {
+        return periodTo;
+    }
+
+    public void setPeriodTo(LocalDateTime periodTo) {
+        this.periodTo = periodTo;
+    }
+
+    public ReconciliationRun.RunState getState() {
+        return state;
+    }
+
+    public void setState(ReconciliationRun.RunState state) {
+        this.state = state;
+    }
+
+    public long getSettlementRecords() {
+        return settlementRecords;
+    }
+
+    public void setSettlementRecords(long settlementRecords) {
+        this.settlementRecords = settlementRecords;
+    }
+
+    public long getPaymentsScanned() {
+        return paymentsScanned;
+    }
+
+    public void setPaymentsScanned(long paymentsScanned) {
+        this.paymentsScanned = paymentsScanned;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public void setMatched(long matched) {
+        this.matched = matched;
+    }
+
+    public long getDiscrepancies() {
+        return discrepancies;
+    }
+
+    public void setDiscrepancies(long discrepancies) {
+        this.discrepancies = discrepancies;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kalakriti.payment.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+public class RefundCreateDTO {
+    // Omitted for a refund of everything not yet refunded
+    @DecimalMin(value = "0.01", message = "Refund amount must be positive")
+    private BigDecimal amount;
+
+    @Size(max = 500, message = "Reason must be at most 500 characters")
+    private String reason;
+
+    // Default constructor
+    public RefundCreateDTO() {}
+
+    // Getters and Setters
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
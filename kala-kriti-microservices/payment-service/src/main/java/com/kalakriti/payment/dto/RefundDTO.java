@@ -0,0 +1,139 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class RefundDTO {
+    private Long id;
+    private Long paymentId;
+    private Long orderId;
+    private Long customerId;
+    private Payment.PaymentMethod method;
+    private BigDecimal amount;
+    private String reason;
+    private Refund.RefundState state;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String gatewayReference;
+    private String gatewayResponse;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public RefundDTO() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Payment.PaymentMethod getMethod() {
+        return method;
+    }
+
+    public void setMethod(Payment.PaymentMethod method) {
+        this.method = method;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Refund.RefundState getState() {
+        return state;
+    }
+
+    public void setState(Refund.RefundState state) {
+        this.state = state;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getGatewayReference() {
+        return gatewayReference;
+    }
+
+    public void setGatewayReference(String gatewayReference) {
+        this.gatewayReference = gatewayReference;
+    }
+
+    public String getGatewayResponse() {
+        return gatewayResponse;
+    }
+
+    public void setGatewayResponse(String gatewayResponse) {
+        this.gatewayResponse = gatewayResponse;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
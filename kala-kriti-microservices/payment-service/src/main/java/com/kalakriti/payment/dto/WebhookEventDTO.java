@@ -0,0 +1,47 @@
+package com.kalakriti.payment.dto;
+
+import com.kalakriti.payment.entity.Payment;
+
+// A gateway callback: the payment with this transaction id reached this status
+public class WebhookEventDTO {
+    private String eventId;
+    private String transactionId;
+    private Payment.PaymentStatus status;
+    private String message;
+
+    // Default constructor
+    public WebhookEventDTO() {}
+
+    // Getters and Setters
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Payment.PaymentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Payment.PaymentStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
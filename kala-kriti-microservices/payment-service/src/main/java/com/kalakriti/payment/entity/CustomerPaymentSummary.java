@@ -0,0 +1,115 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnTransformer;
+
+/**
+ * Per-customer payment totals, adjusted in the transaction of every transition
+ * that touches them and recomputed from the customer's payments and refunds when
+ * the row is created or rebuilt. Counts are JSON objects keyed by status and by
+ * method name.
+ */
+@Entity
+@Table(name = "customer_payment_summaries")
+public class CustomerPaymentSummary {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    // Captured: payments that completed, including those refunded since
+    @Column(name = "total_spent", nullable = false)
+    private BigDecimal totalSpent;
+
+    @Column(name = "total_refunded", nullable = false)
+    private BigDecimal totalRefunded;
+
+    @Column(name = "status_counts", nullable = false, columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
+    private String statusCounts;
+
+    @Column(name = "method_counts", nullable = false, columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
+    private String methodCounts;
+
+    @Column(name = "last_payment_at")
+    private LocalDateTime lastPaymentAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CustomerPaymentSummary() {
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    public BigDecimal getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(BigDecimal totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public BigDecimal getTotalRefunded() {
+        return totalRefunded;
+    }
+
+    public void setTotalRefunded(BigDecimal totalRefunded) {
+        this.totalRefunded = totalRefunded;
+    }
+
+    public String getStatusCounts() {
+        return statusCounts;
+    }
+
+    public void setStatusCounts(String statusCounts) {
+        this.statusCounts = statusCounts;
+    }
+
+    public String getMethodCounts() {
+        return methodCounts;
+    }
+
+    public void setMethodCounts(String methodCounts) {
+        this.methodCounts = methodCounts;
+    }
+
+    public LocalDateTime getLastPaymentAt() {
+        return lastPaymentAt;
+    }
+
+    public void setLastPaymentAt(LocalDateTime lastPaymentAt) {
+        this.lastPaymentAt = lastPaymentAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,113 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A journal entry: one money movement, balanced by its lines. Never updated or deleted.
+@Entity
+@Table(name = "ledger_entries", uniqueConstraints = {
+    // What was posted, so posting the same movement again is a no-op
+    @UniqueConstraint(name = "uk_ledger_entries_posting_key", columnNames = "posting_key")
+}, indexes = {
+    @Index(name = "idx_ledger_entries_payment", columnList = "payment_id, type")
+})
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "posting_key", nullable = false)
+    private String postingKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntryType type;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        // Money taken from a customer, and given back
+        CAPTURE, REFUND,
+        // An artist's share of a sale, the platform's fee on it, and money paid out to the artist
+        SALE, FEE, PAYOUT
+    }
+
+    public LedgerEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPostingKey() {
+        return postingKey;
+    }
+
+    public void setPostingKey(String postingKey) {
+        this.postingKey = postingKey;
+    }
+
+    public EntryType getType() {
+        return type;
+    }
+
+    public void setType(EntryType type) {
+        this.type = type;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,119 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One side of a journal entry: a debit (positive) or credit (negative) to an account.
+// The lines of an entry sum to zero.
+@Entity
+@Table(name = "ledger_lines", indexes = {
+    // Balances read an account's lines after its snapshot
+    @Index(name = "idx_ledger_lines_account", columnList = "account, owner_id, id"),
+    @Index(name = "idx_ledger_lines_entry", columnList = "entry_id")
+})
+public class LedgerLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entry_id", nullable = false)
+    private Long entryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Account account;
+
+    // Customer or artist id; 0 for the platform's own accounts
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Account {
+        // Money held at or paid out through the gateway
+        GATEWAY_CLEARING(false),
+        // Paid by a customer, net of refunds
+        CUSTOMER(true),
+        // Sales allocated to artists
+        SALES(false),
+        // Owed to an artist
+        ARTIST(true),
+        PLATFORM_FEES(true);
+
+        private final boolean creditNormal;
+
+        Account(boolean creditNormal) {
+            this.creditNormal = creditNormal;
+        }
+
+        // Balances of credit-normal accounts are reported with credits as positive
+        public boolean isCreditNormal() {
+            return creditNormal;
+        }
+    }
+
+    public LedgerLine() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(Long entryId) {
+        this.entryId = entryId;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
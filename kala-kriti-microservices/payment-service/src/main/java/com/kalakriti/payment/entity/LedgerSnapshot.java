@@ -0,0 +1,92 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// An account's balance up to and including a ledger line; replaced by each snapshot run
+@Entity
+@Table(name = "ledger_balance_snapshots", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ledger_balance_snapshots_account", columnNames = {"account", "owner_id"})
+})
+public class LedgerSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerLine.Account account;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "last_line_id", nullable = false)
+    private Long lastLineId;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    public LedgerSnapshot() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LedgerLine.Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(LedgerLine.Account account) {
+        this.account = account;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public Long getLastLineId() {
+        return lastLineId;
+    }
+
+    public void setLastLineId(Long lastLineId) {
+        this.lastLineId = lastLineId;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+}
@@ -7,15 +7,27 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+// A retried request carries the same idempotency key and must not create a second payment
+@Table(name = "payments", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payments_order_idempotency_key", columnNames = {"order_id", "idempotency_key"})
+}, indexes = {
+    // Reconciliation walks a date range in (created_at, id) order and looks payments up by gateway id
+    @Index(name = "idx_payments_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_payments_transaction_id", columnList = "transaction_id"),
+    @Index(name = "idx_payments_retry_at", columnList = "retry_at"),
+    // Customer history pages newest first, and customer summaries aggregate per customer
+    @Index(name = "idx_payments_customer_id", columnList = "customer_id, id")
+})
 public class Payment {
 
     @Id
@@ -48,6 +60,13 @@ public class Payment {
     @Column(name = "gateway_response")
     private String gatewayResponse;
 
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    // Set while a PENDING payment waits to be sent to the gateway again
+    @Column(name = "retry_at")
+    private LocalDateTime retryAt;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -140,6 +159,22 @@ public class Payment {
         this.gatewayResponse = gatewayResponse;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public LocalDateTime getRetryAt() {
+        return retryAt;
+    }
+
+    public void setRetryAt(LocalDateTime retryAt) {
+        this.retryAt = retryAt;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
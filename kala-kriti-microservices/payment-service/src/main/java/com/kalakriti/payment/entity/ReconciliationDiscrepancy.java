@@ -0,0 +1,158 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Written in batches by the reconciliation job; mapped here for reading and the schema
+@Entity
+@Table(name = "reconciliation_discrepancies", indexes = {
+    @Index(name = "idx_reconciliation_discrepancies_run", columnList = "run_id, id")
+})
+public class ReconciliationDiscrepancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DiscrepancyType type;
+
+    @Column(name = "transaction_id")
+    private String transactionId;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "payment_amount")
+    private BigDecimal paymentAmount;
+
+    @Column(name = "settled_amount")
+    private BigDecimal settledAmount;
+
+    @Column(name = "payment_status")
+    private String paymentStatus;
+
+    @Column(name = "settlement_status")
+    private String settlementStatus;
+
+    @Column(length = 1000)
+    private String detail;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum DiscrepancyType {
+        // Captured here but not in the provider's file
+        MISSING_IN_SETTLEMENT,
+        // Settled by the provider but unknown here
+        UNKNOWN_TRANSACTION,
+        AMOUNT_MISMATCH,
+        STATUS_MISMATCH,
+        DUPLICATE_SETTLEMENT,
+        MALFORMED_RECORD
+    }
+
+    public ReconciliationDiscrepancy() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public void setRunId(Long runId) {
+        this.runId = runId;
+    }
+
+    public DiscrepancyType getType() {
+        return type;
+    }
+
+    public void setType(DiscrepancyType type) {
+        this.type = type;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public BigDecimal getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public void setPaymentAmount(BigDecimal paymentAmount) {
+        this.paymentAmount = paymentAmount;
+    }
+
+    public BigDecimal getSettledAmount() {
+        return settledAmount;
+    }
+
+    public void setSettledAmount(BigDecimal settledAmount) {
+        this.settledAmount = settledAmount;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getSettlementStatus() {
+        return settlementStatus;
+    }
+
+    public void setSettlementStatus(String settlementStatus) {
+        this.settlementStatus = settlementStatus;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,157 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reconciliation_runs")
+public class ReconciliationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "settlement_file", nullable = false)
+    private String settlementFile;
+
+    @Column(name = "period_from", nullable = false)
+    private LocalDateTime periodFrom;
+
+    @Column(name = "period_to", nullable = false)
+    private LocalDateTime periodTo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RunState state = RunState.RUNNING;
+
+    @Column(name = "settlement_records", nullable = false)
+    private long settlementRecords;
+
+    @Column(name = "payments_scanned", nullable = false)
+    private long paymentsScanned;
+
+    @Column(nullable = false)
+    private long matched;
+
+    @Column(nullable = false)
+    private long discrepancies;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum RunState {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public ReconciliationRun() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSettlementFile() {
+        return settlementFile;
+    }
+
+    public void setSettlementFile(String settlementFile) {
+        this.settlementFile = settlementFile;
+    }
+
+    public LocalDateTime getPeriodFrom() {
+        return periodFrom;
+    }
+
+    public void setPeriodFrom(LocalDateTime periodFrom) {
+        this.periodFrom = periodFrom;
+    }
+
+    public LocalDateTime getPeriodTo() {
+        return periodTo;
+    }
+
+    public void setPeriodTo(LocalDateTime periodTo) {
+        this.periodTo = periodTo;
+    }
+
+    public RunState getState() {
+        return state;
+    }
+
+    public void setState(RunState state) {
+        this.state = state;
+    }
+
+    public long getSettlementRecords() {
+        return settlementRecords;
+    }
+
+    public void setSettlementRecords(long settlementRecords) {
+        this.settlementRecords = settlementRecords;
+    }
+
+    public long getPaymentsScanned() {
+        return paymentsScanned;
+    }
+
+    public void setPaymentsScanned(long paymentsScanned) {
+        this.paymentsScanned = paymentsScanned;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public void setMatched(long matched) {
+        this.matched = matched;
+    }
+
+    public long getDiscrepancies() {
+        return discrepancies;
+    }
+
+    public void setDiscrepancies(long discrepancies) {
+        this.discrepancies = discrepancies;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
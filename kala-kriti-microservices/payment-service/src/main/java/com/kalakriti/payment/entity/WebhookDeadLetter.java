@@ -0,0 +1,86 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+// Acknowledged webhook events that failed to apply on their own, kept for an operator
+// to look into; written by the ingester so the rest of their batch is not held up
+@Entity
+@Table(name = "payment_webhook_dead_letters")
+public class WebhookDeadLetter {
+
+    @Id
+    @Column(name = "event_id", length = 255)
+    private String eventId;
+
+    @Column(name = "transaction_id", nullable = false)
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Payment.PaymentStatus status;
+
+    private String message;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    public WebhookDeadLetter() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Payment.PaymentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Payment.PaymentStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(LocalDateTime failedAt) {
+        this.failedAt = failedAt;
+    }
+}
@@ -0,0 +1,67 @@
+package com.kalakriti.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+// Gateway webhook events already received, for deduplication; written in batches by the ingester
+@Entity
+@Table(name = "payment_webhook_events", indexes = {
+    @Index(name = "idx_payment_webhook_events_received_at", columnList = "received_at")
+})
+public class WebhookEvent {
+
+    @Id
+    @Column(name = "event_id", length = 255)
+    private String eventId;
+
+    @Column(name = "transaction_id", nullable = false)
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Payment.PaymentStatus status;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    public WebhookEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Payment.PaymentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Payment.PaymentStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+}
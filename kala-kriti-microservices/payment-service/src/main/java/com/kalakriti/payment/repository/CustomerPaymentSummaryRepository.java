@@ -0,0 +1,9 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.CustomerPaymentSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomerPaymentSummaryRepository extends JpaRepository<CustomerPaymentSummary, Long> {
+}
@@ -0,0 +1,13 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.LedgerEntry;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    List<LedgerEntry> findByPaymentIdOrderByIdAsc(Long paymentId);
+    Optional<LedgerEntry> findByPostingKey(String postingKey);
+}
@@ -0,0 +1,12 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.LedgerLine;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerLineRepository extends JpaRepository<LedgerLine, Long> {
+    List<LedgerLine> findByEntryIdInOrderByIdAsc(Collection<Long> entryIds);
+}
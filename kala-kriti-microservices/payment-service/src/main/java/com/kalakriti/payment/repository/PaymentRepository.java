@@ -1,15 +1,84 @@
 package com.kalakriti.payment.repository;
 
 import com.kalakriti.payment.entity.Payment;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByCustomerId(Long customerId);
+    boolean existsByCustomerId(Long customerId);
+
+    // A page of the customer's payments, newest first, before the id cursor
+    @Query("SELECT p FROM Payment p WHERE p.customerId = :customerId AND (:beforeId IS NULL OR p.id < :beforeId) "
+            + "ORDER BY p.id DESC")
+    List<Payment> findCustomerPage(@Param("customerId") Long customerId,
+                                   @Param("beforeId") Long beforeId,
+                                   Pageable pageable);
     List<Payment> findByStatus(Payment.PaymentStatus status);
-    Optional<Payment> findByOrderId(Long orderId);
+    Optional<Payment> findFirstByOrderIdOrderByCreatedAtDescIdDesc(Long orderId);
+    Optional<Payment> findByOrderIdAndIdempotencyKey(Long orderId, String idempotencyKey);
+
+    // The listed orders' payments in the given statuses; uk_payments_order_idempotency_key
+    // leads with order_id and serves the lookup
+    @Query("SELECT DISTINCT p.orderId AS orderId, p.status AS status FROM Payment p "
+            + "WHERE p.orderId IN :orderIds AND p.status IN :statuses")
+    List<OrderPaymentStatus> findOrderStatuses(@Param("orderIds") Collection<Long> orderIds,
+                                               @Param("statuses") Collection<Payment.PaymentStatus> statuses);
+
     Optional<Payment> findByTransactionId(String transactionId);
+    List<Payment> findByTransactionIdIn(Collection<String> transactionIds);
+
+    // PENDING payments due for another gateway attempt; rows claimed by another node are skipped
+    @Query(value = "SELECT * FROM payments WHERE status = 'PENDING' AND retry_at <= :now "
+            + "ORDER BY retry_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Payment> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Pushes the claimed payments' next attempt out; only those still PENDING
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.retryAt = :retryAt WHERE p.id IN :ids "
+            + "AND p.status = com.kalakriti.payment.entity.Payment$PaymentStatus.PENDING")
+    int claimRetries(@Param("ids") Collection<Long> ids, @Param("retryAt") LocalDateTime retryAt);
+
+    // Records a gateway attempt's outcome, unless the payment was settled meanwhile
+    // (by a webhook or an operator); their write wins and this one changes nothing
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :status, p.gatewayResponse = :response, p.retryAt = :retryAt, "
+            + "p.updatedAt = :now WHERE p.id = :id "
+            + "AND p.status = com.kalakriti.payment.entity.Payment$PaymentStatus.PENDING")
+    int recordOutcome(@Param("id") Long id,
+                      @Param("status") Payment.PaymentStatus status,
+                      @Param("response") String response,
+                      @Param("retryAt") LocalDateTime retryAt,
+                      @Param("now") LocalDateTime now);
+
+    // Serializes refund requests and outcomes for one payment
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> lockById(@Param("id") Long id);
+
+    // Keyset chunk of payments created before `to`, after the (createdAt, id) cursor;
+    // start with the range's lower bound and id 0
+    @Query("SELECT p FROM Payment p WHERE p.createdAt < :to AND (p.createdAt > :afterCreatedAt "
+            + "OR (p.createdAt = :afterCreatedAt AND p.id > :afterId)) ORDER BY p.createdAt, p.id")
+    List<Payment> findCreatedChunk(@Param("to") LocalDateTime to,
+                                   @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    interface OrderPaymentStatus {
+        Long getOrderId();
+        Payment.PaymentStatus getStatus();
+    }
 }
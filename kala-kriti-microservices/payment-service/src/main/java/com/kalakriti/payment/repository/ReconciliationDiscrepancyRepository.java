@@ -0,0 +1,12 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.ReconciliationDiscrepancy;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, Long> {
+    List<ReconciliationDiscrepancy> findByRunIdAndIdGreaterThanOrderByIdAsc(Long runId, Long afterId, Pageable pageable);
+}
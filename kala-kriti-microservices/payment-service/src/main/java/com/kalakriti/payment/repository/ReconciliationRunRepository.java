@@ -0,0 +1,9 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+}
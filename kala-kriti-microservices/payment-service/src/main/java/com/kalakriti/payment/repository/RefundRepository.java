@@ -0,0 +1,42 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.Refund;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefundRepository extends JpaRepository<Refund, Long> {
+    List<Refund> findByPaymentIdOrderByIdAsc(Long paymentId);
+
+    @Query("SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.paymentId = :paymentId AND r.state IN :states")
+    BigDecimal sumAmountByPaymentIdAndStateIn(@Param("paymentId") Long paymentId,
+                                             @Param("states") Collection<Refund.RefundState> states);
+
+    // Due refunds for one method, queued or with an expired claim. Rows claimed by
+    // another worker are skipped, so several nodes can drain the queue at once.
+    @Query(value = "SELECT * FROM refunds WHERE method = :method AND state IN ('QUEUED', 'SUBMITTED') "
+            + "AND next_attempt_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Refund> lockDueBatch(@Param("method") String method, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Records a submission's outcome while the refund is still held by that attempt; a
+    // lapsed claim taken by another worker bumped attempts, so a late answer changes nothing
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Refund r SET r.state = :state, r.gatewayReference = :reference, r.gatewayResponse = :response, "
+            + "r.nextAttemptAt = :nextAttemptAt, r.updatedAt = :now WHERE r.id = :id AND r.attempts = :attempts "
+            + "AND r.state = com.kalakriti.payment.entity.Refund$RefundState.SUBMITTED")
+    int recordOutcome(@Param("id") Long id,
+                      @Param("attempts") int attempts,
+                      @Param("state") Refund.RefundState state,
+                      @Param("reference") String reference,
+                      @Param("response") String response,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("now") LocalDateTime now);
+}
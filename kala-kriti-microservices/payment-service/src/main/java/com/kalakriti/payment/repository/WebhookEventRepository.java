@@ -0,0 +1,19 @@
+package com.kalakriti.payment.repository;
+
+import com.kalakriti.payment.entity.WebhookEvent;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_webhook_events WHERE event_id IN "
+            + "(SELECT event_id FROM payment_webhook_events WHERE received_at < :cutoff LIMIT :limit)",
+           nativeQuery = true)
+    int deleteReceivedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
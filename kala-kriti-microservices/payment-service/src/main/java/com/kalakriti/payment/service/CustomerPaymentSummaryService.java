@@ -0,0 +1,335 @@
+package com.kalakriti.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalakriti.payment.entity.CustomerPaymentSummary;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import com.kalakriti.payment.repository.CustomerPaymentSummaryRepository;
+import com.kalakriti.payment.repository.PaymentRepository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps {@code customer_payment_summaries}, one row of totals per customer, so a
+ * profile page reads a single row instead of the customer's whole history.
+ *
+ * <p>Each transition adjusts the row by its own delta, in the transition's
+ * transaction, so the cost of a write does not grow with the customer's history.
+ * The row is locked first, so concurrent deltas for one customer apply one after
+ * the other. A customer without a row yet (new, or with history from before the
+ * table existed) has theirs recomputed from their payments instead, and the same
+ * recompute is there to repair a row: {@link #rebuild}.
+ */
+@Service
+public class CustomerPaymentSummaryService {
+
+    // Placeholder rows, so that every summary to change has a row to lock; returns the new ones
+    private static final String CLAIM_SQL = "INSERT INTO customer_payment_summaries "
+            + "(customer_id, payment_count, total_spent, total_refunded, status_counts, method_counts, updated_at) "
+            + "SELECT c, 0, 0, 0, '{}', '{}', ? FROM unnest(?::bigint[]) AS c "
+            + "ON CONFLICT (customer_id) DO NOTHING RETURNING customer_id";
+
+    private static final String LOCK_SQL = "SELECT customer_id, status_counts, method_counts "
+            + "FROM customer_payment_summaries WHERE customer_id = ANY(?) ORDER BY customer_id FOR UPDATE";
+
+    private static final String APPLY_DELTA_SQL = "UPDATE customer_payment_summaries SET "
+            + "payment_count = payment_count + ?, total_spent = total_spent + ?, total_refunded = total_refunded + ?, "
+            + "status_counts = ?::jsonb, method_counts = ?::jsonb, "
+            + "last_payment_at = GREATEST(last_payment_at, ?), updated_at = ? WHERE customer_id = ?";
+
+    // Refunded counts whole for REFUNDED payments, and the successful refunds so far for COMPLETED ones
+    private static final String REFRESH_SQL = "UPDATE customer_payment_summaries s SET "
+            + "payment_count = a.payment_count, total_spent = a.total_spent, total_refunded = a.total_refunded, "
+            + "status_counts = (SELECT jsonb_object_agg(status, n) FROM (SELECT status, COUNT(*) AS n "
+            + "FROM payments WHERE customer_id = a.customer_id GROUP BY status) c), "
+            + "method_counts = (SELECT jsonb_object_agg(method, n) FROM (SELECT method, COUNT(*) AS n "
+            + "FROM payments WHERE customer_id = a.customer_id GROUP BY method) c), "
+            + "last_payment_at = a.last_payment_at, updated_at = ? "
+            + "FROM (SELECT p.customer_id, COUNT(*) AS payment_count, "
+            + "COALESCE(SUM(p.amount) FILTER (WHERE p.status IN ('COMPLETED', 'REFUNDED')), 0) AS total_spent, "
+            + "COALESCE(SUM(CASE WHEN p.status = 'REFUNDED' THEN p.amount ELSE r.amount END), 0) AS total_refunded, "
+            + "MAX(p.created_at) AS last_payment_at "
+            + "FROM payments p LEFT JOIN LATERAL (SELECT SUM(amount) AS amount FROM refunds "
+            + "WHERE payment_id = p.id AND state = 'SUCCEEDED') r ON p.status = 'COMPLETED' "
+            + "WHERE p.customer_id = ANY(?) GROUP BY p.customer_id) a "
+            + "WHERE s.customer_id = a.customer_id";
+
+    private static final String DELETE_EMPTY_SQL = "DELETE FROM customer_payment_summaries s "
+            + "WHERE s.customer_id = ANY(?) AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.customer_id = s.customer_id)";
+
+    private static final String SUCCEEDED_REFUNDS_SQL = "SELECT payment_id, SUM(amount) FROM refunds "
+            + "WHERE payment_id = ANY(?) AND state = 'SUCCEEDED' GROUP BY payment_id";
+
+    private static final TypeReference<TreeMap<String, Long>> COUNTS = new TypeReference<>() {
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerPaymentSummaryRepository summaryRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public CustomerPaymentSummaryService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Counts a new payment. Joins the caller's transaction, which must already have
+     * flushed the payment.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentCreated(Payment payment) {
+        Delta delta = new Delta();
+        delta.payments = 1;
+        count(delta.methods, payment.getMethod().name(), 1);
+        count(delta.statuses, payment.getStatus().name(), 1);
+        delta.spent = spent(payment.getStatus(), payment.getAmount());
+        delta.refunded = payment.getStatus() == Payment.PaymentStatus.REFUNDED ? payment.getAmount() : BigDecimal.ZERO;
+        delta.lastPaymentAt = payment.getCreatedAt();
+        apply(Map.of(payment.getCustomerId(), delta));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Payment payment, Payment.PaymentStatus previous) {
+        statusesChanged(List.of(new StatusChange(payment.getId(), payment.getCustomerId(), payment.getAmount(),
+                previous, payment.getStatus())));
+    }
+
+    /**
+     * Moves payments between statuses in their summaries. Joins the caller's
+     * transaction, which must already have flushed the payments and their refunds.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusesChanged(Collection<StatusChange> changes) {
+        Map<Long, Delta> deltas = new HashMap<>();
+        addStatusChanges(deltas, changes);
+        apply(deltas);
+    }
+
+    /**
+     * Adds refunds that just succeeded to their customers' refunded totals, and moves
+     * the payments they covered in full to REFUNDED. Only for refunds of payments
+     * that were still COMPLETED; a REFUNDED payment counts in full already. Joins the
+     * caller's transaction, which must already have flushed the refunds and payments.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refundsSucceeded(Collection<Refund> refunds, Collection<StatusChange> refundedPayments) {
+        Map<Long, Delta> deltas = new HashMap<>();
+        for (Refund refund : refunds) {
+            Delta delta = deltas.computeIfAbsent(refund.getCustomerId(), customerId -> new Delta());
+            delta.refunded = delta.refunded.add(refund.getAmount());
+        }
+        addStatusChanges(deltas, refundedPayments);
+        apply(deltas);
+    }
+
+    /**
+     * Recomputes the customers' summaries from their payments and refunds, for
+     * changes that have no simple delta (a deleted payment). Joins the caller's
+     * transaction, whose changes must already be flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recompute(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        // Locked in id order, so transactions changing several customers cannot deadlock
+        Long[] ids = new TreeSet<>(customerIds).toArray(new Long[0]);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        claim(ids, now);
+        lock(ids);
+        recompute(ids, now);
+    }
+
+    /**
+     * The customer's summary, or empty if they have no payments. A customer with
+     * payments but no row yet (history from before summaries) gets one now.
+     */
+    public Optional<CustomerPaymentSummary> getSummary(Long customerId) {
+        Optional<CustomerPaymentSummary> summary = summaryRepository.findById(customerId);
+        if (summary.isPresent() || !paymentRepository.existsByCustomerId(customerId)) {
+            return summary;
+        }
+        return rebuild(customerId);
+    }
+
+    // Recomputes the customer's summary from scratch, e.g. to repair one that drifted
+    public Optional<CustomerPaymentSummary> rebuild(Long customerId) {
+        transactionTemplate.executeWithoutResult(status -> recompute(List.of(customerId)));
+        return summaryRepository.findById(customerId);
+    }
+
+    // A transaction's changes go into one delta per customer and are applied together, so
+    // a customer whose row the transaction creates has it recomputed once, with all of them
+    private void addStatusChanges(Map<Long, Delta> deltas, Collection<StatusChange> changes) {
+        List<Long> completedIds = new ArrayList<>();
+        for (StatusChange change : changes) {
+            if (change.from == Payment.PaymentStatus.COMPLETED || change.to == Payment.PaymentStatus.COMPLETED) {
+                completedIds.add(change.paymentId);
+            }
+        }
+        Map<Long, BigDecimal> succeededRefunds = succeededRefunds(completedIds);
+        for (StatusChange change : changes) {
+            if (change.from == change.to) {
+                continue;
+            }
+            BigDecimal refundedSoFar = succeededRefunds.getOrDefault(change.paymentId, BigDecimal.ZERO);
+            Delta delta = deltas.computeIfAbsent(change.customerId, customerId -> new Delta());
+            count(delta.statuses, change.from.name(), -1);
+            count(delta.statuses, change.to.name(), 1);
+            delta.spent = delta.spent.add(spent(change.to, change.amount)).subtract(spent(change.from, change.amount));
+            delta.refunded = delta.refunded.add(refunded(change.to, change.amount, refundedSoFar))
+                    .subtract(refunded(change.from, change.amount, refundedSoFar));
+        }
+    }
+
+    private void apply(Map<Long, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Long[] ids = new TreeSet<>(deltas.keySet()).toArray(new Long[0]);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // A new row has nothing to add the delta to: it is computed from the payments,
+        // which also backfills customers whose history predates the summaries
+        Set<Long> created = claim(ids, now);
+        if (!created.isEmpty()) {
+            recompute(created.toArray(new Long[0]), now);
+        }
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query(LOCK_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)), rs -> {
+            long customerId = rs.getLong(1);
+            if (created.contains(customerId)) {
+                return;
+            }
+            Delta delta = deltas.get(customerId);
+            updates.add(new Object[] {delta.payments, delta.spent, delta.refunded,
+                    adjust(rs.getString(2), delta.statuses), adjust(rs.getString(3), delta.methods),
+                    delta.lastPaymentAt != null ? Timestamp.valueOf(delta.lastPaymentAt) : null, now, customerId});
+        });
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, updates);
+    }
+
+    private Set<Long> claim(Long[] ids, Timestamp now) {
+        return new HashSet<>(jdbcTemplate.query(CLAIM_SQL, ps -> {
+            ps.setTimestamp(1, now);
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids));
+        }, (rs, rowNum) -> rs.getLong(1)));
+    }
+
+    private void lock(Long[] ids) {
+        jdbcTemplate.query(LOCK_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                });
+    }
+
+    private void recompute(Long[] ids, Timestamp now) {
+        jdbcTemplate.update(REFRESH_SQL, ps -> {
+            ps.setTimestamp(1, now);
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids));
+        });
+        jdbcTemplate.update(DELETE_EMPTY_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    private Map<Long, BigDecimal> succeededRefunds(List<Long> paymentIds) {
+        Map<Long, BigDecimal> sums = new HashMap<>();
+        if (!paymentIds.isEmpty()) {
+            jdbcTemplate.query(SUCCEEDED_REFUNDS_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", paymentIds.toArray())),
+                    rs -> {
+                        sums.put(rs.getLong(1), rs.getBigDecimal(2));
+                    });
+        }
+        return sums;
+    }
+
+    // Counts with zeros dropped, as the recompute leaves them
+    private String adjust(String json, Map<String, Long> delta) {
+        if (delta.isEmpty()) {
+            return json;
+        }
+        try {
+            TreeMap<String, Long> counts = objectMapper.readValue(json, COUNTS);
+            delta.forEach((key, change) -> {
+                if (change != 0) {
+                    counts.merge(key, change, (count, add) -> count + add == 0 ? null : count + add);
+                }
+            });
+            return objectMapper.writeValueAsString(counts);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read customer payment summary counts", ex);
+        }
+    }
+
+    private static void count(Map<String, Long> counts, String key, long change) {
+        counts.merge(key, change, Long::sum);
+    }
+
+    // What a payment in this status adds to total_spent and total_refunded, as the recompute counts them
+    private static BigDecimal spent(Payment.PaymentStatus status, BigDecimal amount) {
+        return status == Payment.PaymentStatus.COMPLETED || status == Payment.PaymentStatus.REFUNDED
+                ? amount : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal refunded(Payment.PaymentStatus status, BigDecimal amount, BigDecimal refundedSoFar) {
+        if (status == Payment.PaymentStatus.REFUNDED) {
+            return amount;
+        }
+        return status == Payment.PaymentStatus.COMPLETED ? refundedSoFar : BigDecimal.ZERO;
+    }
+
+    // A payment that moved from one status to another
+    public static final class StatusChange {
+        private final Long paymentId;
+        private final Long customerId;
+        private final BigDecimal amount;
+        private final Payment.PaymentStatus from;
+        private final Payment.PaymentStatus to;
+
+        public StatusChange(Long paymentId, Long customerId, BigDecimal amount,
+                            Payment.PaymentStatus from, Payment.PaymentStatus to) {
+            this.paymentId = paymentId;
+            this.customerId = customerId;
+            this.amount = amount;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    // Changes to one customer's totals
+    private static final class Delta {
+        private long payments;
+        private BigDecimal spent = BigDecimal.ZERO;
+        private BigDecimal refunded = BigDecimal.ZERO;
+        private final Map<String, Long> statuses = new HashMap<>();
+        private final Map<String, Long> methods = new HashMap<>();
+        private LocalDateTime lastPaymentAt;
+    }
+}
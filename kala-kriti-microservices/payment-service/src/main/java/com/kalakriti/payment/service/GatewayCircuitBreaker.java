@@ -0,0 +1,169 @@
+package com.kalakriti.payment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops calling the gateway while it is failing. The outcomes of the last
+ * {@code windowSize} calls are kept; when at least {@code minimumCalls} have been seen
+ * and the share of failures (errors, timeouts, lost calls; not declines) reaches the
+ * threshold, the breaker opens and refuses calls for {@code openDurationMs}. It then
+ * lets {@code halfOpenCalls} probes through: if all succeed it closes, if any fails
+ * it opens again.
+ *
+ * <p>Calls are counted when they finish, so answers to calls made before the breaker
+ * opened do not move it.
+ */
+@Component
+public class GatewayCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    @Value("${payment.gateway.circuit-breaker.window-size:100}")
+    private int windowSize;
+
+    @Value("${payment.gateway.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${payment.gateway.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${payment.gateway.circuit-breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+
+    @Value("${payment.gateway.circuit-breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    private final Counter openedCounter;
+    private State state = State.CLOSED;
+    // Ring of the last calls' outcomes, true for a failure
+    private boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public GatewayCircuitBreaker(MeterRegistry meterRegistry) {
+        this.openedCounter = Counter.builder("payment.gateway.circuit.opened")
+                .description("Times the gateway circuit breaker opened")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("Gateway circuit breaker state: 0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Whether a call may go to the gateway now. A permitted call must be reported with
+     * {@link #onResult} or, if it was never made, {@link #releasePermission}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        halfOpenIfDue();
+        if (state == State.OPEN) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized void onResult(boolean failed) {
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                log.warn("Gateway circuit reopened: a probe failed");
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        if (recorded >= minimumCalls && failures * 100L >= (long) failureRateThreshold * recorded) {
+            log.warn("Gateway circuit opened: {} of the last {} calls failed", failures, recorded);
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        halfOpenIfDue();
+        return state;
+    }
+
+    // Failure percentage over the window, or -1 before the minimum number of calls
+    public synchronized float getFailureRate() {
+        return recorded >= minimumCalls ? failures * 100f / recorded : -1f;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return recorded;
+    }
+
+    private void halfOpenIfDue() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openDurationMs)) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+            log.info("Gateway circuit half open, probing with {} calls", halfOpenCalls);
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        openedCounter.increment();
+        resetWindow();
+    }
+
+    private void close() {
+        log.info("Gateway circuit closed after {} successful probes", halfOpenSuccesses);
+        state = State.CLOSED;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
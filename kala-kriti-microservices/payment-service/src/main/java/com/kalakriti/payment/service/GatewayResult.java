@@ -0,0 +1,47 @@
+package com.kalakriti.payment.service;
+
+/**
+ * What a {@link PaymentGateway} answered for a charge or a refund. A decline is
+ * final; an error means the provider failed to process it and no money moved.
+ */
+public class GatewayResult {
+
+    public enum Outcome {
+        APPROVED, DECLINED, ERROR
+    }
+
+    private final Outcome outcome;
+    private final String reference;
+    private final String message;
+
+    private GatewayResult(Outcome outcome, String reference, String message) {
+        this.outcome = outcome;
+        this.reference = reference;
+        this.message = message;
+    }
+
+    public static GatewayResult approved(String reference, String message) {
+        return new GatewayResult(Outcome.APPROVED, reference, message);
+    }
+
+    public static GatewayResult declined(String message) {
+        return new GatewayResult(Outcome.DECLINED, null, message);
+    }
+
+    public static GatewayResult error(String message) {
+        return new GatewayResult(Outcome.ERROR, null, message);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    // The provider's own id for the charge or refund, when approved
+    public String getReference() {
+        return reference;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,269 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.dto.LedgerBalanceDTO;
+import com.kalakriti.payment.entity.LedgerEntry;
+import com.kalakriti.payment.entity.LedgerLine;
+import com.kalakriti.payment.entity.Refund;
+import com.kalakriti.payment.repository.LedgerEntryRepository;
+import com.kalakriti.payment.repository.LedgerLineRepository;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The double-entry money trail. Captures and refunds are posted in the transaction
+ * that records the payment or refund transition; sales, fees and payouts to artists
+ * are posted through the API, since payment-service does not know which artists an
+ * order pays. Entries are only ever inserted, and each has a posting key, so posting
+ * the same movement twice (a retried transition, a replayed webhook) is a no-op.
+ *
+ * <p>Account balances are kept as periodic snapshots: a balance is its snapshot plus
+ * the lines posted since, so a query reads one row and a short tail however long
+ * the history is.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    // Lines for the entries inserted by the CTE "e" (id, payment_id, amount, created_at)
+    private static final String CUSTOMER_LINES_SQL = "INSERT INTO ledger_lines (entry_id, account, owner_id, amount, created_at) "
+            + "SELECT e.id, 'GATEWAY_CLEARING', 0, %1$s e.amount, e.created_at FROM e "
+            + "UNION ALL SELECT e.id, 'CUSTOMER', p.customer_id, %2$s e.amount, e.created_at "
+            + "FROM e JOIN payments p ON p.id = e.payment_id";
+
+    private static final String CAPTURE_SQL = "WITH e AS ("
+            + "INSERT INTO ledger_entries (posting_key, type, payment_id, amount, created_at) "
+            + "SELECT 'CAPTURE:' || p.id, 'CAPTURE', p.id, p.amount, ? FROM payments p WHERE p.id = ANY(?) "
+            + "ON CONFLICT (posting_key) DO NOTHING RETURNING id, payment_id, amount, created_at) "
+            + String.format(CUSTOMER_LINES_SQL, "", "-");
+
+    // Whatever of the captured amount no refund has covered yet
+    private static final String REFUND_REMAINDER_SQL = "WITH e AS ("
+            + "INSERT INTO ledger_entries (posting_key, type, payment_id, amount, created_at) "
+            + "SELECT 'REFUND:' || c.payment_id || ':remainder', 'REFUND', c.payment_id, c.amount - COALESCE(r.amount, 0), ? "
+            + "FROM ledger_entries c LEFT JOIN (SELECT payment_id, SUM(amount) AS amount FROM ledger_entries "
+            + "WHERE type = 'REFUND' AND payment_id = ANY(?) GROUP BY payment_id) r ON r.payment_id = c.payment_id "
+            + "WHERE c.posting_key = ANY(?) AND c.amount > COALESCE(r.amount, 0) "
+            + "ON CONFLICT (posting_key) DO NOTHING RETURNING id, payment_id, amount, created_at) "
+            + String.format(CUSTOMER_LINES_SQL, "-", "");
+
+    private static final String REFUND_SQL = "WITH e AS ("
+            + "INSERT INTO ledger_entries (posting_key, type, payment_id, amount, reference, created_at) "
+            + "VALUES (?, 'REFUND', ?, ?, ?, ?) "
+            + "ON CONFLICT (posting_key) DO NOTHING RETURNING id, payment_id, amount, created_at) "
+            + String.format(CUSTOMER_LINES_SQL, "-", "");
+
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO ledger_entries "
+            + "(posting_key, type, payment_id, amount, reference, created_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (posting_key) DO NOTHING RETURNING id";
+
+    private static final String INSERT_LINE_SQL = "INSERT INTO ledger_lines "
+            + "(entry_id, account, owner_id, amount, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    // Folds the lines in (from, to] into each account's snapshot
+    private static final String SNAPSHOT_SQL = "INSERT INTO ledger_balance_snapshots "
+            + "(account, owner_id, balance, last_line_id, taken_at) "
+            + "SELECT l.account, l.owner_id, COALESCE(s.balance, 0) + SUM(l.amount), ?, ? "
+            + "FROM ledger_lines l LEFT JOIN ledger_balance_snapshots s "
+            + "ON s.account = l.account AND s.owner_id = l.owner_id "
+            + "WHERE l.id > ? AND l.id <= ? GROUP BY l.account, l.owner_id, s.balance "
+            + "ON CONFLICT (account, owner_id) DO UPDATE SET balance = EXCLUDED.balance, "
+            + "last_line_id = EXCLUDED.last_line_id, taken_at = EXCLUDED.taken_at";
+
+    // Any fixed key; held for the snapshot transaction so nodes take turns
+    private static final long SNAPSHOT_LOCK = 0x4c45444745524c4bL;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    @Autowired
+    private LedgerLineRepository lineRepository;
+
+    @Value("${payment.ledger.snapshot-chunk-lines:100000}")
+    private int snapshotChunkLines;
+
+    @Value("${payment.ledger.snapshot-lag-seconds:60}")
+    private long snapshotLagSeconds;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LedgerService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Must join the caller's transaction so the entries commit or roll back with the transition
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCaptures(List<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(CAPTURE_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(2, bigints(ps.getConnection(), paymentIds));
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRefund(Refund refund) {
+        jdbcTemplate.update(REFUND_SQL, "REFUND:refund:" + refund.getId(), refund.getPaymentId(), refund.getAmount(),
+                refund.getGatewayReference(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * For payments marked REFUNDED outright (by an operator or a gateway webhook):
+     * refunds whatever of the capture earlier refunds did not cover. Payments with
+     * no capture posted are skipped.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRefundsOfRemainder(List<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(REFUND_REMAINDER_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(2, bigints(ps.getConnection(), paymentIds));
+            ps.setArray(3, ps.getConnection().createArrayOf("varchar",
+                    paymentIds.stream().map(id -> "CAPTURE:" + id).toArray()));
+        });
+    }
+
+    /**
+     * Posts a sale to, fee from or payout to an artist. A reference already posted for
+     * the type returns its entry unchanged.
+     */
+    @Transactional
+    public LedgerEntry postArtistEntry(LedgerEntry.EntryType type, Long artistId, BigDecimal amount, Long paymentId,
+                                       String reference) {
+        LedgerLine.Account debit;
+        LedgerLine.Account credit;
+        switch (type) {
+            case SALE:
+                debit = LedgerLine.Account.SALES;
+                credit = LedgerLine.Account.ARTIST;
+                break;
+            case FEE:
+                debit = LedgerLine.Account.ARTIST;
+                credit = LedgerLine.Account.PLATFORM_FEES;
+                break;
+            case PAYOUT:
+                debit = LedgerLine.Account.ARTIST;
+                credit = LedgerLine.Account.GATEWAY_CLEARING;
+                break;
+            default:
+                throw new IllegalArgumentException("Only SALE, FEE and PAYOUT entries can be posted directly");
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        String postingKey = type + ":" + reference;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> inserted = jdbcTemplate.queryForList(INSERT_ENTRY_SQL, Long.class,
+                postingKey, type.name(), paymentId, amount, reference, now);
+        if (!inserted.isEmpty()) {
+            Long entryId = inserted.get(0);
+            List<Object[]> lines = new ArrayList<>();
+            lines.add(new Object[]{entryId, debit.name(), ownerOf(debit, artistId), amount, now});
+            lines.add(new Object[]{entryId, credit.name(), ownerOf(credit, artistId), amount.negate(), now});
+            jdbcTemplate.batchUpdate(INSERT_LINE_SQL, lines);
+        }
+        return entryRepository.findByPostingKey(postingKey)
+                .orElseThrow(() -> new IllegalStateException("Ledger entry " + postingKey + " vanished"));
+    }
+
+    public List<LedgerEntry> getEntriesForPayment(Long paymentId) {
+        return entryRepository.findByPaymentIdOrderByIdAsc(paymentId);
+    }
+
+    public List<LedgerLine> getLines(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        return lineRepository.findByEntryIdInOrderByIdAsc(entries.stream().map(LedgerEntry::getId).toList());
+    }
+
+    public LedgerBalanceDTO getBalance(LedgerLine.Account account, Long ownerId) {
+        // Snapshot first: if one is taken in between, the tail still starts where this one ends
+        Map<String, Object> snapshot = jdbcTemplate.queryForList(
+                "SELECT balance, last_line_id FROM ledger_balance_snapshots WHERE account = ? AND owner_id = ?",
+                account.name(), ownerId).stream().findFirst().orElse(Map.of());
+        BigDecimal snapshotBalance = (BigDecimal) snapshot.getOrDefault("balance", BigDecimal.ZERO);
+        Long lastLineId = snapshot.containsKey("last_line_id") ? ((Number) snapshot.get("last_line_id")).longValue() : 0L;
+        Map<String, Object> tail = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(SUM(amount), 0) AS amount, COUNT(*) AS lines FROM ledger_lines "
+                        + "WHERE account = ? AND owner_id = ? AND id > ?",
+                account.name(), ownerId, lastLineId);
+        BigDecimal balance = snapshotBalance.add((BigDecimal) tail.get("amount"));
+        LedgerBalanceDTO dto = new LedgerBalanceDTO();
+        dto.setAccount(account);
+        dto.setOwnerId(ownerId);
+        dto.setBalance(account.isCreditNormal() ? balance.negate() : balance);
+        dto.setSnapshotBalance(account.isCreditNormal() ? snapshotBalance.negate() : snapshotBalance);
+        dto.setSnapshotLastLineId(lastLineId);
+        dto.setTailLines(((Number) tail.get("lines")).longValue());
+        return dto;
+    }
+
+    /**
+     * Folds lines posted since the last run into the snapshots, in chunks. Lines
+     * younger than the lag are left for the next run: ids are taken before commit,
+     * so a recent id may belong to a transaction that has not committed yet, and a
+     * snapshot past it would skip it for good.
+     */
+    @Scheduled(fixedDelayString = "${payment.ledger.snapshot-interval-ms:300000}")
+    public void takeSnapshots() {
+        Timestamp settled = Timestamp.valueOf(LocalDateTime.now().minusSeconds(snapshotLagSeconds));
+        Long upTo = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM ledger_lines WHERE created_at < ?", Long.class, settled);
+        if (upTo == null) {
+            return;
+        }
+        boolean more = true;
+        while (more) {
+            Boolean folded = transactionTemplate.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SNAPSHOT_LOCK))) {
+                    return false;
+                }
+                Long from = jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(MAX(last_line_id), 0) FROM ledger_balance_snapshots", Long.class);
+                if (from >= upTo) {
+                    return false;
+                }
+                long to = Math.min(upTo, from + snapshotChunkLines);
+                jdbcTemplate.update(SNAPSHOT_SQL, to, Timestamp.valueOf(LocalDateTime.now()), from, to);
+                log.debug("Ledger snapshots advanced from line {} to {}", from, to);
+                return to < upTo;
+            });
+            more = Boolean.TRUE.equals(folded);
+        }
+    }
+
+    private static Long ownerOf(LedgerLine.Account account, Long artistId) {
+        return account == LedgerLine.Account.ARTIST ? artistId : 0L;
+    }
+
+    private static Array bigints(Connection connection, List<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+}
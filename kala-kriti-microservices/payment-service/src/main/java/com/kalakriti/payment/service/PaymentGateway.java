@@ -0,0 +1,24 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A payment provider. Calls return at once; the future completes on the provider's
+ * own threads when it answers, and may never complete if it does not, so callers
+ * apply their own timeout. The payment's transaction id is the idempotency key: a
+ * retried call with the same id must not charge twice.
+ */
+public interface PaymentGateway {
+
+    CompletableFuture<GatewayResult> charge(Payment payment);
+
+    /**
+     * Submits refunds of one payment method together; the results are in the same
+     * order. The refund's id is its idempotency key, so resubmitting one after an
+     * unanswered call does not pay it out twice.
+     */
+    CompletableFuture<List<GatewayResult>> refund(List<Refund> refunds);
+}
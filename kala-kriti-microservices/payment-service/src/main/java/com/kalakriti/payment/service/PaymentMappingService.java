@@ -1,14 +1,31 @@
 package com.kalakriti.payment.service;
 
+import com.kalakriti.payment.dto.CustomerPaymentSummaryDTO;
+import com.kalakriti.payment.dto.LedgerEntryDTO;
+import com.kalakriti.payment.dto.LedgerLineDTO;
 import com.kalakriti.payment.dto.PaymentCreateDTO;
 import com.kalakriti.payment.dto.PaymentDTO;
 import com.kalakriti.payment.dto.PaymentUpdateDTO;
+import com.kalakriti.payment.dto.ReconciliationDiscrepancyDTO;
+import com.kalakriti.payment.dto.ReconciliationRunDTO;
+import com.kalakriti.payment.dto.RefundDTO;
+import com.kalakriti.payment.entity.CustomerPaymentSummary;
+import com.kalakriti.payment.entity.LedgerEntry;
+import com.kalakriti.payment.entity.LedgerLine;
 import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.ReconciliationDiscrepancy;
+import com.kalakriti.payment.entity.ReconciliationRun;
+import com.kalakriti.payment.entity.Refund;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +34,9 @@ public class PaymentMappingService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Entity to DTO mappings
     public PaymentDTO toPaymentDTO(Payment payment) {
         return modelMapper.map(payment, PaymentDTO.class);
@@ -28,6 +48,66 @@ public class PaymentMappingService {
                 .collect(Collectors.toList());
     }
 
+    public RefundDTO toRefundDTO(Refund refund) {
+        return modelMapper.map(refund, RefundDTO.class);
+    }
+
+    public List<RefundDTO> toRefundDTOList(List<Refund> refunds) {
+        return refunds.stream()
+                .map(this::toRefundDTO)
+                .collect(Collectors.toList());
+    }
+
+    public ReconciliationRunDTO toReconciliationRunDTO(ReconciliationRun run) {
+        return modelMapper.map(run, ReconciliationRunDTO.class);
+    }
+
+    public List<ReconciliationDiscrepancyDTO> toReconciliationDiscrepancyDTOList(List<ReconciliationDiscrepancy> discrepancies) {
+        return discrepancies.stream()
+                .map(discrepancy -> modelMapper.map(discrepancy, ReconciliationDiscrepancyDTO.class))
+                .collect(Collectors.toList());
+    }
+
+    public List<LedgerEntryDTO> toLedgerEntryDTOList(List<LedgerEntry> entries, List<LedgerLine> lines) {
+        Map<Long, List<LedgerLineDTO>> linesByEntry = lines.stream()
+                .collect(Collectors.groupingBy(LedgerLine::getEntryId,
+                        Collectors.mapping(line -> modelMapper.map(line, LedgerLineDTO.class), Collectors.toList())));
+        return entries.stream()
+                .map(entry -> {
+                    LedgerEntryDTO dto = modelMapper.map(entry, LedgerEntryDTO.class);
+                    dto.setLines(linesByEntry.getOrDefault(entry.getId(), List.of()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // A customer without payments has no summary row and gets zeros
+    public CustomerPaymentSummaryDTO toCustomerPaymentSummaryDTO(Long customerId, CustomerPaymentSummary summary) {
+        CustomerPaymentSummaryDTO dto = new CustomerPaymentSummaryDTO();
+        dto.setCustomerId(customerId);
+        if (summary == null) {
+            dto.setTotalSpent(BigDecimal.ZERO);
+            dto.setTotalRefunded(BigDecimal.ZERO);
+            dto.setCountsByStatus(Map.of());
+            dto.setCountsByMethod(Map.of());
+            return dto;
+        }
+        dto.setPaymentCount(summary.getPaymentCount());
+        dto.setTotalSpent(summary.getTotalSpent());
+        dto.setTotalRefunded(summary.getTotalRefunded());
+        dto.setLastPaymentAt(summary.getLastPaymentAt());
+        dto.setUpdatedAt(summary.getUpdatedAt());
+        try {
+            dto.setCountsByStatus(objectMapper.readValue(summary.getStatusCounts(),
+                    new TypeReference<Map<Payment.PaymentStatus, Long>>() {}));
+            dto.setCountsByMethod(objectMapper.readValue(summary.getMethodCounts(),
+                    new TypeReference<Map<Payment.PaymentMethod, Long>>() {}));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read customer payment summary", ex);
+        }
+        return dto;
+    }
+
     // DTO to Entity mappings
     public Payment toPayment(PaymentCreateDTO paymentCreateDTO) {
         return modelMapper.map(paymentCreateDTO, Payment.class);
@@ -0,0 +1,122 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.entity.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency and outcome metrics per payment method, for SLOs on checkout:
+ * <ul>
+ *   <li>{@code payment.gateway.latency}: one gateway call, by method and outcome</li>
+ *   <li>{@code payment.checkout.duration}: a payment request from receipt to recorded
+ *       outcome, by method and resulting status</li>
+ *   <li>{@code payment.outcomes}: payments that succeeded, failed or were refunded, by method</li>
+ * </ul>
+ * Timers publish percentiles over a rolling window (an HdrHistogram per window
+ * slice, rotated every {@code windowMs / windowBuffers}) and counts against the
+ * configured SLO thresholds. Every meter is registered up front and looked up by
+ * array index, so recording on the hot path does not touch the registry.
+ */
+@Component
+public class PaymentMetrics {
+
+    public enum GatewayOutcome {
+        APPROVED, DECLINED, ERROR, TIMEOUT, FAILED
+    }
+
+    @Value("${payment.metrics.percentiles:0.5,0.95,0.99}")
+    private double[] percentiles;
+
+    @Value("${payment.metrics.slo-ms:250,500,1000,2000}")
+    private long[] sloMs;
+
+    @Value("${payment.metrics.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${payment.metrics.window-buffers:3}")
+    private int windowBuffers;
+
+    @Value("${payment.gateway.timeout-ms:5000}")
+    private long gatewayTimeoutMs;
+
+    private final MeterRegistry meterRegistry;
+    // Indexed by [method ordinal][outcome or status ordinal]
+    private Timer[][] gatewayLatency;
+    private Timer[][] checkoutDuration;
+    private Counter[][] outcomes;
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        Payment.PaymentMethod[] methods = Payment.PaymentMethod.values();
+        Payment.PaymentStatus[] statuses = Payment.PaymentStatus.values();
+        GatewayOutcome[] gatewayOutcomes = GatewayOutcome.values();
+        gatewayLatency = new Timer[methods.length][gatewayOutcomes.length];
+        checkoutDuration = new Timer[methods.length][statuses.length];
+        outcomes = new Counter[methods.length][statuses.length];
+        for (Payment.PaymentMethod method : methods) {
+            for (GatewayOutcome outcome : gatewayOutcomes) {
+                gatewayLatency[method.ordinal()][outcome.ordinal()] = timer("payment.gateway.latency",
+                        "Time for one payment gateway call", method, "outcome", outcome.name());
+            }
+            for (Payment.PaymentStatus status : statuses) {
+                checkoutDuration[method.ordinal()][status.ordinal()] = timer("payment.checkout.duration",
+                        "Time from a payment request to its recorded outcome; PENDING means deferred for retry",
+                        method, "status", status.name());
+            }
+            outcomes[method.ordinal()][Payment.PaymentStatus.COMPLETED.ordinal()] = counter(method, "succeeded");
+            outcomes[method.ordinal()][Payment.PaymentStatus.FAILED.ordinal()] = counter(method, "failed");
+            outcomes[method.ordinal()][Payment.PaymentStatus.REFUNDED.ordinal()] = counter(method, "refunded");
+        }
+    }
+
+    public void recordGatewayCall(Payment.PaymentMethod method, GatewayOutcome outcome, long startedNanos) {
+        gatewayLatency[method.ordinal()][outcome.ordinal()].record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCheckout(Payment.PaymentMethod method, Payment.PaymentStatus status, long startedNanos) {
+        checkoutDuration[method.ordinal()][status.ordinal()].record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Counts a payment reaching COMPLETED, FAILED or REFUNDED; other statuses are not outcomes
+    public void recordTransition(Payment.PaymentMethod method, Payment.PaymentStatus status) {
+        Counter counter = outcomes[method.ordinal()][status.ordinal()];
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private Timer timer(String name, String description, Payment.PaymentMethod method, String tag, String value) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("method", method.name())
+                .tag(tag, value.toLowerCase(Locale.ROOT))
+                .publishPercentiles(percentiles)
+                .serviceLevelObjectives(Arrays.stream(sloMs).mapToObj(Duration::ofMillis).toArray(Duration[]::new))
+                // Bounds the histograms' range; percentiles beyond it read as the bound
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMillis(Math.max(gatewayTimeoutMs * 2, 1000)))
+                .distributionStatisticExpiry(Duration.ofMillis(windowMs))
+                .distributionStatisticBufferLength(windowBuffers)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(Payment.PaymentMethod method, String outcome) {
+        return Counter.builder("payment.outcomes")
+                .description("Payments that succeeded, failed or were refunded")
+                .tag("method", method.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,20 +1,141 @@
 package com.kalakriti.payment.service;
 
+import com.kalakriti.payment.dto.CustomerPaymentHistoryDTO;
+import com.kalakriti.payment.dto.CustomerPaymentSummaryDTO;
+import com.kalakriti.payment.dto.GatewayStatusDTO;
 import com.kalakriti.payment.entity.Payment;
 import com.kalakriti.payment.repository.PaymentRepository;
+import com.kalakriti.payment.util.KeysetCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class PaymentService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
+    private static final int MAX_ORDER_LOOKUP = 1000;
+
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private GatewayCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CustomerPaymentSummaryService summaryService;
+
+    @Autowired
+    private PaymentMappingService mappingService;
+
+    @Autowired
+    private PaymentMetrics metrics;
+
+    @Value("${payment.gateway.threads:200}")
+    private int gatewayThreads;
+
+    @Value("${payment.gateway.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${payment.gateway.timeout-ms:5000}")
+    private long gatewayTimeoutMs;
+
+    @Value("${payment.gateway.retry.backoff-ms:10000}")
+    private long retryBackoffMs;
+
+    @Value("${payment.gateway.retry.max-age-ms:900000}")
+    private long retryMaxAgeMs;
+
+    @Value("${payment.gateway.retry.batch-size:100}")
+    private int retryBatchSize;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter circuitRejections;
+    private final Counter bulkheadRejections;
+    private final Counter retriedCounter;
+    private final ConcurrentHashMap<AttemptKey, Attempt> attempts = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor gatewayPool;
+    private Semaphore inFlight;
+
+    public PaymentService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.circuitRejections = Counter.builder("payment.gateway.rejected")
+                .description("Gateway calls refused without being attempted")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("payment.gateway.rejected")
+                .description("Gateway calls refused without being attempted")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("payment.gateway.retried")
+                .description("PENDING payments sent to the gateway again")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.gateway.in.flight", this, service -> service.maxInFlight - service.inFlight.availablePermits());
+    }
+
+    // Calls into the gateway and records outcomes; a provider with a blocking client
+    // waits on these threads, so the pool is sized for concurrency, not cores. Its
+    // queue is bounded by the in-flight limit (the bulkhead), so a slow gateway sheds
+    // load instead of piling it up.
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIds = new AtomicInteger();
+        inFlight = new Semaphore(maxInFlight);
+        gatewayPool = new ThreadPoolExecutor(gatewayThreads, gatewayThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        gatewayPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        gatewayPool.shutdown();
+        if (!gatewayPool.awaitTermination(10, TimeUnit.SECONDS)) {
+            gatewayPool.shutdownNow();
+        }
+    }
+
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
     }
@@ -27,40 +148,309 @@ public class PaymentService {
         return paymentRepository.findByCustomerId(customerId);
     }
 
+    // A page of the customer's payments, newest first, with their summary
+    public CustomerPaymentHistoryDTO getCustomerHistory(Long customerId, String cursor, int size) {
+        Long beforeId = cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor, 1)[0] : null;
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        List<Payment> payments = paymentRepository.findCustomerPage(customerId, beforeId, PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (payments.size() > size) {
+            payments = payments.subList(0, size);
+            nextCursor = KeysetCursor.encode(payments.get(size - 1).getId());
+        }
+        return new CustomerPaymentHistoryDTO(
+                mappingService.toCustomerPaymentSummaryDTO(customerId, summaryService.getSummary(customerId).orElse(null)),
+                mappingService.toPaymentDTOList(payments),
+                nextCursor);
+    }
+
+    // Recomputes the customer's summary from their payments, to repair one that drifted
+    public CustomerPaymentSummaryDTO rebuildCustomerSummary(Long customerId) {
+        return mappingService.toCustomerPaymentSummaryDTO(customerId, summaryService.rebuild(customerId).orElse(null));
+    }
+
+    // An order can have several attempts, e.g. a retry after a decline; this is the latest
     public Optional<Payment> getPaymentByOrderId(Long orderId) {
-        return paymentRepository.findByOrderId(orderId);
+        return paymentRepository.findFirstByOrderIdOrderByCreatedAtDescIdDesc(orderId);
     }
 
-    @Transactional
-    public Payment processPayment(Payment payment) {
-        payment.setTransactionId(UUID.randomUUID().toString());
+    /**
+     * For each listed order that a payment has paid (COMPLETED) or may still pay
+     * (PENDING), that status, COMPLETED first; orders with neither are left out.
+     * order-service asks before cancelling orders whose payment window has passed.
+     */
+    public Map<Long, Payment.PaymentStatus> getOrderPaymentStatuses(Collection<Long> orderIds) {
+        if (orderIds.size() > MAX_ORDER_LOOKUP) {
+            throw new IllegalArgumentException("At most " + MAX_ORDER_LOOKUP + " orders can be looked up at once");
+        }
+        Map<Long, Payment.PaymentStatus> statuses = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return statuses;
+        }
+        for (PaymentRepository.OrderPaymentStatus row : paymentRepository.findOrderStatuses(orderIds,
+                List.of(Payment.PaymentStatus.COMPLETED, Payment.PaymentStatus.PENDING))) {
+            statuses.merge(row.getOrderId(), row.getStatus(),
+                    (a, b) -> a == Payment.PaymentStatus.COMPLETED ? a : b);
+        }
+        return statuses;
+    }
+
+    /**
+     * Processes the payment at most once per order and idempotency key. A duplicate
+     * that arrives while the first attempt is running waits for its result instead of
+     * charging again; one that arrives later gets the stored payment back. Without a
+     * key every request is a new payment.
+     */
+    public CompletableFuture<Payment> processPayment(Payment payment, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return charge(payment);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to 255 characters");
+        }
+        payment.setIdempotencyKey(idempotencyKey);
+        AttemptKey key = new AttemptKey(payment.getOrderId(), idempotencyKey);
+        Attempt attempt = new Attempt(payment);
+        Attempt running = attempts.putIfAbsent(key, attempt);
+        if (running != null) {
+            checkSameRequest(running.request, payment);
+            return running.result;
+        }
+        try {
+            Optional<Payment> stored = paymentRepository.findByOrderIdAndIdempotencyKey(payment.getOrderId(), idempotencyKey);
+            CompletableFuture<Payment> result;
+            if (stored.isPresent()) {
+                result = CompletableFuture.completedFuture(checkSameRequest(stored.get(), payment));
+            } else {
+                result = chargeOnce(payment, idempotencyKey);
+            }
+            result.whenComplete((processed, ex) -> {
+                attempts.remove(key, attempt);
+                if (ex != null) {
+                    attempt.result.completeExceptionally(ex);
+                } else {
+                    attempt.result.complete(processed);
+                }
+            });
+        } catch (RuntimeException ex) {
+            attempts.remove(key, attempt);
+            attempt.result.completeExceptionally(ex);
+            throw ex;
+        }
+        return attempt.result;
+    }
+
+    private CompletableFuture<Payment> chargeOnce(Payment payment, String idempotencyKey) {
         try {
-            Thread.sleep(100); // simulate network latency
-            payment.setStatus(Payment.PaymentStatus.COMPLETED);
-            payment.setGatewayResponse("Payment processed successfully");
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            payment.setStatus(Payment.PaymentStatus.FAILED);
-            payment.setGatewayResponse("Payment interrupted");
+            return charge(payment);
+        } catch (DataIntegrityViolationException ex) {
+            // Another node recorded the same key first
+            Payment stored = paymentRepository.findByOrderIdAndIdempotencyKey(payment.getOrderId(), idempotencyKey)
+                    .orElseThrow(() -> ex);
+            return CompletableFuture.completedFuture(checkSameRequest(stored, payment));
         }
-        return paymentRepository.save(payment);
+    }
+
+    // Reusing a key for a different payment is a client bug, not a retry
+    private static Payment checkSameRequest(Payment first, Payment retry) {
+        boolean same = Objects.equals(first.getCustomerId(), retry.getCustomerId())
+                && first.getAmount().compareTo(retry.getAmount()) == 0
+                && first.getMethod() == retry.getMethod();
+        if (!same) {
+            throw new IllegalStateException("Idempotency key was already used for a different payment");
+        }
+        return first;
+    }
+
+    /**
+     * Records the payment as PENDING, charges it through the gateway and records the
+     * outcome. Each write is its own short transaction, so no database connection is
+     * held while the gateway is working.
+     */
+    private CompletableFuture<Payment> charge(Payment payment) {
+        long started = System.nanoTime();
+        payment.setTransactionId(UUID.randomUUID().toString());
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        Payment pending = transactionTemplate.execute(status -> {
+            Payment saved = paymentRepository.saveAndFlush(payment);
+            summaryService.paymentCreated(saved);
+            return saved;
+        });
+        return callGateway(pending).whenComplete((processed, ex) -> {
+            if (processed != null) {
+                metrics.recordCheckout(processed.getMethod(), processed.getStatus(), started);
+            }
+        });
+    }
+
+    /**
+     * Sends a PENDING payment to the gateway, for the first time or again. While the
+     * circuit is open or the bulkhead is full it is not attempted: it stays PENDING
+     * and is left for {@link #retryPending}, so callers get an answer at once instead
+     * of waiting on a gateway that is not keeping up.
+     */
+    private CompletableFuture<Payment> callGateway(Payment pending) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitRejections.increment();
+            return CompletableFuture.completedFuture(recordOutcome(
+                    deferRetry(pending, "Payment gateway unavailable, will retry")));
+        }
+        if (!inFlight.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            bulkheadRejections.increment();
+            return CompletableFuture.completedFuture(recordOutcome(
+                    deferRetry(pending, "Payment gateway busy, will retry")));
+        }
+        long started = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> paymentGateway.charge(pending), gatewayPool)
+                .thenCompose(Function.identity())
+                .orTimeout(gatewayTimeoutMs, TimeUnit.MILLISECONDS)
+                .handleAsync((result, ex) -> {
+                    inFlight.release();
+                    circuitBreaker.onResult(ex != null || result.getOutcome() == GatewayResult.Outcome.ERROR);
+                    metrics.recordGatewayCall(pending.getMethod(), gatewayOutcome(result, ex), started);
+                    return recordOutcome(applyResult(pending, result, ex));
+                }, gatewayPool);
+    }
+
+    /**
+     * Sends due PENDING payments to the gateway again, as far as the breaker and the
+     * bulkhead allow; while the breaker is half open, one per run serves as a probe.
+     * The transaction id is reused, so a payment the gateway did charge on an
+     * unanswered attempt is not charged twice.
+     */
+    @Scheduled(fixedDelayString = "${payment.gateway.retry.poll-interval-ms:2000}")
+    public void retryPending() {
+        GatewayCircuitBreaker.State state;
+        while ((state = circuitBreaker.getState()) != GatewayCircuitBreaker.State.OPEN) {
+            int limit = Math.min(state == GatewayCircuitBreaker.State.HALF_OPEN ? 1 : retryBatchSize,
+                    inFlight.availablePermits());
+            if (limit == 0) {
+                return;
+            }
+            List<Payment> due = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Payment> claimed = paymentRepository.lockDueRetries(now, limit);
+                if (claimed.isEmpty()) {
+                    return claimed;
+                }
+                // Claimed past the call's timeout; if this node dies the claim lapses
+                LocalDateTime retryAt = now.plus(gatewayTimeoutMs + retryBackoffMs, ChronoUnit.MILLIS);
+                paymentRepository.claimRetries(claimed.stream().map(Payment::getId).collect(Collectors.toList()), retryAt);
+                claimed.forEach(payment -> payment.setRetryAt(retryAt));
+                return claimed;
+            });
+            due.forEach(payment -> {
+                retriedCounter.increment();
+                callGateway(payment).exceptionally(ex -> {
+                    log.warn("Retrying payment {} failed: {}", payment.getId(), ex.getMessage());
+                    return null;
+                });
+            });
+            if (due.size() < limit || state == GatewayCircuitBreaker.State.HALF_OPEN) {
+                return;
+            }
+        }
+    }
+
+    public GatewayStatusDTO getGatewayStatus() {
+        GatewayStatusDTO status = new GatewayStatusDTO();
+        status.setCircuitState(circuitBreaker.getState());
+        status.setFailureRate(circuitBreaker.getFailureRate());
+        status.setBufferedCalls(circuitBreaker.getBufferedCalls());
+        status.setInFlight(maxInFlight - inFlight.availablePermits());
+        status.setMaxInFlight(maxInFlight);
+        status.setRejectedCircuitOpen((long) circuitRejections.count());
+        status.setRejectedBulkheadFull((long) bulkheadRejections.count());
+        status.setRetried((long) retriedCounter.count());
+        return status;
+    }
+
+    // Left PENDING for another attempt, unless it has been pending too long to retry
+    private Payment deferRetry(Payment payment, String message) {
+        if (payment.getCreatedAt() != null
+                && payment.getCreatedAt().plus(retryMaxAgeMs, ChronoUnit.MILLIS).isBefore(LocalDateTime.now())) {
+            payment.setRetryAt(null);
+            payment.setGatewayResponse("Gave up retrying, outcome unknown");
+        } else {
+            payment.setRetryAt(LocalDateTime.now().plus(retryBackoffMs, ChronoUnit.MILLIS));
+            payment.setGatewayResponse(message);
+        }
+        return payment;
+    }
+
+    private Payment applyResult(Payment payment, GatewayResult result, Throwable failure) {
+        if (failure != null) {
+            // Timed out or lost: the provider may still have charged, so it stays PENDING
+            // and is retried under the same transaction id
+            boolean timedOut = failure instanceof TimeoutException || failure.getCause() instanceof TimeoutException;
+            return deferRetry(payment, timedOut ? "Gateway timed out, outcome unknown" : "Gateway call failed, outcome unknown");
+        }
+        payment.setRetryAt(null);
+        switch (result.getOutcome()) {
+            case APPROVED:
+                payment.setStatus(Payment.PaymentStatus.COMPLETED);
+                break;
+            case DECLINED:
+            case ERROR:
+                payment.setStatus(Payment.PaymentStatus.FAILED);
+                break;
+            default:
+                break;
+        }
+        payment.setGatewayResponse(result.getMessage());
+        return payment;
+    }
+
+    private static PaymentMetrics.GatewayOutcome gatewayOutcome(GatewayResult result, Throwable failure) {
+        if (failure != null) {
+            return failure instanceof TimeoutException || failure.getCause() instanceof TimeoutException
+                    ? PaymentMetrics.GatewayOutcome.TIMEOUT : PaymentMetrics.GatewayOutcome.FAILED;
+        }
+        return PaymentMetrics.GatewayOutcome.valueOf(result.getOutcome().name());
+    }
+
+    /**
+     * Writes a gateway attempt's outcome onto the payment, if it is still PENDING.
+     * The attempt works on a copy read before the call, and a webhook or an operator
+     * may have settled the payment since; then their outcome stands, nothing is
+     * posted or counted again, and the stored payment is returned.
+     */
+    private Payment recordOutcome(Payment payment) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (paymentRepository.recordOutcome(payment.getId(), payment.getStatus(), payment.getGatewayResponse(),
+                    payment.getRetryAt(), now) == 0) {
+                return paymentRepository.findById(payment.getId()).orElse(payment);
+            }
+            payment.setUpdatedAt(now);
+            recordTransition(payment, Payment.PaymentStatus.PENDING);
+            return payment;
+        });
     }
 
     @Transactional
     public Payment updatePaymentStatus(Long id, Payment.PaymentStatus status) {
         Payment payment = paymentRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+        Payment.PaymentStatus previous = payment.getStatus();
         payment.setStatus(status);
-        return paymentRepository.save(payment);
+        Payment saved = paymentRepository.saveAndFlush(payment);
+        recordTransition(saved, previous);
+        return saved;
     }
 
+    @Transactional
     public void deletePayment(Long id) {
-        if (!paymentRepository.existsById(id)) {
-            throw new IllegalArgumentException("Payment not found");
-        }
-        paymentRepository.deleteById(id);
+        Payment payment = paymentRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+        paymentRepository.delete(payment);
+        paymentRepository.flush();
+        // Its customer's last payment may have been this one, which no delta can undo
+        summaryService.recompute(List.of(payment.getCustomerId()));
     }
 
+    @Transactional
     public Payment updatePayment(Long id, Payment paymentDetails) {
         Optional<Payment> optionalPayment = paymentRepository.findById(id);
         if (optionalPayment.isEmpty()) {
@@ -68,11 +458,62 @@ public class PaymentService {
         }
 
         Payment payment = optionalPayment.get();
+        Payment.PaymentStatus previous = payment.getStatus();
         payment.setStatus(paymentDetails.getStatus() != null ? paymentDetails.getStatus() : payment.getStatus());
         payment.setTransactionId(paymentDetails.getTransactionId() != null ? paymentDetails.getTransactionId() : payment.getTransactionId());
         payment.setGatewayResponse(paymentDetails.getGatewayResponse() != null ? paymentDetails.getGatewayResponse() : payment.getGatewayResponse());
 
-        return paymentRepository.save(payment);
+        Payment saved = paymentRepository.saveAndFlush(payment);
+        recordTransition(saved, previous);
+        return saved;
+    }
+
+    // Posts the move to the ledger and refreshes the customer's summary, in the caller's
+    // transaction; ledger postings are keyed per payment, so a repeat posts nothing new
+    private void recordTransition(Payment payment, Payment.PaymentStatus previous) {
+        if (payment.getStatus() == previous) {
+            return;
+        }
+        summaryService.statusChanged(payment, previous);
+        metrics.recordTransition(payment.getMethod(), payment.getStatus());
+        if (payment.getStatus() == Payment.PaymentStatus.COMPLETED) {
+            ledgerService.recordCaptures(List.of(payment.getId()));
+        } else if (payment.getStatus() == Payment.PaymentStatus.REFUNDED) {
+            ledgerService.recordRefundsOfRemainder(List.of(payment.getId()));
+        }
     }
 
+    private static final class AttemptKey {
+        private final Long orderId;
+        private final String idempotencyKey;
+
+        private AttemptKey(Long orderId, String idempotencyKey) {
+            this.orderId = orderId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof AttemptKey)) {
+                return false;
+            }
+            AttemptKey that = (AttemptKey) other;
+            return orderId.equals(that.orderId) && idempotencyKey.equals(that.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(orderId, idempotencyKey);
+        }
+    }
+
+    // The first request for a key, which concurrent duplicates wait on
+    private static final class Attempt {
+        private final Payment request;
+        private final CompletableFuture<Payment> result = new CompletableFuture<>();
+
+        private Attempt(Payment request) {
+            this.request = request;
+        }
+    }
 }
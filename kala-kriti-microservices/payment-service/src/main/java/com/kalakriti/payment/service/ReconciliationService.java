@@ -0,0 +1,309 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.ReconciliationDiscrepancy;
+import com.kalakriti.payment.entity.ReconciliationRun;
+import com.kalakriti.payment.repository.PaymentRepository;
+import com.kalakriti.payment.repository.ReconciliationDiscrepancyRepository;
+import com.kalakriti.payment.repository.ReconciliationRunRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reconciles payments against a gateway settlement file. The file is the build side
+ * of a hash join ({@link SettlementFile}, memory-mapped, indexed off-heap of its
+ * records); payments for the period are streamed past it in keyset chunks and each
+ * is probed by transaction id. Settlement records left unmatched are looked up by
+ * transaction id in case they were created outside the period. Heap use is bounded
+ * by the index and one chunk, whatever the size of the period.
+ *
+ * <p>Discrepancies are written to {@code reconciliation_discrepancies}, keyed by
+ * run; nothing in {@code payments} is changed.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final String INSERT_DISCREPANCY_SQL = "INSERT INTO reconciliation_discrepancies "
+            + "(run_id, type, transaction_id, payment_id, payment_amount, settled_amount, payment_status, "
+            + "settlement_status, detail, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // The payment status a settlement status implies
+    private static final Map<String, Payment.PaymentStatus> SETTLED_AS = Map.of(
+            "SETTLED", Payment.PaymentStatus.COMPLETED,
+            "REFUNDED", Payment.PaymentStatus.REFUNDED,
+            "FAILED", Payment.PaymentStatus.FAILED);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Autowired
+    private ReconciliationDiscrepancyRepository discrepancyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${payment.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconciliation.settlement-dir:settlements}")
+    private String settlementDir;
+
+    @Value("${payment.reconciliation.chunk-size:5000}")
+    private int chunkSize;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+    }
+
+    // Yesterday's payments against yesterday's file, settlement-<yyyy-MM-dd>.csv
+    @Scheduled(cron = "${payment.reconciliation.cron:0 0 3 * * *}")
+    public void scheduledReconciliation() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate day = LocalDate.now().minusDays(1);
+        String fileName = "settlement-" + day + ".csv";
+        if (!Files.isReadable(Paths.get(settlementDir).resolve(fileName))) {
+            log.warn("No settlement file {} in {}, skipping reconciliation", fileName, settlementDir);
+            return;
+        }
+        try {
+            reconcile(fileName, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        } catch (IllegalStateException ex) {
+            log.warn("Skipping scheduled reconciliation: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Starts reconciling payments created in [from, to) against a file in the
+     * settlement directory, in the background. One run at a time.
+     */
+    public ReconciliationRun reconcile(String fileName, LocalDateTime from, LocalDateTime to) {
+        Path file = resolve(fileName);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        try {
+            ReconciliationRun run = new ReconciliationRun();
+            run.setSettlementFile(fileName);
+            run.setPeriodFrom(from);
+            run.setPeriodTo(to);
+            run.setStartedAt(LocalDateTime.now());
+            ReconciliationRun saved = runRepository.save(run);
+            runner.execute(() -> execute(saved, file));
+            return saved;
+        } catch (RuntimeException ex) {
+            running.set(false);
+            throw ex;
+        }
+    }
+
+    public Optional<ReconciliationRun> getRun(Long runId) {
+        return runRepository.findById(runId);
+    }
+
+    public List<ReconciliationDiscrepancy> getDiscrepancies(Long runId, Long afterId, int limit) {
+        return discrepancyRepository.findByRunIdAndIdGreaterThanOrderByIdAsc(runId, afterId != null ? afterId : 0L,
+                PageRequest.of(0, limit));
+    }
+
+    private Path resolve(String fileName) {
+        Path dir = Paths.get(settlementDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(fileName).normalize();
+        // Only files directly in the settlement directory
+        if (!dir.equals(file.getParent())) {
+            throw new IllegalArgumentException("Invalid settlement file name: " + fileName);
+        }
+        if (!Files.isReadable(file)) {
+            throw new IllegalArgumentException("Settlement file not found: " + fileName);
+        }
+        return file;
+    }
+
+    private void execute(ReconciliationRun run, Path file) {
+        long started = System.nanoTime();
+        Report report = new Report(run);
+        try (SettlementFile settlement = SettlementFile.open(file)) {
+            run.setSettlementRecords(settlement.getRecords());
+            settlement.forEachMalformed(line -> report.add(ReconciliationDiscrepancy.DiscrepancyType.MALFORMED_RECORD,
+                    null, null, null, "Unparseable line: " + truncate(line)));
+            settlement.forEachDuplicate(record -> report.add(ReconciliationDiscrepancy.DiscrepancyType.DUPLICATE_SETTLEMENT,
+                    null, record, null, "Transaction settled more than once"));
+
+            // Probe side: payments in the period, one chunk at a time
+            LocalDateTime afterCreatedAt = run.getPeriodFrom();
+            Long afterId = 0L;
+            List<Payment> chunk;
+            do {
+                chunk = paymentRepository.findCreatedChunk(run.getPeriodTo(), afterCreatedAt, afterId,
+                        PageRequest.of(0, chunkSize));
+                for (Payment payment : chunk) {
+                    int slot = payment.getTransactionId() != null ? settlement.match(payment.getTransactionId()) : -1;
+                    if (slot >= 0) {
+                        run.setMatched(run.getMatched() + 1);
+                        compare(payment, settlement.record(slot), report);
+                    } else if (payment.getStatus() == Payment.PaymentStatus.COMPLETED
+                            || payment.getStatus() == Payment.PaymentStatus.REFUNDED) {
+                        report.add(ReconciliationDiscrepancy.DiscrepancyType.MISSING_IN_SETTLEMENT, payment, null, null,
+                                "Captured but not settled");
+                    }
+                }
+                run.setPaymentsScanned(run.getPaymentsScanned() + chunk.size());
+                if (!chunk.isEmpty()) {
+                    Payment last = chunk.get(chunk.size() - 1);
+                    afterCreatedAt = last.getCreatedAt();
+                    afterId = last.getId();
+                }
+                report.flush();
+                runRepository.save(run);
+            } while (chunk.size() == chunkSize);
+
+            // Settled records with no payment in the period: created outside it, or unknown
+            List<SettlementFile.Settlement> unmatched = new ArrayList<>(chunkSize);
+            settlement.forEachUnmatched(record -> {
+                unmatched.add(record);
+                if (unmatched.size() == chunkSize) {
+                    compareOutsidePeriod(unmatched, run, report);
+                    unmatched.clear();
+                }
+            });
+            compareOutsidePeriod(unmatched, run, report);
+            report.flush();
+
+            run.setState(ReconciliationRun.RunState.COMPLETED);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Reconciliation run {} failed", run.getId(), ex);
+            report.flush();
+            run.setState(ReconciliationRun.RunState.FAILED);
+            run.setError(truncate(String.valueOf(ex.getMessage())));
+        } finally {
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+            running.set(false);
+        }
+        log.info("Reconciliation run {}: {} payments, {} settlement records, {} matched, {} discrepancies in {} ms",
+                run.getId(), run.getPaymentsScanned(), run.getSettlementRecords(), run.getMatched(),
+                run.getDiscrepancies(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void compareOutsidePeriod(List<SettlementFile.Settlement> records, ReconciliationRun run, Report report) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<String, Payment> payments = paymentRepository.findByTransactionIdIn(records.stream()
+                        .map(SettlementFile.Settlement::getTransactionId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Payment::getTransactionId, Function.identity(), (first, second) -> first));
+        for (SettlementFile.Settlement record : records) {
+            Payment payment = payments.get(record.getTransactionId());
+            if (payment == null) {
+                report.add(ReconciliationDiscrepancy.DiscrepancyType.UNKNOWN_TRANSACTION, null, record, null,
+                        "Settled but no such payment");
+            } else {
+                run.setMatched(run.getMatched() + 1);
+                compare(payment, record, report);
+            }
+        }
+    }
+
+    private static void compare(Payment payment, SettlementFile.Settlement record, Report report) {
+        if (record.getAmount() == null) {
+            report.add(ReconciliationDiscrepancy.DiscrepancyType.MALFORMED_RECORD, payment, record, null,
+                    "Unparseable settled amount");
+        } else if (payment.getAmount().compareTo(record.getAmount()) != 0) {
+            report.add(ReconciliationDiscrepancy.DiscrepancyType.AMOUNT_MISMATCH, payment, record, record.getAmount(),
+                    null);
+        }
+        Payment.PaymentStatus expected = SETTLED_AS.get(record.getStatus());
+        if (expected == null) {
+            report.add(ReconciliationDiscrepancy.DiscrepancyType.MALFORMED_RECORD, payment, record, record.getAmount(),
+                    "Unknown settlement status");
+        } else if (payment.getStatus() != expected) {
+            // Includes payments left PENDING by a gateway timeout that the provider did settle
+            report.add(ReconciliationDiscrepancy.DiscrepancyType.STATUS_MISMATCH, payment, record, record.getAmount(),
+                    "Expected " + expected);
+        }
+    }
+
+    private static String truncate(String text) {
+        return text.length() > 500 ? text.substring(0, 500) : text;
+    }
+
+    // Discrepancies of the current chunk, written in one JDBC batch
+    private class Report {
+        private final ReconciliationRun run;
+        private final List<Object[]> pending = new ArrayList<>();
+
+        Report(ReconciliationRun run) {
+            this.run = run;
+        }
+
+        void add(ReconciliationDiscrepancy.DiscrepancyType type, Payment payment, SettlementFile.Settlement record,
+                 BigDecimal settledAmount, String detail) {
+            String transactionId = payment != null ? payment.getTransactionId()
+                    : record != null ? record.getTransactionId() : null;
+            pending.add(new Object[]{
+                run.getId(),
+                type.name(),
+                transactionId,
+                payment != null ? payment.getId() : null,
+                payment != null ? payment.getAmount() : null,
+                settledAmount != null ? settledAmount : record != null ? record.getAmount() : null,
+                payment != null ? payment.getStatus().name() : null,
+                record != null ? record.getStatus() : null,
+                detail,
+                Timestamp.valueOf(LocalDateTime.now())
+            });
+            run.setDiscrepancies(run.getDiscrepancies() + 1);
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_DISCREPANCY_SQL, pending);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.config.RefundProperties;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import com.kalakriti.payment.repository.PaymentRepository;
+import com.kalakriti.payment.repository.RefundRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Refunds are queued in the {@code refunds} table and paid out by workers. A
+ * request only records the refund; workers claim due refunds per payment method in
+ * batches, submit each batch to the gateway in one call, and record the outcomes in
+ * one transaction. Each method has its own limit on batches in flight, so a slow
+ * acquirer does not hold up refunds for the others.
+ *
+ * <p>A refund whose submission goes unanswered stays SUBMITTED and is resubmitted
+ * under the same id after a backoff; after the last attempt it is parked for
+ * reconciliation rather than failed, since the gateway may have paid it. An answer
+ * is only recorded while its attempt still holds the refund, so one arriving after
+ * the claim lapsed and another worker took it over changes nothing. A payment
+ * becomes REFUNDED once its successful refunds cover its amount.
+ */
+@Service
+@EnableConfigurationProperties(RefundProperties.class)
+public class RefundService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefundService.class);
+
+    // Refunds that count against what is left to refund
+    private static final List<Refund.RefundState> OUTSTANDING = List.of(
+            Refund.RefundState.QUEUED, Refund.RefundState.SUBMITTED, Refund.RefundState.SUCCEEDED);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CustomerPaymentSummaryService summaryService;
+
+    @Autowired
+    private PaymentMetrics metrics;
+
+    private final RefundProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Payment.PaymentMethod, Semaphore> slots = new EnumMap<>(Payment.PaymentMethod.class);
+    private ThreadPoolExecutor workers;
+
+    public RefundService(PlatformTransactionManager transactionManager, RefundProperties properties) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        for (Payment.PaymentMethod method : Payment.PaymentMethod.values()) {
+            slots.put(method, new Semaphore(properties.concurrencyFor(method)));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIds = new AtomicInteger();
+        workers = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-refund-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues a refund of part or, without an amount, all of what is left of a
+     * completed payment. The payment row is locked so concurrent requests cannot
+     * refund more than was paid.
+     */
+    @Transactional
+    public Refund requestRefund(Long paymentId, BigDecimal amount, String reason) {
+        Payment payment = paymentRepository.lockById(paymentId)
+                .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+        if (payment.getStatus() != Payment.PaymentStatus.COMPLETED) {
+            throw new IllegalStateException("Only completed payments can be refunded");
+        }
+        if (amount != null && amount.signum() <= 0) {
+            throw new IllegalArgumentException("Refund amount must be positive");
+        }
+        BigDecimal refundable = payment.getAmount()
+                .subtract(refundRepository.sumAmountByPaymentIdAndStateIn(paymentId, OUTSTANDING));
+        if (refundable.signum() <= 0) {
+            throw new IllegalStateException("Payment has already been refunded in full");
+        }
+        if (amount != null && amount.compareTo(refundable) > 0) {
+            throw new IllegalStateException("Refund exceeds the refundable amount of " + refundable);
+        }
+        Refund refund = new Refund();
+        refund.setPaymentId(payment.getId());
+        refund.setOrderId(payment.getOrderId());
+        refund.setCustomerId(payment.getCustomerId());
+        refund.setMethod(payment.getMethod());
+        refund.setAmount(amount != null ? amount : refundable);
+        refund.setReason(reason);
+        refund.setNextAttemptAt(LocalDateTime.now());
+        return refundRepository.save(refund);
+    }
+
+    public Optional<Refund> getRefund(Long id) {
+        return refundRepository.findById(id);
+    }
+
+    public List<Refund> getRefundsForPayment(Long paymentId) {
+        return refundRepository.findByPaymentIdOrderByIdAsc(paymentId);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.refunds.poll-interval-ms:1000}")
+    public void dispatch() {
+        for (Map.Entry<Payment.PaymentMethod, Semaphore> slot : slots.entrySet()) {
+            // One batch per free slot, until the method has nothing due
+            while (slot.getValue().tryAcquire()) {
+                List<Refund> batch;
+                try {
+                    batch = claim(slot.getKey());
+                } catch (RuntimeException ex) {
+                    slot.getValue().release();
+                    log.warn("Claiming {} refunds failed, will retry: {}", slot.getKey(), ex.getMessage());
+                    break;
+                }
+                if (batch.isEmpty()) {
+                    slot.getValue().release();
+                    break;
+                }
+                submit(batch, slot.getValue());
+                if (batch.size() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private List<Refund> claim(Payment.PaymentMethod method) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Refund> batch = refundRepository.lockDueBatch(method.name(), now, properties.getBatchSize());
+            for (Refund refund : batch) {
+                refund.setState(Refund.RefundState.SUBMITTED);
+                refund.setAttempts(refund.getAttempts() + 1);
+                // The claim outlives the call's timeout; if this node dies it lapses and
+                // another worker resubmits
+                refund.setNextAttemptAt(now.plus(properties.getTimeoutMs() + properties.getRetryBackoffMs(),
+                        ChronoUnit.MILLIS));
+            }
+            return refundRepository.saveAll(batch);
+        });
+    }
+
+    private void submit(List<Refund> batch, Semaphore slot) {
+        CompletableFuture.supplyAsync(() -> paymentGateway.refund(batch), workers)
+                .thenCompose(Function.identity())
+                .orTimeout(properties.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .handleAsync((results, ex) -> {
+                    try {
+                        recordOutcomes(batch, ex == null && results.size() == batch.size() ? results : null);
+                    } catch (RuntimeException recordFailure) {
+                        // The claim lapses and the batch is resubmitted under the same ids
+                        log.warn("Recording refund outcomes failed: {}", recordFailure.getMessage());
+                    } finally {
+                        slot.release();
+                    }
+                    return null;
+                }, workers);
+    }
+
+    // Results are null when the gateway did not answer. The batch holds the copies
+    // claimed for this attempt.
+    private void recordOutcomes(List<Refund> batch, List<GatewayResult> results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime retryAt = now.plus(properties.getRetryBackoffMs(), ChronoUnit.MILLIS);
+            List<Refund> counted = new ArrayList<>();
+            List<CustomerPaymentSummaryService.StatusChange> refundedPayments = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Refund refund = batch.get(i);
+                boolean lastAttempt = refund.getAttempts() >= properties.getMaxAttempts();
+                GatewayResult result = results != null ? results.get(i) : null;
+                if (result == null) {
+                    refund.setNextAttemptAt(lastAttempt ? null : retryAt);
+                    refund.setGatewayResponse(lastAttempt
+                            ? "Gateway did not answer, left for reconciliation"
+                            : "Gateway did not answer, will resubmit");
+                    recordOutcome(refund, now);
+                    continue;
+                }
+                refund.setGatewayResponse(result.getMessage());
+                switch (result.getOutcome()) {
+                    case APPROVED:
+                        refund.setState(Refund.RefundState.SUCCEEDED);
+                        refund.setGatewayReference(result.getReference());
+                        refund.setNextAttemptAt(null);
+                        break;
+                    case ERROR:
+                        // Not processed, so safe to queue again
+                        refund.setState(lastAttempt ? Refund.RefundState.FAILED : Refund.RefundState.QUEUED);
+                        refund.setNextAttemptAt(lastAttempt ? null : retryAt);
+                        break;
+                    default:
+                        refund.setState(Refund.RefundState.FAILED);
+                        refund.setNextAttemptAt(null);
+                        break;
+                }
+                if (recordOutcome(refund, now) && refund.getState() == Refund.RefundState.SUCCEEDED) {
+                    ledgerService.recordRefund(refund);
+                    markRefundedIfCovered(refund, counted, refundedPayments);
+                }
+            }
+            summaryService.refundsSucceeded(counted, refundedPayments);
+        });
+    }
+
+    private boolean recordOutcome(Refund refund, LocalDateTime now) {
+        if (refundRepository.recordOutcome(refund.getId(), refund.getAttempts(), refund.getState(),
+                refund.getGatewayReference(), refund.getGatewayResponse(), refund.getNextAttemptAt(), now) == 0) {
+            log.info("Refund {} was taken over after attempt {}; its late answer is dropped",
+                    refund.getId(), refund.getAttempts());
+            return false;
+        }
+        refund.setUpdatedAt(now);
+        return true;
+    }
+
+    // Collects the refund for its customer's refunded total if its payment was still
+    // COMPLETED (a REFUNDED one counts in full already), and the payment if it is now
+    // refunded in full
+    private void markRefundedIfCovered(Refund refund, List<Refund> counted,
+                                       List<CustomerPaymentSummaryService.StatusChange> refundedPayments) {
+        paymentRepository.lockById(refund.getPaymentId()).ifPresent(payment -> {
+            if (payment.getStatus() != Payment.PaymentStatus.COMPLETED) {
+                return;
+            }
+            counted.add(refund);
+            BigDecimal refunded = refundRepository.sumAmountByPaymentIdAndStateIn(payment.getId(),
+                    List.of(Refund.RefundState.SUCCEEDED));
+            if (refunded.compareTo(payment.getAmount()) >= 0) {
+                payment.setStatus(Payment.PaymentStatus.REFUNDED);
+                paymentRepository.save(payment);
+                metrics.recordTransition(payment.getMethod(), Payment.PaymentStatus.REFUNDED);
+                refundedPayments.add(new CustomerPaymentSummaryService.StatusChange(payment.getId(),
+                        payment.getCustomerId(), payment.getAmount(), Payment.PaymentStatus.COMPLETED,
+                        Payment.PaymentStatus.REFUNDED));
+            }
+        });
+    }
+}
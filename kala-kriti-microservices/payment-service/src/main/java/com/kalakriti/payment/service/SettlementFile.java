@@ -0,0 +1,273 @@
+package com.kalakriti.payment.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A gateway settlement file, memory-mapped and indexed by transaction id: the build
+ * side of the reconciliation hash join. The records stay in the page cache; the
+ * index holds only a hash and a file offset per record (about 32 bytes with its
+ * load factor), so heap use does not depend on line length and no per-record
+ * objects are created until a record is looked at.
+ *
+ * <p>Format: one record per line, {@code transaction_id,amount,status[,settled_at]},
+ * with an optional header line starting with {@code transaction_id}. Status is
+ * SETTLED, REFUNDED or FAILED. Lines are limited to {@value #MAX_LINE} bytes.
+ */
+final class SettlementFile implements AutoCloseable {
+
+    // A single mapping is limited to 2 GB, so larger files are mapped in windows
+    private static final int WINDOW_BITS = 28;
+    private static final long WINDOW = 1L << WINDOW_BITS;
+    private static final int MAX_LINE = 4096;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final long size;
+    // Open addressing with linear probing; offsets are stored plus one so zero is empty
+    private final long[] slotHashes;
+    private final long[] slotOffsets;
+    private final long[] matchedSlots;
+    private final List<Long> duplicateOffsets = new ArrayList<>();
+    private final List<Long> malformedOffsets = new ArrayList<>();
+    private int records;
+
+    private SettlementFile(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        int windowCount = (int) ((size + WINDOW - 1) / WINDOW);
+        this.windows = new MappedByteBuffer[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            long start = i * WINDOW;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, countLines() * 2 - 1)) << 1;
+        this.slotHashes = new long[capacity];
+        this.slotOffsets = new long[capacity];
+        this.matchedSlots = new long[(capacity + 63) / 64];
+    }
+
+    static SettlementFile open(Path path) throws IOException {
+        SettlementFile file = new SettlementFile(path);
+        try {
+            file.buildIndex();
+        } catch (RuntimeException ex) {
+            file.close();
+            throw ex;
+        }
+        return file;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    /**
+     * The slot of the record with this transaction id, marking it matched, or -1 when
+     * the file has no such record.
+     */
+    int match(String transactionId) {
+        byte[] id = transactionId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(id);
+        int mask = slotOffsets.length - 1;
+        for (int slot = (int) hash & mask; slotOffsets[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && idEquals(slotOffsets[slot] - 1, id)) {
+                matchedSlots[slot >>> 6] |= 1L << slot;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    Settlement record(int slot) {
+        return parse(slotOffsets[slot] - 1);
+    }
+
+    void forEachUnmatched(Consumer<Settlement> action) {
+        for (int slot = 0; slot < slotOffsets.length; slot++) {
+            if (slotOffsets[slot] != 0 && (matchedSlots[slot >>> 6] & (1L << slot)) == 0) {
+                action.accept(parse(slotOffsets[slot] - 1));
+            }
+        }
+    }
+
+    // Second and later records for a transaction id already in the index
+    void forEachDuplicate(Consumer<Settlement> action) {
+        duplicateOffsets.forEach(offset -> action.accept(parse(offset)));
+    }
+
+    void forEachMalformed(Consumer<String> action) {
+        malformedOffsets.forEach(offset -> action.accept(lineAt(offset)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int countLines() {
+        int lines = 0;
+        long position = 0;
+        while (position < size) {
+            position = lineEnd(position) + 1;
+            lines++;
+        }
+        return lines;
+    }
+
+    private void buildIndex() {
+        int mask = slotOffsets.length - 1;
+        long position = 0;
+        while (position < size) {
+            long end = lineEnd(position);
+            long contentEnd = end > position && byteAt(end - 1) == '\r' ? end - 1 : end;
+            long idEnd = fieldEnd(position, end);
+            if (contentEnd > position && !(position == 0 && startsWith(position, "transaction_id"))) {
+                if (idEnd == position || idEnd == end || fieldEnd(idEnd + 1, end) == end) {
+                    malformedOffsets.add(position);
+                } else {
+                    insert(position, idEnd, mask);
+                }
+            }
+            position = end + 1;
+        }
+    }
+
+    private void insert(long offset, long idEnd, int mask) {
+        long hash = FNV_OFFSET;
+        for (long i = offset; i < idEnd; i++) {
+            hash = (hash ^ (byteAt(i) & 0xff)) * FNV_PRIME;
+        }
+        int slot = (int) hash & mask;
+        while (slotOffsets[slot] != 0) {
+            long existing = slotOffsets[slot] - 1;
+            if (slotHashes[slot] == hash && sameId(existing, offset, (int) (idEnd - offset))) {
+                duplicateOffsets.add(offset);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slotHashes[slot] = hash;
+        slotOffsets[slot] = offset + 1;
+        records++;
+    }
+
+    private Settlement parse(long offset) {
+        String[] fields = lineAt(offset).split(",", -1);
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(fields[1].trim());
+        } catch (NumberFormatException ex) {
+            amount = null;
+        }
+        return new Settlement(fields[0], amount, fields[2].trim());
+    }
+
+    private String lineAt(long offset) {
+        long end = lineEnd(offset);
+        byte[] line = new byte[(int) (end - offset)];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = byteAt(offset + i);
+        }
+        int length = line.length > 0 && line[line.length - 1] == '\r' ? line.length - 1 : line.length;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean idEquals(long offset, byte[] id) {
+        for (int i = 0; i < id.length; i++) {
+            if (offset + i >= size || byteAt(offset + i) != id[i]) {
+                return false;
+            }
+        }
+        return offset + id.length < size && byteAt(offset + id.length) == ',';
+    }
+
+    private boolean sameId(long first, long second, int length) {
+        for (int i = 0; i < length; i++) {
+            if (byteAt(first + i) != byteAt(second + i)) {
+                return false;
+            }
+        }
+        return byteAt(first + length) == ',';
+    }
+
+    private boolean startsWith(long offset, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (offset + i >= size || byteAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Position of the line's '\n', or the end of the file
+    private long lineEnd(long start) {
+        long limit = Math.min(size, start + MAX_LINE);
+        for (long i = start; i < limit; i++) {
+            if (byteAt(i) == '\n') {
+                return i;
+            }
+        }
+        if (limit < size) {
+            throw new IllegalStateException("Settlement line at byte " + start + " exceeds " + MAX_LINE + " bytes");
+        }
+        return size;
+    }
+
+    // Position of the next ',' before the line end, or the line end
+    private long fieldEnd(long start, long lineEnd) {
+        for (long i = start; i < lineEnd; i++) {
+            if (byteAt(i) == ',') {
+                return i;
+            }
+        }
+        return lineEnd;
+    }
+
+    private byte byteAt(long position) {
+        return windows[(int) (position >>> WINDOW_BITS)].get((int) (position & (WINDOW - 1)));
+    }
+
+    private static long hash(byte[] id) {
+        long hash = FNV_OFFSET;
+        for (byte b : id) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static final class Settlement {
+        private final String transactionId;
+        private final BigDecimal amount;
+        private final String status;
+
+        private Settlement(String transactionId, BigDecimal amount, String status) {
+            this.transactionId = transactionId;
+            this.amount = amount;
+            this.status = status;
+        }
+
+        String getTransactionId() {
+            return transactionId;
+        }
+
+        // Null when the amount could not be parsed
+        BigDecimal getAmount() {
+            return amount;
+        }
+
+        String getStatus() {
+            return status;
+        }
+    }
+}
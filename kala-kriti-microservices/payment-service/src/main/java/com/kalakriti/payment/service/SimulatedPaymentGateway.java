@@ -0,0 +1,108 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.config.GatewaySimulatorProperties;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for a payment provider, for offline capacity tests. Answers are
+ * scheduled after a sampled latency rather than slept for, so thousands of calls can
+ * be in flight on a few threads. Selected with {@code payment.gateway.provider=simulator}.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.gateway.provider", havingValue = "simulator", matchIfMissing = true)
+@EnableConfigurationProperties(GatewaySimulatorProperties.class)
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final GatewaySimulatorProperties properties;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public SimulatedPaymentGateway(GatewaySimulatorProperties properties) {
+        this.properties = properties;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(properties.getSchedulerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "gateway-simulator-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> charge(Payment payment) {
+        GatewaySimulatorProperties.Profile profile = properties.profileFor(payment.getMethod());
+        CompletableFuture<GatewayResult> result = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < profile.getTimeoutRate()) {
+            // The provider never answers
+            return result;
+        }
+        GatewayResult answer;
+        if (random.nextDouble() < profile.getErrorRate()) {
+            answer = GatewayResult.error("Simulated gateway error");
+        } else if (random.nextDouble() < profile.getDeclineRate()) {
+            answer = GatewayResult.declined("Payment declined");
+        } else {
+            answer = GatewayResult.approved("sim-" + UUID.randomUUID(), "Payment processed successfully");
+        }
+        scheduler.schedule(() -> result.complete(answer), sampleLatency(profile, random), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    // One latency sample per submission; errors and declines are drawn per refund
+    @Override
+    public CompletableFuture<List<GatewayResult>> refund(List<Refund> refunds) {
+        GatewaySimulatorProperties.Profile profile = properties.profileFor(refunds.get(0).getMethod());
+        CompletableFuture<List<GatewayResult>> result = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < profile.getTimeoutRate()) {
+            return result;
+        }
+        List<GatewayResult> answers = new ArrayList<>(refunds.size());
+        for (int i = 0; i < refunds.size(); i++) {
+            if (random.nextDouble() < profile.getErrorRate()) {
+                answers.add(GatewayResult.error("Simulated gateway error"));
+            } else if (random.nextDouble() < profile.getDeclineRate()) {
+                answers.add(GatewayResult.declined("Refund declined"));
+            } else {
+                answers.add(GatewayResult.approved("sim-refund-" + UUID.randomUUID(), "Refund processed successfully"));
+            }
+        }
+        scheduler.schedule(() -> result.complete(answers), sampleLatency(profile, random), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private static long sampleLatency(GatewaySimulatorProperties.Profile profile, ThreadLocalRandom random) {
+        double latency;
+        switch (profile.getLatency()) {
+            case NORMAL:
+                latency = profile.getLatencyMs() + random.nextGaussian() * profile.getLatencyStddevMs();
+                break;
+            case LONG_TAIL:
+                // Inverse-CDF sample of a Pareto distribution with the latency as its minimum
+                latency = profile.getLatencyMs() / Math.pow(1.0 - random.nextDouble(), 1.0 / profile.getTailShape());
+                break;
+            default:
+                latency = profile.getLatencyMs();
+                break;
+        }
+        return Math.max(0L, Math.min((long) latency, profile.getMaxLatencyMs()));
+    }
+}
@@ -0,0 +1,415 @@
+package com.kalakriti.payment.service;
+
+import com.kalakriti.payment.dto.WebhookEventDTO;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Takes gateway webhooks off the request thread. An event is acknowledged as soon as
+ * it is in a bounded in-memory ring; when the ring is full the gateway is told to
+ * come back later. One drainer thread takes events off in batches and, per batch,
+ * records their ids (skipping ids already recorded, which is the durable
+ * deduplication) and applies the new ones with one set-based UPDATE per kind of
+ * transition, joined on the indexed transaction id. A batch that keeps failing is
+ * split until the events that fail on their own are isolated; those are moved to
+ * {@code payment_webhook_dead_letters} so the events behind them keep flowing.
+ *
+ * <p>Events are only acted on when they move a payment forward: COMPLETED or FAILED
+ * from PENDING, REFUNDED from COMPLETED. A late or reordered event changes nothing.
+ * Events still in the ring when the process dies are lost; reconciliation against
+ * the settlement file catches the payments they would have updated.
+ */
+@Service
+public class WebhookIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookIngestionService.class);
+
+    private static final String RECORD_EVENTS_SQL = "INSERT INTO payment_webhook_events "
+            + "(event_id, transaction_id, status, received_at) "
+            + "SELECT e.event_id, e.transaction_id, e.status, ? "
+            + "FROM unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS e(event_id, transaction_id, status) "
+            + "ON CONFLICT (event_id) DO NOTHING RETURNING event_id";
+
+    private static final String APPLY_SQL = "UPDATE payments p SET status = u.status, "
+            + "gateway_response = COALESCE(u.message, p.gateway_response), retry_at = NULL, updated_at = ? "
+            + "FROM unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS u(transaction_id, status, message) "
+            + "WHERE p.transaction_id = u.transaction_id AND p.status = ? RETURNING p.id, p.customer_id, p.method, p.status, p.amount";
+
+    private static final String DEAD_LETTER_SQL = "INSERT INTO payment_webhook_dead_letters "
+            + "(event_id, transaction_id, status, message, error, failed_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (event_id) DO NOTHING";
+
+    // Column width of the ids and the message, which ends up as the gateway response
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CustomerPaymentSummaryService summaryService;
+
+    @Autowired
+    private PaymentMetrics metrics;
+
+    @Value("${payment.webhooks.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${payment.webhooks.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${payment.webhooks.dedupe-cache-size:100000}")
+    private int dedupeCacheSize;
+
+    @Value("${payment.webhooks.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${payment.webhooks.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.webhooks.secret:}")
+    private String secret;
+
+    @Value("${payment.webhooks.retention-days:7}")
+    private int retentionDays;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter receivedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+    private final Counter appliedCounter;
+    private final Counter ignoredCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer batchTimer;
+    private ArrayBlockingQueue<WebhookEventDTO> buffer;
+    // Ids seen recently, so gateway redeliveries are acknowledged without taking a slot
+    private Map<String, Boolean> recentEventIds;
+    private Thread drainer;
+    private volatile boolean running;
+
+    public WebhookIngestionService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.receivedCounter = Counter.builder("payment.webhooks.received")
+                .description("Webhook events accepted into the buffer")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("payment.webhooks.duplicates")
+                .description("Webhook events already received")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("payment.webhooks.rejected")
+                .description("Webhook events turned away because the buffer was full")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("payment.webhooks.applied")
+                .description("Payments updated by a webhook event")
+                .register(meterRegistry);
+        this.ignoredCounter = Counter.builder("payment.webhooks.ignored")
+                .description("Webhook events for unknown payments or that did not move one forward")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("payment.webhooks.dead.lettered")
+                .description("Webhook events that could not be applied and were set aside")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("payment.webhooks.batch")
+                .description("Time to record and apply one batch of webhook events")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.webhooks.buffered", this, service -> service.buffer.size());
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        recentEventIds = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupeCacheSize;
+            }
+        };
+        running = true;
+        drainer = new Thread(this::drain, "payment-webhooks");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // Applies what is already buffered before shutting down
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Checks the HMAC-SHA256 of the raw body, hex encoded, against the gateway's
+     * signature. Without a configured secret every event is accepted, as for the
+     * simulator.
+     */
+    public boolean isSignatureValid(String body, String signature) {
+        if (secret.isEmpty()) {
+            return true;
+        }
+        if (signature == null) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(expected.length * 2);
+            for (byte b : expected) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return MessageDigest.isEqual(hex.toString().getBytes(StandardCharsets.US_ASCII),
+                    signature.trim().toLowerCase().getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot verify webhook signatures", ex);
+        }
+    }
+
+    /**
+     * Buffers the event. False when the buffer is full: the event was not taken and
+     * the gateway should deliver it again later.
+     */
+    public boolean receive(WebhookEventDTO event) {
+        // Checked here rather than left to the database, where one bad event would fail its whole batch
+        if (event.getEventId() == null || event.getEventId().isBlank() || event.getEventId().length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Event id must be 1 to " + MAX_FIELD_LENGTH + " characters");
+        }
+        if (event.getTransactionId() == null || event.getTransactionId().isBlank()
+                || event.getTransactionId().length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Transaction id must be 1 to " + MAX_FIELD_LENGTH + " characters");
+        }
+        if (event.getStatus() == null || event.getStatus() == Payment.PaymentStatus.PENDING) {
+            throw new IllegalArgumentException("Status must be COMPLETED, FAILED or REFUNDED");
+        }
+        if (event.getMessage() != null && event.getMessage().length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Message must be at most " + MAX_FIELD_LENGTH + " characters");
+        }
+        synchronized (recentEventIds) {
+            if (recentEventIds.putIfAbsent(event.getEventId(), Boolean.TRUE) != null) {
+                duplicateCounter.increment();
+                return true;
+            }
+        }
+        if (!buffer.offer(event)) {
+            synchronized (recentEventIds) {
+                recentEventIds.remove(event.getEventId());
+            }
+            rejectedCounter.increment();
+            return false;
+        }
+        receivedCounter.increment();
+        return true;
+    }
+
+    @Scheduled(cron = "${payment.webhooks.cleanup-cron:0 30 3 * * *}")
+    public void purgeReceived() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    webhookEventRepository.deleteReceivedBefore(cutoff, batchSize * 10));
+        } while (deleted > 0);
+    }
+
+    private void drain() {
+        List<WebhookEventDTO> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                WebhookEventDTO first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                applyOrSplit(batch, maxAttempts);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies the events, retrying a failure that may be transient; meanwhile a full
+     * buffer pushes new events back to the gateway. A batch still failing after its
+     * attempts is split in half and each half tried once, down to single events, so
+     * an event that cannot be applied holds up only itself.
+     */
+    private void applyOrSplit(List<WebhookEventDTO> batch, int attempts) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchTimer.record(() -> apply(batch));
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt < attempts) {
+                    log.warn("Applying {} webhook events failed, will retry: {}", batch.size(), ex.getMessage());
+                    Thread.sleep(retryBackoffMs);
+                } else if (batch.size() > 1) {
+                    log.warn("Applying {} webhook events failed, splitting the batch: {}", batch.size(), ex.getMessage());
+                    int half = batch.size() / 2;
+                    applyOrSplit(batch.subList(0, half), 1);
+                    applyOrSplit(batch.subList(half, batch.size()), 1);
+                    return;
+                } else {
+                    deadLetter(batch.get(0), ex);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Sets the event aside. If that fails too the database is in trouble rather than the
+    // event, so both the event and the dead letter are retried until one goes through.
+    private void deadLetter(WebhookEventDTO event, RuntimeException failure) throws InterruptedException {
+        while (true) {
+            try {
+                String error = String.valueOf(failure.getMessage());
+                jdbcTemplate.update(DEAD_LETTER_SQL, event.getEventId(), event.getTransactionId(),
+                        event.getStatus().name(), event.getMessage(), error.substring(0, Math.min(error.length(), 1000)),
+                        Timestamp.valueOf(LocalDateTime.now()));
+                deadLetteredCounter.increment();
+                log.error("Webhook event {} for transaction {} could not be applied, dead-lettered: {}",
+                        event.getEventId(), event.getTransactionId(), failure.getMessage());
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Dead-lettering webhook event {} failed, will retry: {}", event.getEventId(), ex.getMessage());
+                Thread.sleep(retryBackoffMs);
+            }
+            try {
+                batchTimer.record(() -> apply(List.of(event)));
+                return;
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+    }
+
+    private void apply(List<WebhookEventDTO> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Set<String> fresh = new HashSet<>(jdbcTemplate.query(RECORD_EVENTS_SQL, ps -> {
+                ps.setTimestamp(1, now);
+                ps.setArray(2, varchars(ps.getConnection(), batch, WebhookEventDTO::getEventId));
+                ps.setArray(3, varchars(ps.getConnection(), batch, WebhookEventDTO::getTransactionId));
+                ps.setArray(4, varchars(ps.getConnection(), batch, event -> event.getStatus().name()));
+            }, (rs, rowNum) -> rs.getString(1)));
+
+            // The last event per payment and transition; settlements go first so a
+            // payment completed and refunded in the same batch ends up REFUNDED
+            Map<String, WebhookEventDTO> settled = new LinkedHashMap<>();
+            Map<String, WebhookEventDTO> refunded = new LinkedHashMap<>();
+            for (WebhookEventDTO event : batch) {
+                if (fresh.remove(event.getEventId())) {
+                    (event.getStatus() == Payment.PaymentStatus.REFUNDED ? refunded : settled)
+                            .put(event.getTransactionId(), event);
+                }
+            }
+            List<Move> settledMoves = update(new ArrayList<>(settled.values()),
+                    Payment.PaymentStatus.PENDING, now);
+            // Captures first, so payments settled and refunded here have a capture to refund
+            ledgerService.recordCaptures(idsIn(settledMoves, Payment.PaymentStatus.COMPLETED));
+            List<Move> refundMoves = update(new ArrayList<>(refunded.values()),
+                    Payment.PaymentStatus.COMPLETED, now);
+            ledgerService.recordRefundsOfRemainder(idsIn(refundMoves, Payment.PaymentStatus.REFUNDED));
+            List<CustomerPaymentSummaryService.StatusChange> changes = new ArrayList<>();
+            settledMoves.forEach(move -> changes.add(move.change(Payment.PaymentStatus.PENDING)));
+            refundMoves.forEach(move -> changes.add(move.change(Payment.PaymentStatus.COMPLETED)));
+            summaryService.statusesChanged(changes);
+            int appliedCount = settledMoves.size() + refundMoves.size();
+            appliedCounter.increment(appliedCount);
+            ignoredCounter.increment(settled.size() + refunded.size() - appliedCount);
+        });
+    }
+
+    // Moves payments currently in the given status to their event's status
+    private List<Move> update(List<WebhookEventDTO> events, Payment.PaymentStatus from, Timestamp now) {
+        List<Move> moved = new ArrayList<>();
+        if (events.isEmpty()) {
+            return moved;
+        }
+        jdbcTemplate.query(APPLY_SQL, ps -> {
+            ps.setTimestamp(1, now);
+            ps.setArray(2, varchars(ps.getConnection(), events, WebhookEventDTO::getTransactionId));
+            ps.setArray(3, varchars(ps.getConnection(), events, event -> event.getStatus().name()));
+            ps.setArray(4, varchars(ps.getConnection(), events, WebhookEventDTO::getMessage));
+            ps.setString(5, from.name());
+        }, rs -> {
+            Move move = new Move(rs.getLong(1), rs.getLong(2), Payment.PaymentStatus.valueOf(rs.getString(4)),
+                    rs.getBigDecimal(5));
+            metrics.recordTransition(Payment.PaymentMethod.valueOf(rs.getString(3)), move.status);
+            moved.add(move);
+        });
+        return moved;
+    }
+
+    private static List<Long> idsIn(List<Move> moved, Payment.PaymentStatus status) {
+        List<Long> ids = new ArrayList<>();
+        for (Move move : moved) {
+            if (move.status == status) {
+                ids.add(move.paymentId);
+            }
+        }
+        return ids;
+    }
+
+    private static Array varchars(Connection connection, List<WebhookEventDTO> events,
+                                  Function<WebhookEventDTO, String> field) throws SQLException {
+        return connection.createArrayOf("varchar", events.stream().map(field).toArray());
+    }
+
+    // A payment moved by an event, as returned by the update
+    private static final class Move {
+        private final long paymentId;
+        private final long customerId;
+        private final Payment.PaymentStatus status;
+        private final BigDecimal amount;
+
+        private Move(long paymentId, long customerId, Payment.PaymentStatus status, BigDecimal amount) {
+            this.paymentId = paymentId;
+            this.customerId = customerId;
+            this.status = status;
+            this.amount = amount;
+        }
+
+        private CustomerPaymentSummaryService.StatusChange change(Payment.PaymentStatus from) {
+            return new CustomerPaymentSummaryService.StatusChange(paymentId, customerId, amount, from, status);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.kalakriti.payment;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One embedded PostgreSQL server for the whole test run. Each test class creates
+ * its own databases on it, so tests never see each other's rows.
+ */
+public final class TestDatabases {
+
+    public static final String USERNAME = "postgres";
+    public static final String PASSWORD = "postgres";
+
+    private static final AtomicInteger databaseIds = new AtomicInteger();
+    private static EmbeddedPostgres server;
+
+    private TestDatabases() {
+    }
+
+    // Returns the JDBC url of a new, empty database
+    public static synchronized String create(String prefix) {
+        if (server == null) {
+            try {
+                server = EmbeddedPostgres.builder().start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException ex) {
+                    // Exiting anyway
+                }
+            }));
+        }
+        String name = prefix + "_" + databaseIds.incrementAndGet();
+        try (Connection connection = server.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not create test database " + name, ex);
+        }
+        return server.getJdbcUrl(USERNAME, name);
+    }
+}
@@ -0,0 +1,134 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.dto.WebhookEventDTO;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * The summary kept up by per-transition deltas must match the one recomputed from
+ * the customer's payments, whichever path moved them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CustomerPaymentSummaryTest {
+
+    private static final String SUMMARY_SQL = "SELECT payment_count, total_spent, total_refunded, "
+            + "status_counts::text AS status_counts, method_counts::text AS method_counts, last_payment_at "
+            + "FROM customer_payment_summaries WHERE customer_id = ?";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_summaries");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("payment.gateway.simulator.default-profile.latency-ms", () -> "5");
+        registry.add("payment.refunds.poll-interval-ms", () -> "50");
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private WebhookIngestionService webhookService;
+
+    @Autowired
+    private CustomerPaymentSummaryService summaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deltasAddUpToTheRecomputedSummary() throws Exception {
+        Long customerId = 1L;
+        Payment refundedByWebhook = pay(customerId, 1L, "40.00", Payment.PaymentMethod.UPI);
+        Payment partlyRefunded = pay(customerId, 2L, "25.00", Payment.PaymentMethod.UPI);
+        Payment refundedInFull = pay(customerId, 3L, "15.00", Payment.PaymentMethod.CREDIT_CARD);
+        Payment failedByOperator = pay(customerId, 4L, "9.99", Payment.PaymentMethod.WALLET);
+
+        WebhookEventDTO event = new WebhookEventDTO();
+        event.setEventId("refund-" + refundedByWebhook.getId());
+        event.setTransactionId(refundedByWebhook.getTransactionId());
+        event.setStatus(Payment.PaymentStatus.REFUNDED);
+        webhookService.receive(event);
+        Refund partial = refundService.requestRefund(partlyRefunded.getId(), new BigDecimal("10.00"), "damaged frame");
+        Refund full = refundService.requestRefund(refundedInFull.getId(), null, "never arrived");
+        paymentService.updatePaymentStatus(failedByOperator.getId(), Payment.PaymentStatus.FAILED);
+
+        await(() -> status(refundedByWebhook) == Payment.PaymentStatus.REFUNDED
+                && status(refundedInFull) == Payment.PaymentStatus.REFUNDED
+                && refundService.getRefund(partial.getId()).get().getState() == Refund.RefundState.SUCCEEDED
+                && refundService.getRefund(full.getId()).get().getState() == Refund.RefundState.SUCCEEDED);
+
+        Map<String, Object> kept = summary(customerId);
+        assertEquals(4L, ((Number) kept.get("payment_count")).longValue());
+        assertEquals(0, new BigDecimal("80.00").compareTo((BigDecimal) kept.get("total_spent")), kept.toString());
+        assertEquals(0, new BigDecimal("65.00").compareTo((BigDecimal) kept.get("total_refunded")), kept.toString());
+        summaryService.rebuild(customerId);
+        assertEquals(summary(customerId), kept);
+    }
+
+    @Test
+    void aCustomerWithoutARowIsBackfilledOnTheirNextTransition() throws Exception {
+        Long customerId = 2L;
+        pay(customerId, 10L, "12.00", Payment.PaymentMethod.DEBIT_CARD);
+        Payment second = pay(customerId, 11L, "30.00", Payment.PaymentMethod.NET_BANKING);
+        // As for history from before the summaries existed
+        jdbcTemplate.update("DELETE FROM customer_payment_summaries WHERE customer_id = ?", customerId);
+
+        paymentService.updatePaymentStatus(second.getId(), Payment.PaymentStatus.REFUNDED);
+
+        Map<String, Object> kept = summary(customerId);
+        assertEquals(2L, ((Number) kept.get("payment_count")).longValue());
+        assertEquals(0, new BigDecimal("30.00").compareTo((BigDecimal) kept.get("total_refunded")), kept.toString());
+        summaryService.rebuild(customerId);
+        assertEquals(summary(customerId), kept);
+    }
+
+    private Payment pay(Long customerId, Long orderId, String amount, Payment.PaymentMethod method) throws Exception {
+        Payment payment = new Payment();
+        payment.setOrderId(orderId);
+        payment.setCustomerId(customerId);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setMethod(method);
+        Payment processed = paymentService.processPayment(payment, null).get(10, TimeUnit.SECONDS);
+        assertEquals(Payment.PaymentStatus.COMPLETED, processed.getStatus());
+        return processed;
+    }
+
+    private Payment.PaymentStatus status(Payment payment) {
+        return paymentService.getPaymentById(payment.getId()).get().getStatus();
+    }
+
+    private Map<String, Object> summary(Long customerId) {
+        return jdbcTemplate.queryForMap(SUMMARY_SQL, customerId);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("condition not reached in 10 seconds");
+    }
+}
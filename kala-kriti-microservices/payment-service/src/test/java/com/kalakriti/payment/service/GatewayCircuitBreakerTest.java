@@ -0,0 +1,140 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kalakriti.payment.service.GatewayCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class GatewayCircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 50;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new GatewayCircuitBreaker(meterRegistry);
+        ReflectionTestUtils.setField(breaker, "windowSize", 10);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(breaker, "openDurationMs", OPEN_DURATION_MS);
+        ReflectionTestUtils.setField(breaker, "halfOpenCalls", 2);
+        breaker.init();
+    }
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        record(true, true, true);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(-1f, breaker.getFailureRate());
+        assertEquals(3, breaker.getBufferedCalls());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        record(false, false, true);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        record(true);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(0, breaker.getBufferedCalls(), "the window starts over");
+        assertEquals(1.0, meterRegistry.get("payment.gateway.circuit.opened").counter().count());
+        assertEquals(State.OPEN.ordinal(), meterRegistry.get("payment.gateway.circuit.state").gauge().value());
+    }
+
+    @Test
+    void oldOutcomesSlideOutOfTheWindow() {
+        record(true, false, false, false, true, false, false, false, true, false);
+        assertEquals(30f, breaker.getFailureRate());
+
+        // The next success pushes out the oldest call, a failure
+        record(false);
+        assertEquals(20f, breaker.getFailureRate());
+
+        record(false, false, false, false, false, false, false, false);
+        assertEquals(0f, breaker.getFailureRate());
+        assertEquals(10, breaker.getBufferedCalls());
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void answersToCallsMadeBeforeOpeningDoNotMoveTheBreaker() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+        }
+        record(true, true, true, true);
+
+        breaker.onResult(false);
+        breaker.onResult(false);
+        breaker.onResult(false);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    void halfOpenLetsOnlyTheProbesThroughAndClosesWhenTheyAllSucceed() throws InterruptedException {
+        openAndWait();
+
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission(), "only two probes");
+
+        breaker.onResult(false);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        breaker.onResult(false);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void aFailedProbeOpensTheBreakerAgain() throws InterruptedException {
+        openAndWait();
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onResult(true);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(2.0, meterRegistry.get("payment.gateway.circuit.opened").counter().count());
+    }
+
+    @Test
+    void aReleasedProbePermissionCanBeTakenAgain() throws InterruptedException {
+        openAndWait();
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.releasePermission();
+
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    private void openAndWait() throws InterruptedException {
+        record(true, true, true, true);
+        assertEquals(State.OPEN, breaker.getState());
+        Thread.sleep(OPEN_DURATION_MS + 10);
+    }
+
+    private void record(boolean... failures) {
+        for (boolean failed : failures) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(failed);
+        }
+    }
+}
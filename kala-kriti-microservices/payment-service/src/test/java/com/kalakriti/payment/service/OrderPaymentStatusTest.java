@@ -0,0 +1,76 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.repository.PaymentRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * The lookup order-service makes before expiring orders: a completed payment wins
+ * over any other attempt, and orders with nothing completed or pending are left out.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderPaymentStatusTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_order_status");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void completedWinsAndSettledOrUnpaidOrdersAreLeftOut() {
+        payment(1L, Payment.PaymentStatus.FAILED);
+        payment(1L, Payment.PaymentStatus.COMPLETED);
+        payment(1L, Payment.PaymentStatus.PENDING);
+        payment(2L, Payment.PaymentStatus.FAILED);
+        payment(2L, Payment.PaymentStatus.PENDING);
+        payment(3L, Payment.PaymentStatus.FAILED);
+        payment(4L, Payment.PaymentStatus.REFUNDED);
+
+        Map<Long, Payment.PaymentStatus> statuses = paymentService.getOrderPaymentStatuses(List.of(1L, 2L, 3L, 4L, 5L));
+
+        assertEquals(Map.of(1L, Payment.PaymentStatus.COMPLETED, 2L, Payment.PaymentStatus.PENDING), statuses);
+        assertEquals(Map.of(), paymentService.getOrderPaymentStatuses(List.of()));
+    }
+
+    @Test
+    void lookupsAreCapped() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+        assertThrows(IllegalArgumentException.class, () -> paymentService.getOrderPaymentStatuses(tooMany));
+    }
+
+    private void payment(Long orderId, Payment.PaymentStatus status) {
+        Payment payment = new Payment();
+        payment.setOrderId(orderId);
+        payment.setCustomerId(9L);
+        payment.setAmount(new BigDecimal("10.00"));
+        payment.setMethod(Payment.PaymentMethod.UPI);
+        payment.setStatus(status);
+        payment.setTransactionId(UUID.randomUUID().toString());
+        paymentRepository.save(payment);
+    }
+}
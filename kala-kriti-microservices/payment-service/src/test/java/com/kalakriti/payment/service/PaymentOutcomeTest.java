@@ -0,0 +1,111 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.dto.WebhookEventDTO;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.repository.PaymentRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * A webhook that settles a payment while its gateway call is still out must not be
+ * overwritten by the call's late outcome.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentOutcomeTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_outcome");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        // Long enough for a webhook to land while the simulated gateway is "working"
+        registry.add("payment.gateway.simulator.default-profile.latency-ms", () -> "1500");
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private WebhookIngestionService webhookService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Test
+    void aWebhookSettlementOutlivesTheGatewaysLateApproval() throws Exception {
+        CompletableFuture<Payment> result = paymentService.processPayment(payment(1L), null);
+        Payment pending = awaitPayment(1L, Payment.PaymentStatus.PENDING);
+
+        webhookService.receive(event("settle-" + pending.getId(), pending.getTransactionId(), Payment.PaymentStatus.FAILED));
+        awaitPayment(1L, Payment.PaymentStatus.FAILED);
+
+        // The simulator approves, after the webhook has failed the payment
+        Payment outcome = result.get(10, TimeUnit.SECONDS);
+        assertEquals(Payment.PaymentStatus.FAILED, outcome.getStatus());
+        assertEquals(Payment.PaymentStatus.FAILED, paymentRepository.findById(pending.getId()).get().getStatus());
+        assertEquals(List.of(), ledgerService.getEntriesForPayment(pending.getId()), "no capture for a failed payment");
+    }
+
+    @Test
+    void anUncontestedOutcomeIsRecordedOnce() throws Exception {
+        Payment outcome = paymentService.processPayment(payment(2L), null).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Payment.PaymentStatus.COMPLETED, outcome.getStatus());
+        Payment stored = paymentRepository.findById(outcome.getId()).get();
+        assertEquals(Payment.PaymentStatus.COMPLETED, stored.getStatus());
+        assertNull(stored.getRetryAt());
+        assertEquals(1, ledgerService.getEntriesForPayment(outcome.getId()).size(), "one capture");
+
+        // A late webhook for the same outcome moves nothing and posts nothing
+        webhookService.receive(event("late-" + outcome.getId(), outcome.getTransactionId(), Payment.PaymentStatus.COMPLETED));
+        Thread.sleep(500);
+        assertEquals(1, ledgerService.getEntriesForPayment(outcome.getId()).size());
+    }
+
+    private Payment awaitPayment(Long customerId, Payment.PaymentStatus status) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<Payment> found = paymentRepository.findByCustomerId(customerId);
+            if (found.size() == 1 && found.get(0).getStatus() == status) {
+                return found.get(0);
+            }
+            Thread.sleep(20);
+        }
+        return fail("customer " + customerId + " has no " + status + " payment");
+    }
+
+    private static Payment payment(Long customerId) {
+        Payment payment = new Payment();
+        payment.setOrderId(customerId * 100);
+        payment.setCustomerId(customerId);
+        payment.setAmount(new BigDecimal("40.00"));
+        payment.setMethod(Payment.PaymentMethod.UPI);
+        return payment;
+    }
+
+    private static WebhookEventDTO event(String eventId, String transactionId, Payment.PaymentStatus status) {
+        WebhookEventDTO event = new WebhookEventDTO();
+        event.setEventId(eventId);
+        event.setTransactionId(transactionId);
+        event.setStatus(status);
+        event.setMessage("Settled by webhook");
+        return event;
+    }
+}
@@ -0,0 +1,153 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.entity.Payment;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Payment throughput as concurrent clients grow, against a simulated gateway that
+ * takes {@value #GATEWAY_LATENCY_MS} ms per call and a pool of only
+ * {@value #POOL_SIZE} connections. A connection held for a whole payment would cap
+ * throughput at POOL_SIZE divided by the time one payment takes; released around
+ * the gateway call, throughput keeps scaling with clients until the database or
+ * the CPU runs out. Not part of the regular test run:
+ * <pre>mvn test -pl payment-service -Dtest=PaymentThroughputBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentThroughputBenchmark {
+
+    private static final int[] CONCURRENCY = {1, 4, 16, 64, 256};
+    private static final int GATEWAY_LATENCY_MS = 100;
+    private static final int POOL_SIZE = 10;
+    private static final long RUN_MS = 5000;
+    private static final int CUSTOMERS = 1000;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_throughput");
+        // The embedded server acknowledges commits before they are flushed; a
+        // commit here has to wait for its WAL flush as in production
+        try (Connection connection = DriverManager.getConnection(url, TestDatabases.USERNAME, TestDatabases.PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER DATABASE " + connection.getCatalog() + " SET synchronous_commit = on");
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> POOL_SIZE);
+        registry.add("spring.datasource.hikari.connection-timeout", () -> 30000);
+        registry.add("payment.gateway.simulator.default-profile.latency-ms", () -> GATEWAY_LATENCY_MS);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    @Test
+    void throughputScalesWithConcurrencyPastThePoolSize() throws Exception {
+        // Warms up the pool, the JIT and Hibernate's statement caches
+        run(16, 1000);
+
+        System.out.printf(Locale.ROOT, "%n%12s %14s %10s %10s%n", "concurrency", "payments/s", "p50 (ms)", "p99 (ms)");
+        double highest = 0;
+        double heldConnectionCap = 0;
+        for (int clients : CONCURRENCY) {
+            Result result = run(clients, RUN_MS);
+            System.out.printf(Locale.ROOT, "%12d %14.0f %10.1f %10.1f%n", clients, result.throughput,
+                    result.p50Ms, result.p99Ms);
+            if (clients == 1) {
+                heldConnectionCap = POOL_SIZE * 1000.0 / result.p50Ms;
+            }
+            highest = Math.max(highest, result.throughput);
+        }
+        System.out.printf(Locale.ROOT, "cap with a connection held per payment: %.0f/s%n", heldConnectionCap);
+        assertTrue(highest > heldConnectionCap,
+                "peak " + highest + "/s does not beat a connection held per payment, " + heldConnectionCap + "/s");
+    }
+
+    // Each client pays, waits for the outcome and pays again until the time is up
+    private Result run(int clients, long runMs) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(runMs);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        Payment payment = paymentService.processPayment(newPayment(), null).get(30, TimeUnit.SECONDS);
+                        if (payment.getStatus() != Payment.PaymentStatus.COMPLETED) {
+                            throw new IllegalStateException("Payment " + payment.getId() + " ended " + payment.getStatus());
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(sorted.size() / seconds, percentileMs(sorted, 0.50), percentileMs(sorted, 0.99));
+    }
+
+    private Payment newPayment() {
+        long orderId = orderIds.incrementAndGet();
+        Payment payment = new Payment();
+        payment.setOrderId(orderId);
+        payment.setCustomerId(orderId % CUSTOMERS);
+        payment.setAmount(new BigDecimal("49.00"));
+        payment.setMethod(Payment.PaymentMethod.UPI);
+        return payment;
+    }
+
+    private static double percentileMs(List<Long> sortedNanos, double percentile) {
+        int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(percentile * sortedNanos.size()) - 1);
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+
+    private static final class Result {
+        private final double throughput;
+        private final double p50Ms;
+        private final double p99Ms;
+
+        private Result(double throughput, double p50Ms, double p99Ms) {
+            this.throughput = throughput;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+        }
+    }
+}
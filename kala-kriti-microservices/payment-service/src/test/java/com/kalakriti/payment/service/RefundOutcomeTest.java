@@ -0,0 +1,123 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import com.kalakriti.payment.repository.PaymentRepository;
+import com.kalakriti.payment.repository.RefundRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The gateway's answer to a refund submission whose claim lapsed, and which another
+ * worker has resubmitted since, must not overwrite the newer attempt.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RefundOutcomeTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_refund_outcome");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        // Claims are made by hand; the workers are not under test here
+        registry.add("payment.refunds.poll-interval-ms", () -> "3600000");
+    }
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Test
+    void aLateAnswerLeavesTheReclaimedRefundAlone() {
+        Payment payment = payment("40.00");
+        Refund requested = refundService.requestRefund(payment.getId(), null, "all of it");
+        Refund firstAttempt = claim(requested.getId());
+        Refund secondAttempt = claim(requested.getId());
+
+        // The first submission's approval arrives after the second claim
+        recordOutcomes(firstAttempt, GatewayResult.approved("ref-1", "Refund approved"));
+
+        Refund stored = refundRepository.findById(requested.getId()).get();
+        assertEquals(Refund.RefundState.SUBMITTED, stored.getState());
+        assertEquals(2, stored.getAttempts());
+        assertEquals(Payment.PaymentStatus.COMPLETED, paymentRepository.findById(payment.getId()).get().getStatus());
+        assertEquals(List.of(), ledgerService.getEntriesForPayment(payment.getId()), "no refund posted");
+
+        recordOutcomes(secondAttempt, GatewayResult.approved("ref-2", "Refund approved"));
+
+        stored = refundRepository.findById(requested.getId()).get();
+        assertEquals(Refund.RefundState.SUCCEEDED, stored.getState());
+        assertEquals("ref-2", stored.getGatewayReference());
+        assertEquals(Payment.PaymentStatus.REFUNDED, paymentRepository.findById(payment.getId()).get().getStatus());
+        assertEquals(1, ledgerService.getEntriesForPayment(payment.getId()).size(), "one refund posted");
+
+        // Nor does an answer to an attempt that was already recorded
+        recordOutcomes(secondAttempt, GatewayResult.declined("Refund declined"));
+        assertEquals(Refund.RefundState.SUCCEEDED, refundRepository.findById(requested.getId()).get().getState());
+    }
+
+    // What a worker's claim does to the row; returns the copy its submission holds
+    private Refund claim(Long refundId) {
+        Refund refund = refundRepository.findById(refundId).get();
+        refund.setState(Refund.RefundState.SUBMITTED);
+        refund.setAttempts(refund.getAttempts() + 1);
+        return refundRepository.save(refund);
+    }
+
+    private void recordOutcomes(Refund attempt, GatewayResult result) {
+        // The service is proxied for @Transactional; recordOutcomes lives on the target
+        RefundService target = AopTestUtils.getTargetObject(refundService);
+        ReflectionTestUtils.invokeMethod(target, "recordOutcomes", List.of(copy(attempt)), List.of(result));
+    }
+
+    // recordOutcomes updates its batch in place, so each call gets a fresh copy of the claim
+    private static Refund copy(Refund claimed) {
+        Refund refund = new Refund();
+        refund.setId(claimed.getId());
+        refund.setPaymentId(claimed.getPaymentId());
+        refund.setOrderId(claimed.getOrderId());
+        refund.setCustomerId(claimed.getCustomerId());
+        refund.setMethod(claimed.getMethod());
+        refund.setAmount(claimed.getAmount());
+        refund.setReason(claimed.getReason());
+        refund.setState(claimed.getState());
+        refund.setAttempts(claimed.getAttempts());
+        refund.setNextAttemptAt(claimed.getNextAttemptAt());
+        refund.setCreatedAt(claimed.getCreatedAt());
+        refund.setUpdatedAt(claimed.getUpdatedAt());
+        return refund;
+    }
+
+    private Payment payment(String amount) {
+        Payment payment = new Payment();
+        payment.setOrderId(1L);
+        payment.setCustomerId(4L);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setMethod(Payment.PaymentMethod.CREDIT_CARD);
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setTransactionId(UUID.randomUUID().toString());
+        return paymentRepository.save(payment);
+    }
+}
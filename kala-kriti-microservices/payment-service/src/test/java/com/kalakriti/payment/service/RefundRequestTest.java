@@ -0,0 +1,130 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.entity.Refund;
+import com.kalakriti.payment.repository.PaymentRepository;
+import com.kalakriti.payment.repository.RefundRepository;
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * A refund request may only take what is left of a completed payment once its
+ * queued, submitted and paid refunds are counted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RefundRequestTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_refund_requests");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        // Requested refunds stay queued; the workers are not under test here
+        registry.add("payment.refunds.poll-interval-ms", () -> "3600000");
+    }
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Test
+    void onlyCompletedPaymentsCanBeRefunded() {
+        for (Payment.PaymentStatus status : Payment.PaymentStatus.values()) {
+            if (status == Payment.PaymentStatus.COMPLETED) {
+                continue;
+            }
+            Payment payment = payment("20.00", status);
+            assertThrows(IllegalStateException.class,
+                    () -> refundService.requestRefund(payment.getId(), new BigDecimal("5.00"), "test"), status.name());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> refundService.requestRefund(Long.MAX_VALUE, new BigDecimal("5.00"), "test"));
+    }
+
+    @Test
+    void theAmountMustBePositive() {
+        Payment payment = payment("20.00", Payment.PaymentStatus.COMPLETED);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> refundService.requestRefund(payment.getId(), BigDecimal.ZERO, "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> refundService.requestRefund(payment.getId(), new BigDecimal("-1.00"), "test"));
+    }
+
+    @Test
+    void outstandingRefundsCountAgainstTheRemainder() {
+        Payment payment = payment("50.00", Payment.PaymentStatus.COMPLETED);
+        Refund queued = refundService.requestRefund(payment.getId(), new BigDecimal("10.00"), "first");
+        Refund submitted = refundService.requestRefund(payment.getId(), new BigDecimal("15.00"), "second");
+        Refund succeeded = refundService.requestRefund(payment.getId(), new BigDecimal("5.00"), "third");
+        setState(submitted, Refund.RefundState.SUBMITTED);
+        setState(succeeded, Refund.RefundState.SUCCEEDED);
+        assertEquals(Refund.RefundState.QUEUED, refundService.getRefund(queued.getId()).get().getState());
+
+        IllegalStateException exceeded = assertThrows(IllegalStateException.class,
+                () -> refundService.requestRefund(payment.getId(), new BigDecimal("20.01"), "too much"));
+        assertEquals("Refund exceeds the refundable amount of 20.00", exceeded.getMessage());
+
+        Refund rest = refundService.requestRefund(payment.getId(), new BigDecimal("20.00"), "the rest");
+        assertEquals(0, new BigDecimal("20.00").compareTo(rest.getAmount()));
+        assertThrows(IllegalStateException.class,
+                () -> refundService.requestRefund(payment.getId(), null, "again"));
+    }
+
+    @Test
+    void withoutAnAmountTheRemainderIsRefunded() {
+        Payment payment = payment("30.00", Payment.PaymentStatus.COMPLETED);
+        refundService.requestRefund(payment.getId(), new BigDecimal("12.50"), "part");
+
+        Refund rest = refundService.requestRefund(payment.getId(), null, "the rest");
+
+        assertEquals(0, new BigDecimal("17.50").compareTo(rest.getAmount()));
+        assertThrows(IllegalStateException.class,
+                () -> refundService.requestRefund(payment.getId(), new BigDecimal("0.01"), "one cent more"));
+    }
+
+    @Test
+    void aFailedRefundFreesItsAmountAgain() {
+        Payment payment = payment("25.00", Payment.PaymentStatus.COMPLETED);
+        Refund failed = refundService.requestRefund(payment.getId(), null, "all of it");
+        setState(failed, Refund.RefundState.FAILED);
+
+        Refund retried = refundService.requestRefund(payment.getId(), null, "all of it, again");
+
+        assertEquals(0, new BigDecimal("25.00").compareTo(retried.getAmount()));
+    }
+
+    private Payment payment(String amount, Payment.PaymentStatus status) {
+        Payment payment = new Payment();
+        payment.setOrderId(1L);
+        payment.setCustomerId(3L);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setMethod(Payment.PaymentMethod.CREDIT_CARD);
+        payment.setStatus(status);
+        payment.setTransactionId(UUID.randomUUID().toString());
+        return paymentRepository.save(payment);
+    }
+
+    private void setState(Refund refund, Refund.RefundState state) {
+        Refund stored = refundRepository.findById(refund.getId()).get();
+        stored.setState(state);
+        refundRepository.save(stored);
+    }
+}
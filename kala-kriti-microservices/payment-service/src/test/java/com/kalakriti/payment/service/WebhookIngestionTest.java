@@ -0,0 +1,124 @@
+package com.kalakriti.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.kalakriti.payment.TestDatabases;
+import com.kalakriti.payment.dto.WebhookEventDTO;
+import com.kalakriti.payment.entity.Payment;
+import com.kalakriti.payment.repository.PaymentRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Webhook events are validated on receipt, and an event that cannot be applied is
+ * dead-lettered instead of blocking the events behind it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WebhookIngestionTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = TestDatabases.create("payment_webhooks");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabases.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabases.PASSWORD);
+        registry.add("payment.webhooks.max-attempts", () -> "2");
+        registry.add("payment.webhooks.retry-backoff-ms", () -> "10");
+    }
+
+    @Autowired
+    private WebhookIngestionService webhookService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void anEventThatCannotBeAppliedIsDeadLetteredAndTheRestGoThrough() throws InterruptedException {
+        // Any update to this one payment fails, and with it every batch it is part of
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION reject_poison() RETURNS trigger AS $$ BEGIN "
+                + "IF NEW.transaction_id LIKE 'poison-%' THEN RAISE EXCEPTION 'poisoned payment'; END IF; "
+                + "RETURN NEW; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER reject_poison BEFORE UPDATE ON payments "
+                + "FOR EACH ROW EXECUTE FUNCTION reject_poison()");
+        Payment first = pendingPayment("");
+        Payment poison = pendingPayment("poison-");
+        Payment second = pendingPayment("");
+
+        for (Payment payment : List.of(first, poison, second)) {
+            webhookService.receive(event("settle-" + payment.getId(), payment.getTransactionId()));
+        }
+        await(() -> status(first) == Payment.PaymentStatus.COMPLETED && status(second) == Payment.PaymentStatus.COMPLETED);
+        await(() -> deadLetters("settle-" + poison.getId()) == 1);
+        assertEquals(Payment.PaymentStatus.PENDING, status(poison));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_webhook_events WHERE event_id = ?", Long.class, "settle-" + poison.getId()),
+                "not recorded as received, so it can be replayed");
+
+        // The drainer has moved on
+        Payment later = pendingPayment("");
+        webhookService.receive(event("settle-" + later.getId(), later.getTransactionId()));
+        await(() -> status(later) == Payment.PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void oversizedFieldsAreRejectedOnReceipt() {
+        String tooLong = "x".repeat(256);
+        assertThrows(IllegalArgumentException.class, () -> webhookService.receive(event(tooLong, "tx")));
+        assertThrows(IllegalArgumentException.class, () -> webhookService.receive(event("too-long-tx", tooLong)));
+        WebhookEventDTO longMessage = event("too-long-message", "tx");
+        longMessage.setMessage(tooLong);
+        assertThrows(IllegalArgumentException.class, () -> webhookService.receive(longMessage));
+    }
+
+    private Payment pendingPayment(String transactionPrefix) {
+        Payment payment = new Payment();
+        payment.setOrderId(1L);
+        payment.setCustomerId(7L);
+        payment.setAmount(new BigDecimal("12.50"));
+        payment.setMethod(Payment.PaymentMethod.CREDIT_CARD);
+        payment.setTransactionId(transactionPrefix + UUID.randomUUID());
+        return paymentRepository.save(payment);
+    }
+
+    private Payment.PaymentStatus status(Payment payment) {
+        return paymentRepository.findById(payment.getId()).get().getStatus();
+    }
+
+    private long deadLetters(String eventId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_webhook_dead_letters WHERE event_id = ?", Long.class, eventId);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("condition not reached in 5 seconds");
+    }
+
+    private static WebhookEventDTO event(String eventId, String transactionId) {
+        WebhookEventDTO event = new WebhookEventDTO();
+        event.setEventId(eventId);
+        event.setTransactionId(transactionId);
+        event.setStatus(Payment.PaymentStatus.COMPLETED);
+        return event;
+    }
+}
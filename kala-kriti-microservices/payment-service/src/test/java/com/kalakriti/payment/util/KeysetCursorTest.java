@@ -0,0 +1,51 @@
+package com.kalakriti.payment.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        long[][] cases = {
+            {0L},
+            {42L, 7L},
+            {Long.MAX_VALUE, Long.MIN_VALUE},
+            {-1L, 1_099_511_627_777L, 3L},
+        };
+        for (long[] keys : cases) {
+            assertArrayEquals(keys, KeysetCursor.decode(KeysetCursor.encode(keys), keys.length));
+        }
+    }
+
+    @Test
+    void cursorsAreUrlSafe() {
+        String cursor = KeysetCursor.encode(Long.MIN_VALUE, Long.MAX_VALUE, 1_738_000_000_123_456L);
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void rejectsTheWrongNumberOfKeys() {
+        String cursor = KeysetCursor.encode(1L, 2L);
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor, 3));
+    }
+
+    @Test
+    void rejectsTamperedCursorsWithTheSameMessage() {
+        String notBase64 = "%%%";
+        String notNumbers = Base64.getUrlEncoder().encodeToString("1:abc".getBytes(StandardCharsets.US_ASCII));
+        String empty = "";
+        for (String cursor : new String[]{notBase64, notNumbers, empty}) {
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> KeysetCursor.decode(cursor, 2));
+            assertEquals("Invalid cursor", ex.getMessage());
+        }
+    }
+}